@@ -2,9 +2,11 @@ package com.example.bankcards;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class BankcardsApplication {
     public static void main(String[] args) {
         SpringApplication.run(BankcardsApplication.class, args);
@@ -0,0 +1,167 @@
+package com.example.bankcards.config.liquibase;
+
+import com.example.bankcards.util.CryptoService;
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fills {@code cards.card_last4} for cards created before the column existed.
+ * <p>
+ * Rows are read in id order, decrypted on a small pool and written back with one batch per chunk.
+ * Every chunk is committed on its own, so a restarted migration only sees the rows still left null.
+ */
+@Slf4j
+public class CardLast4Backfill implements CustomTaskChange {
+
+    private static final String SELECT_SQL = """
+            select id, card_number_encrypted from cards
+            where card_last4 is null and id > ?
+            order by id
+            limit ?
+            """;
+    private static final String UPDATE_SQL = "update cards set card_last4 = ? where id = ?";
+
+    @Setter
+    private String secretKey;
+
+    @Setter
+    private String chunkSize;
+
+    @Setter
+    private String threads;
+
+    private int processed;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        Connection connection = ((JdbcConnection) database.getConnection()).getUnderlyingConnection();
+        int limit = Integer.parseInt(chunkSize);
+        int poolSize = Integer.parseInt(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                CryptoService cryptoService = null;
+                long lastId = 0;
+                List<Row> chunk;
+                while (!(chunk = readChunk(connection, lastId, limit)).isEmpty()) {
+                    if (cryptoService == null) {
+                        cryptoService = new CryptoService(secretKey);
+                    }
+                    List<String> lastFours = decrypt(chunk, cryptoService, executor, poolSize);
+                    write(connection, chunk, lastFours);
+                    connection.commit();
+
+                    processed += chunk.size();
+                    lastId = chunk.getLast().id();
+                    log.info("Backfilled card_last4 for {} cards, last id {}", processed, lastId);
+                }
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new CustomChangeException("card_last4 backfill failed after " + processed + " cards", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Row> readChunk(Connection connection, long afterId, int limit) throws SQLException {
+        List<Row> rows = new ArrayList<>(limit);
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Row(rs.getLong(1), rs.getString(2)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<String> decrypt(List<Row> chunk, CryptoService cryptoService, ExecutorService executor, int poolSize)
+            throws CustomChangeException {
+        int slice = Math.ceilDiv(chunk.size(), poolSize);
+        List<Future<List<String>>> futures = new ArrayList<>(poolSize);
+        for (int from = 0; from < chunk.size(); from += slice) {
+            List<Row> rows = chunk.subList(from, Math.min(from + slice, chunk.size()));
+            futures.add(executor.submit(() -> cryptoService.decryptAll(rows.stream().map(Row::encrypted).toList())
+                    .stream()
+                    .map(this::lastFour)
+                    .toList()));
+        }
+
+        List<String> lastFours = new ArrayList<>(chunk.size());
+        try {
+            for (Future<List<String>> future : futures) {
+                lastFours.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomChangeException("card_last4 backfill interrupted", e);
+        } catch (ExecutionException e) {
+            throw new CustomChangeException("Could not decrypt card numbers after id " + chunk.getFirst().id(), e.getCause());
+        }
+        return lastFours;
+    }
+
+    private void write(Connection connection, List<Row> chunk, List<String> lastFours) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                statement.setString(1, lastFours.get(i));
+                statement.setLong(2, chunk.get(i).id());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private String lastFour(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "card_last4 backfilled for " + processed + " cards";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        ValidationErrors errors = new ValidationErrors();
+        errors.checkRequiredField("secretKey", secretKey);
+        errors.checkRequiredField("chunkSize", chunkSize);
+        errors.checkRequiredField("threads", threads);
+        return errors;
+    }
+
+    private record Row(long id, String encrypted) {
+    }
+}
@@ -5,10 +5,15 @@ import com.example.bankcards.entity.Card;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.math.BigDecimal;
+
 @Configuration
 public class CardMapper {
 
-    public CardDto toDto(Card card, String maskedNumber) {
+    /**
+     * @param balance the card's balance including its stripes, see {@code StripedBalanceService}
+     */
+    public CardDto toDto(Card card, String maskedNumber, BigDecimal balance) {
         if (card == null) {
             return null;
         }
@@ -19,7 +24,8 @@ public class CardMapper {
                 .owner(card.getOwner())
                 .expirationDate(card.getExpirationDate())
                 .status(card.getStatus())
-                .balance(card.getBalance())
+                .balance(balance)
+                .currency(card.getCurrency())
                 .build();
     }
 }
@@ -3,6 +3,7 @@ package com.example.bankcards.controller;
 import com.example.bankcards.config.swagger.errors.CommonApiErrors;
 import com.example.bankcards.dto.auth.AuthResponse;
 import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.dto.auth.RefreshTokenRequest;
 import com.example.bankcards.service.auth.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -28,7 +29,7 @@ public class AuthController {
 
     @Operation(
             summary = "Вход в систему",
-            description = "Аутентификация пользователя по логину и паролю. Возвращает JWT токен"
+            description = "Аутентификация пользователя по логину и паролю. Возвращает JWT токен доступа и токен обновления"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Успешная аутентификация"),
@@ -38,5 +39,19 @@ public class AuthController {
     public AuthResponse login(@RequestBody LoginRequest request) {
         return authService.login(request);
     }
+
+    @Operation(
+            summary = "Обновление токена",
+            description = "Выдаёт новый JWT токен доступа и новый токен обновления в обмен на текущий токен обновления. "
+                    + "Каждый токен обновления одноразовый: повторное использование отзывает всю цепочку токенов"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Токены обновлены"),
+    })
+    @CommonApiErrors(unauthorized = true)
+    @PostMapping("/refresh")
+    public AuthResponse refresh(@RequestBody RefreshTokenRequest request) {
+        return authService.refresh(request);
+    }
 }
 
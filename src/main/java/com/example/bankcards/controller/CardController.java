@@ -3,7 +3,15 @@ package com.example.bankcards.controller;
 import com.example.bankcards.config.swagger.errors.CommonApiErrors;
 import com.example.bankcards.dto.card.*;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.service.AsyncTransferService;
+import com.example.bankcards.service.BalanceImportService;
+import com.example.bankcards.service.BatchTransferService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStreamService;
+import com.example.bankcards.service.IdempotentTransferService;
+import com.example.bankcards.service.KeyRotationService;
+import com.example.bankcards.service.ScheduledTransferService;
+import com.example.bankcards.service.TransferHistoryService;
 import com.example.bankcards.service.TransferService;
 import com.example.bankcards.util.SecurityUtil;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,13 +25,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Tag(
         name = "Cards",
@@ -38,8 +53,20 @@ import java.math.BigDecimal;
 )
 public class CardController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final CardService cardService;
     private final TransferService transferService;
+    private final BatchTransferService batchTransferService;
+    private final IdempotentTransferService idempotentTransferService;
+    private final AsyncTransferService asyncTransferService;
+    private final TransferHistoryService transferHistoryService;
+    private final ScheduledTransferService scheduledTransferService;
+    private final BalanceImportService balanceImportService;
+    private final CardStreamService cardStreamService;
+    private final KeyRotationService keyRotationService;
     private final SecurityUtil securityUtil;
 
 
@@ -89,6 +116,51 @@ public class CardController {
         return cardService.getById(id);
     }
 
+    @Operation(
+            summary = "Найти карту по номеру",
+            description = "Поиск карты по полному номеру через слепой индекс (HMAC), без перебора и расшифровки карт. "
+                    + "Номер передаётся в теле запроса, чтобы не попадать в логи и историю URL. Доступно только администратору"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Карта найдена"),
+    })
+    @CommonApiErrors(forbidden = true, cardNotFound = true)
+    @PostMapping("/lookup")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CardDto lookup(@RequestBody CardLookupRequest request) {
+        return cardService.getByCardNumber(request.getCardNumber());
+    }
+
+    @Operation(
+            summary = "Состояние ротации ключей",
+            description = "Целевой мастер-ключ, позиция фоновой перешифровки, число перешифрованных карт и конфликтов, "
+                    + "текущий лимит скорости. Доступно только администратору"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Состояние ротации"),
+    })
+    @CommonApiErrors(forbidden = true)
+    @GetMapping("/key-rotation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public KeyRotationStatusDto keyRotationStatus() {
+        return keyRotationService.status();
+    }
+
+    @Operation(
+            summary = "Изменить скорость ротации ключей",
+            description = "Лимит перешифровки в картах в секунду, применяется без перезапуска со следующей порции. "
+                    + "0 — приостановить ротацию. Доступно только администратору"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Лимит изменён"),
+    })
+    @CommonApiErrors(badRequest = true, forbidden = true)
+    @PutMapping("/key-rotation/rate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public KeyRotationStatusDto setKeyRotationRate(@RequestParam int rowsPerSecond) {
+        return keyRotationService.setRateLimit(rowsPerSecond);
+    }
+
     @Operation(
             summary = "Получить мои карты",
             description = "Получение списка карт текущего пользователя"
@@ -156,6 +228,72 @@ public class CardController {
         return cardService.getBalance(cardId, userId);
     }
 
+    @Operation(
+            summary = "Поток изменений моих карт",
+            description = "Server-Sent Events: сначала текущий баланс и статус каждой карты пользователя, затем " +
+                    "событие card при каждом их изменении. Соединение без событий закрывается по таймауту, " +
+                    "клиент должен переподключиться"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Поток событий открыт"),
+            @ApiResponse(responseCode = "429", description = "Слишком много открытых потоков"),
+    })
+    @GetMapping(value = "/my/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public SseEmitter streamMyCards() {
+        Long userId = securityUtil.getCurrentUserId();
+        return cardStreamService.subscribe(userId);
+    }
+
+    @Operation(
+            summary = "История переводов по моей карте",
+            description = "Переводы по карте текущего пользователя, от новых к старым. Для следующей страницы " +
+                    "передайте nextCursor из предыдущего ответа в параметре cursor"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Страница истории переводов"),
+    })
+    @CommonApiErrors(badRequest = true, cardNotFound = true)
+    @GetMapping("/my/{cardId:\\d+}/transfers")
+    @PreAuthorize("hasRole('USER')")
+    public TransferHistoryPage getMyTransfers(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        Long userId = securityUtil.getCurrentUserId();
+        TransferHistoryFilter filter = new TransferHistoryFilter(from, to, minAmount, maxAmount);
+        return transferHistoryService.getForUser(userId, cardId, filter, cursor, limit);
+    }
+
+    @Operation(
+            summary = "История переводов по карте",
+            description = "Переводы по любой карте, от новых к старым, с курсорной пагинацией. " +
+                    "Доступно только администратору"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Страница истории переводов"),
+    })
+    @CommonApiErrors(badRequest = true, forbidden = true, cardNotFound = true)
+    @GetMapping("/{cardId:\\d+}/transfers")
+    @PreAuthorize("hasRole('ADMIN')")
+    public TransferHistoryPage getTransfers(
+            @PathVariable Long cardId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        TransferHistoryFilter filter = new TransferHistoryFilter(from, to, minAmount, maxAmount);
+        return transferHistoryService.getForCard(cardId, filter, cursor, limit);
+    }
+
     @Operation(
             summary = "Установить баланс карты",
             description = "Принудительное изменение баланса карты. Доступно только администратору"
@@ -173,28 +311,47 @@ public class CardController {
         return cardService.setBalance(cardId, amount);
     }
 
+    @Operation(
+            summary = "Массовое изменение балансов",
+            description = "Потоковая загрузка корректировок балансов в формате CSV (cardId,amount) или NDJSON " +
+                    "({\"cardId\":1,\"amount\":100.00}). Строки применяются порциями в отдельных транзакциях, " +
+                    "ошибочные строки возвращаются в отчете. Доступно только администратору"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Импорт выполнен, отчет по строкам"),
+    })
+    @CommonApiErrors(forbidden = true)
+    @PostMapping(value = "/balances/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    public BalanceImportReport importBalances(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) {
+        BalanceImportFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? BalanceImportFormat.NDJSON
+                : BalanceImportFormat.CSV;
+        return balanceImportService.importBalances(body, format);
+    }
+
     @Operation(
             summary = "Получить общий баланс",
-            description = "Получение суммарного баланса всех карт текущего пользователя"
+            description = "Получение суммарного баланса всех карт текущего пользователя по каждой валюте"
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Общий баланс пользователя")
+            @ApiResponse(responseCode = "200", description = "Общий баланс пользователя в каждой валюте")
     })
     @GetMapping("/my/balance")
     @PreAuthorize("hasRole('USER')")
-    public CardBalanceDto getTotalBalance() {
+    public List<CardBalanceDto> getTotalBalance() {
         Long userId = securityUtil.getCurrentUserId();
-
-        return CardBalanceDto.builder()
-                .cardId(null)
-                .balance(cardService.getTotalBalance(userId))
-                .build();
+        return cardService.getTotalBalance(userId);
     }
 
 
     @Operation(
             summary = "Перевод между картами",
-            description = "Перевод средств между картами текущего пользователя"
+            description = "Перевод средств между картами текущего пользователя. Повтор запроса с тем же " +
+                    "заголовком Idempotency-Key возвращает исходный результат без повторного перевода"
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Перевод выполнен успешно"),
@@ -202,9 +359,122 @@ public class CardController {
     @CommonApiErrors(forbidden = true, cardNotFound = true, methodNotAllowed = true)
     @PostMapping("/transfer")
     @PreAuthorize("hasRole('USER')")
-    public void transfer(@RequestBody TransferRequest request) {
+    public ResponseEntity<Void> transfer(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody TransferRequest request
+    ) {
+        Long userId = securityUtil.getCurrentUserId();
+
+        if (idempotencyKey == null) {
+            transferService.transfer(userId, request);
+            return ResponseEntity.ok().build();
+        }
+
+        boolean replayed = idempotentTransferService.transfer(userId, idempotencyKey, request);
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(replayed))
+                .build();
+    }
+
+    @Operation(
+            summary = "Пакетный перевод между картами",
+            description = "Выполнение списка переводов в одной транзакции. В режиме ALL_OR_NOTHING при любой " +
+                    "ошибке откатываются все переводы, в режиме BEST_EFFORT применяются только успешные"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Результат по каждому переводу пакета"),
+    })
+    @CommonApiErrors(badRequest = true, forbidden = true)
+    @PostMapping("/transfer/batch")
+    @PreAuthorize("hasRole('USER')")
+    public BatchTransferResponse transferBatch(@RequestBody BatchTransferRequest request) {
+        Long userId = securityUtil.getCurrentUserId();
+        return batchTransferService.transfer(userId, request);
+    }
+
+    @Operation(
+            summary = "Асинхронный перевод между картами",
+            description = "Перевод ставится в очередь и выполняется в фоне. В ответе возвращается идентификатор, " +
+                    "по которому можно узнать статус перевода"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Перевод принят в обработку"),
+    })
+    @CommonApiErrors(badRequest = true, cardNotFound = true)
+    @PostMapping("/transfer/async")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<QueuedTransferDto> transferAsync(@RequestBody TransferRequest request) {
+        Long userId = securityUtil.getCurrentUserId();
+        QueuedTransferDto queued = asyncTransferService.submit(userId, request);
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/cards/transfers/" + queued.getId()))
+                .body(queued);
+    }
+
+    @Operation(
+            summary = "Статус асинхронного перевода",
+            description = "Получение статуса перевода, поставленного в очередь текущим пользователем"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Статус перевода"),
+            @ApiResponse(responseCode = "404", description = "Перевод не найден"),
+    })
+    @GetMapping("/transfers/{transferId:\\d+}")
+    @PreAuthorize("hasRole('USER')")
+    public QueuedTransferDto getTransfer(@PathVariable Long transferId) {
+        Long userId = securityUtil.getCurrentUserId();
+        return asyncTransferService.get(userId, transferId);
+    }
+
+    @Operation(
+            summary = "Создать регулярный перевод",
+            description = "Перевод между своими картами по расписанию. Если указан repeatPeriod (ISO-8601, " +
+                    "например P1M), перевод повторяется с этим периодом, иначе выполняется один раз"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Регулярный перевод создан"),
+    })
+    @CommonApiErrors(badRequest = true, cardNotFound = true)
+    @PostMapping("/scheduled-transfers")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<ScheduledTransferDto> createScheduledTransfer(
+            @RequestBody CreateScheduledTransferRequest request
+    ) {
+        Long userId = securityUtil.getCurrentUserId();
+        return ResponseEntity.status(HttpStatus.CREATED).body(scheduledTransferService.create(userId, request));
+    }
+
+    @Operation(
+            summary = "Мои регулярные переводы",
+            description = "Постраничное получение регулярных переводов текущего пользователя"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Список регулярных переводов"),
+    })
+    @GetMapping("/scheduled-transfers")
+    @PreAuthorize("hasRole('USER')")
+    public Page<ScheduledTransferDto> getScheduledTransfers(@ParameterObject
+                                                            @PageableDefault(page = 0, size = 20, sort = "id", direction = Sort.Direction.ASC)
+                                                            Pageable pageable) {
+        Long userId = securityUtil.getCurrentUserId();
+        return scheduledTransferService.getByUser(userId, pageable);
+    }
+
+    @Operation(
+            summary = "Отменить регулярный перевод",
+            description = "Отмена регулярного перевода текущего пользователя. Уже выполненные переводы не откатываются"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Регулярный перевод отменён"),
+            @ApiResponse(responseCode = "404", description = "Регулярный перевод не найден"),
+    })
+    @DeleteMapping("/scheduled-transfers/{scheduledTransferId:\\d+}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<Void> cancelScheduledTransfer(@PathVariable Long scheduledTransferId) {
         Long userId = securityUtil.getCurrentUserId();
-        transferService.transfer(userId, request);
+        scheduledTransferService.cancel(userId, scheduledTransferId);
+        return ResponseEntity.noContent().build();
     }
 
 
@@ -226,6 +496,25 @@ public class CardController {
     }
 
 
+    @Operation(
+            summary = "Настроить распределение баланса карты",
+            description = "Разделяет баланс карты на указанное число частей, чтобы частые зачисления не " +
+                    "блокировали друг друга. 0 — отключить. Доступно только администратору"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Настройка карты изменена"),
+    })
+    @CommonApiErrors(badRequest = true, forbidden = true, cardNotFound = true)
+    @PutMapping("/{cardId:\\d+}/stripes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public CardDto setStripes(
+            @PathVariable Long cardId,
+            @RequestParam int count
+    ) {
+        return cardService.setStripes(cardId, count);
+    }
+
+
     @Operation(
             summary = "Удалить карту",
             description = "Удаление банковской карты по ID. Доступно только администратору"
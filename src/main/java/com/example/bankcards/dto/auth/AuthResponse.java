@@ -2,14 +2,14 @@ package com.example.bankcards.dto.auth;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
-import lombok.Data;
 import lombok.Getter;
 
 @Getter
 @AllArgsConstructor
-@Schema(description = "Ответ с токеном")
+@Schema(description = "Ответ с токенами")
 public class AuthResponse {
     @Schema(example = "eyJhbGciOiJIUzM4NCJ9...")
     private String accessToken;
+    @Schema(example = "3q2-7wEAAAB0b2tlbi1leGFtcGxl...")
+    private String refreshToken;
 }
-
@@ -0,0 +1,13 @@
+package com.example.bankcards.dto.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Json запрос для обновления токена")
+public class RefreshTokenRequest {
+    @Schema(example = "3q2-7wEAAAB0b2tlbi1leGFtcGxl...")
+    private String refreshToken;
+}
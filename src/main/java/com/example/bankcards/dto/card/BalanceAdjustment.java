@@ -0,0 +1,14 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class BalanceAdjustment {
+
+    private Long cardId;
+    private BigDecimal amount;
+}
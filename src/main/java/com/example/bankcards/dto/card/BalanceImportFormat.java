@@ -0,0 +1,6 @@
+package com.example.bankcards.dto.card;
+
+public enum BalanceImportFormat {
+    CSV,
+    NDJSON
+}
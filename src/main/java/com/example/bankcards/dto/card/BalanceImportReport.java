@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceImportReport {
+
+    private long processed;
+    private long applied;
+    private long rejected;
+    private List<BalanceImportError> errors;
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class BatchTransferRequest {
+    private BatchTransferMode mode;
+    private List<TransferRequest> transfers;
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTransferResponse {
+
+    private BatchTransferMode mode;
+    private int applied;
+    private int rejected;
+    private List<TransferItemResult> results;
+}
@@ -15,4 +15,5 @@ public class CardBalanceDto {
 
     private Long cardId;
     private BigDecimal balance;
+    private String currency;
 }
@@ -27,4 +27,6 @@ public class CardDto {
     private CardStatus status;
 
     private BigDecimal balance;
+
+    private String currency;
 }
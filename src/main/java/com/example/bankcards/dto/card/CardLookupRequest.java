@@ -0,0 +1,11 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CardLookupRequest {
+
+    private String cardNumber;
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.entity.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CardOwnership {
+
+    private Long userId;
+
+    private CardStatus status;
+
+    private String currency;
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.entity.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardStreamEvent {
+
+    private Long cardId;
+    private BigDecimal balance;
+    private CardStatus status;
+    private boolean deleted;
+}
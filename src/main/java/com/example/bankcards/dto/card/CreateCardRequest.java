@@ -17,4 +17,6 @@ public class CreateCardRequest {
     private LocalDate expirationDate;
 
     private Long userId;
+
+    private String currency;
 }
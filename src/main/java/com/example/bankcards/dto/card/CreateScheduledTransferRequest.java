@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class CreateScheduledTransferRequest {
+
+    private Long fromCardId;
+
+    private Long toCardId;
+
+    private BigDecimal amount;
+
+    private LocalDateTime firstRunAt;
+
+    private String repeatPeriod;
+}
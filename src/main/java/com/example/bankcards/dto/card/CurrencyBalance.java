@@ -0,0 +1,15 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class CurrencyBalance {
+
+    private String currency;
+
+    private BigDecimal balance;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Rate applied to a cross-currency transfer and the amount it credited, in the target card's currency.
+ */
+@Getter
+@AllArgsConstructor
+public class FxConversion {
+
+    private String fromCurrency;
+    private String toCurrency;
+    private BigDecimal rate;
+    private BigDecimal creditedAmount;
+}
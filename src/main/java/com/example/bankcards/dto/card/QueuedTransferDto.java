@@ -0,0 +1,26 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.entity.QueuedTransferStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueuedTransferDto {
+
+    private Long id;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private QueuedTransferStatus status;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.dto.card;
+
+import com.example.bankcards.entity.ScheduledTransferStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScheduledTransferDto {
+
+    private Long id;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private String repeatPeriod;
+    private LocalDateTime nextRunAt;
+    private ScheduledTransferStatus status;
+    private LocalDateTime lastRunAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.card;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferItemResult {
+
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private TransferItemStatus status;
+    private String error;
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.dto.card;
+
+public enum TransferItemStatus {
+    APPLIED,
+    REJECTED,
+    ROLLED_BACK
+}
@@ -21,9 +21,23 @@ public class Card {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "card_number_encrypted", nullable = false, unique = true)
+    // The crypto columns are only rewritten by the re-encryption and key rotation jobs over JDBC;
+    // updatable = false keeps a Card loaded before such a chunk from writing the old ciphertext back.
+    @Column(name = "card_number_encrypted", nullable = false, unique = true, updatable = false)
     private String encryptedCardNumber;
 
+    @Column(name = "key_id", length = 64, updatable = false)
+    private String keyId;
+
+    @Column(name = "wrapped_key", updatable = false)
+    private String wrappedKey;
+
+    @Column(name = "card_number_hash", unique = true, length = 64, updatable = false)
+    private String cardNumberHash;
+
+    @Column(name = "card_last4", nullable = false, length = 4)
+    private String cardLast4;
+
     @Column(nullable = false)
     private String owner;
 
@@ -37,6 +51,12 @@ public class Card {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance;
 
+    @Column(nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "stripe_count", nullable = false)
+    private int stripeCount;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -0,0 +1,7 @@
+package com.example.bankcards.entity;
+
+public enum ScheduledTransferStatus {
+    ACTIVE,
+    COMPLETED,
+    CANCELLED
+}
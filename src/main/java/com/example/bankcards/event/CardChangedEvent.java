@@ -0,0 +1,4 @@
+package com.example.bankcards.event;
+
+public record CardChangedEvent(Long cardId) {
+}
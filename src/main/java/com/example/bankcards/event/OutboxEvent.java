@@ -0,0 +1,10 @@
+package com.example.bankcards.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of {@code outbox_events} as handed to an {@link OutboxSink}. {@code payload} is a JSON object;
+ * {@code id} grows with insertion and lets consumers drop redelivered events.
+ */
+public record OutboxEvent(long id, OutboxEventType type, Long cardId, String payload, LocalDateTime createdAt) {
+}
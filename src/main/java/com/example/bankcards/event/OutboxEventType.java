@@ -0,0 +1,8 @@
+package com.example.bankcards.event;
+
+public enum OutboxEventType {
+    TRANSFER,
+    BALANCE_ADJUSTED,
+    STATUS_CHANGED,
+    CARD_DELETED
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.event;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay. Events arrive in {@code id} order; a batch is removed from the outbox
+ * only after {@link #publish} returns, so a sink has to tolerate seeing a batch again after a crash.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxEvent> events);
+}
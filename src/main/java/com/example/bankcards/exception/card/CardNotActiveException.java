@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class CardNotActiveException extends ApiException {
+    public CardNotActiveException() {
+        super("Cannot to transfer when card is not active", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -8,4 +8,8 @@ public class CardNotFoundException extends ApiException {
     public CardNotFoundException(Long cardId) {
         super("Card not found with id: " + cardId, HttpStatus.NOT_FOUND);
     }
+
+    public CardNotFoundException() {
+        super("Card not found", HttpStatus.NOT_FOUND);
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class CurrencyMismatchException extends ApiException {
+    public CurrencyMismatchException(String fromCurrency, String toCurrency) {
+        super("Transfers from " + fromCurrency + " to " + toCurrency + " are not supported by this operation",
+                HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class FxRateNotFoundException extends ApiException {
+    public FxRateNotFoundException(String fromCurrency, String toCurrency) {
+        super("No exchange rate from " + fromCurrency + " to " + toCurrency, HttpStatus.UNPROCESSABLE_CONTENT);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class IdempotencyKeyReusedException extends ApiException {
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("Idempotency-Key " + idempotencyKey + " was already used with a different request",
+                HttpStatus.UNPROCESSABLE_CONTENT);
+    }
+}
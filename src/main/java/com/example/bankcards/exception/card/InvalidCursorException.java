@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidCursorException extends ApiException {
+    public InvalidCursorException(String cursor) {
+        super("Invalid page cursor: " + cursor, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidIdempotencyKeyException extends ApiException {
+    public InvalidIdempotencyKeyException(int maxLength) {
+        super("Idempotency-Key must be a non-blank value of at most " + maxLength + " characters",
+                HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidRotationRateException extends ApiException {
+    public InvalidRotationRateException(int rowsPerSecond, int maxRowsPerSecond) {
+        super("Rotation rate must be between 0 and " + maxRowsPerSecond + " rows per second, got " + rowsPerSecond,
+                HttpStatus.BAD_REQUEST);
+    }
+}
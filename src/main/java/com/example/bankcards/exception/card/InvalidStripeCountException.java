@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidStripeCountException extends ApiException {
+    public InvalidStripeCountException(int stripes, int maxStripes) {
+        super("Stripe count must be between 0 and " + maxStripes + ", got " + stripes, HttpStatus.BAD_REQUEST);
+    }
+}
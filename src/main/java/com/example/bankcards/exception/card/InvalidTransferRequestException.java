@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidTransferRequestException extends ApiException {
+    public InvalidTransferRequestException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class QueuedTransferNotFoundException extends ApiException {
+
+    public QueuedTransferNotFoundException(Long transferId) {
+        super("Transfer not found with id: " + transferId, HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class ReplayedTransferException extends ApiException {
+    public ReplayedTransferException(String message, HttpStatus status) {
+        super(message, status);
+    }
+}
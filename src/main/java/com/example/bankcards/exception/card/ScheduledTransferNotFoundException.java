@@ -0,0 +1,11 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class ScheduledTransferNotFoundException extends ApiException {
+
+    public ScheduledTransferNotFoundException(Long scheduledTransferId) {
+        super("Scheduled transfer not found with id: " + scheduledTransferId, HttpStatus.NOT_FOUND);
+    }
+}
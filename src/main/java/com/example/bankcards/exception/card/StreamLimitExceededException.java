@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class StreamLimitExceededException extends ApiException {
+    public StreamLimitExceededException(String message) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
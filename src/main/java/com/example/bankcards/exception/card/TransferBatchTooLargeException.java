@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class TransferBatchTooLargeException extends ApiException {
+    public TransferBatchTooLargeException(int size, int maxSize) {
+        super("Transfer batch of " + size + " items exceeds the limit of " + maxSize, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class TransferEngineOverloadedException extends ApiException {
+    public TransferEngineOverloadedException() {
+        super("Too many transfers in flight, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class UnsupportedCurrencyException extends ApiException {
+    public UnsupportedCurrencyException(String currency) {
+        super("Unsupported currency: " + currency, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.card;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class VelocityLimitExceededException extends ApiException {
+    public VelocityLimitExceededException(Long cardId, String window) {
+        super("Card " + cardId + " exceeded its " + window + " spend limit", HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
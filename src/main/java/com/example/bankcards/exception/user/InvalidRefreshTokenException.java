@@ -0,0 +1,10 @@
+package com.example.bankcards.exception.user;
+
+import com.example.bankcards.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidRefreshTokenException extends ApiException {
+    public InvalidRefreshTokenException() {
+        super("Refresh token is invalid, expired or revoked", HttpStatus.UNAUTHORIZED);
+    }
+}
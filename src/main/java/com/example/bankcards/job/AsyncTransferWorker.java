@@ -0,0 +1,74 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.AsyncTransferService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transfer.async.workers-enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncTransferWorker {
+
+    private final AsyncTransferService asyncTransferService;
+
+    @Value("${transfer.async.workers:4}")
+    private int workers;
+
+    @Value("${transfer.async.batch-size:100}")
+    private int batchSize;
+
+    @Value("${transfer.async.idle-delay-ms:50}")
+    private long idleDelayMs;
+
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        running = true;
+        executor = Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("transfer-worker-", 0).factory());
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::drain);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(idleDelayMs * 10 + 5000, TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                if (asyncTransferService.processQueued(batchSize) == 0) {
+                    Thread.sleep(idleDelayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Queued transfer batch failed, will retry", e);
+                try {
+                    Thread.sleep(idleDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
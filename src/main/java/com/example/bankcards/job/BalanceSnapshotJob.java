@@ -0,0 +1,36 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.BalanceSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Component
+@RequiredArgsConstructor
+public class BalanceSnapshotJob {
+
+    private final BalanceSnapshotService balanceSnapshotService;
+
+    @Value("${balance.snapshot.zone:Europe/Moscow}")
+    private ZoneId zone;
+
+    /**
+     * Runs shortly after midnight and records the balances as the closing balances of the previous day.
+     * Days left unfinished by an earlier run are completed first.
+     */
+    @Scheduled(cron = "${balance.snapshot.cron:0 5 0 * * *}", zone = "${balance.snapshot.zone:Europe/Moscow}")
+    public void snapshot() {
+        LocalDate closingDate = LocalDate.now(zone).minusDays(1);
+
+        for (LocalDate date : balanceSnapshotService.incompleteDates()) {
+            if (!date.equals(closingDate)) {
+                balanceSnapshotService.snapshot(date);
+            }
+        }
+        balanceSnapshotService.snapshot(closingDate);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.service.StripedBalanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceStripeCompactionJob {
+
+    private final StripedBalanceService stripedBalanceService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(
+            initialDelayString = "${transfer.striping.compaction-interval-ms:60000}",
+            fixedDelayString = "${transfer.striping.compaction-interval-ms:60000}"
+    )
+    public void compact() {
+        int compacted = 0;
+
+        for (Long cardId : stripedBalanceService.stripedCardIds()) {
+            try {
+                BigDecimal folded = transactionTemplate.execute(status -> stripedBalanceService.compact(cardId));
+                if (folded != null && folded.signum() != 0) {
+                    compacted++;
+                }
+            } catch (CardNotFoundException e) {
+                log.debug("Striped card {} was deleted before compaction", cardId);
+            }
+        }
+
+        if (compacted > 0) {
+            log.info("Compacted balance stripes of {} cards", compacted);
+        }
+    }
+}
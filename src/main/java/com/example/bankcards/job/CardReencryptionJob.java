@@ -0,0 +1,37 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.CardReencryptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardReencryptionJob {
+
+    private final CardReencryptionService cardReencryptionService;
+
+    /**
+     * Drains the cards still on AES/ECB chunk by chunk. Once they are all migrated a run costs one
+     * query against an empty partial index.
+     */
+    @Scheduled(
+            initialDelayString = "${card.reencryption.interval-ms:60000}",
+            fixedDelayString = "${card.reencryption.interval-ms:60000}"
+    )
+    public void reencrypt() {
+        int total = 0;
+        int migrated;
+
+        do {
+            migrated = cardReencryptionService.reencryptChunk();
+            total += migrated;
+        } while (migrated > 0);
+
+        if (total > 0) {
+            log.info("Re-encrypted {} legacy cards", total);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.FxRateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class FxRateRefreshJob {
+
+    private final FxRateService fxRateService;
+
+    @Scheduled(
+            initialDelayString = "${fx.refresh-interval-ms:60000}",
+            fixedDelayString = "${fx.refresh-interval-ms:60000}"
+    )
+    public void refresh() {
+        fxRateService.refresh();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyPurgeJob {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transfer.idempotency.purge-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${transfer.idempotency.purge-interval-ms:60000}",
+            fixedDelayString = "${transfer.idempotency.purge-interval-ms:60000}"
+    )
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int deleted;
+
+        do {
+            Integer batch = transactionTemplate.execute(status ->
+                    idempotencyKeyRepository.deleteExpired(now, batchSize));
+            deleted = batch == null ? 0 : batch;
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired idempotency keys", total);
+        }
+    }
+}
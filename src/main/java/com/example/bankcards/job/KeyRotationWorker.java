@@ -0,0 +1,84 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.KeyRotationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs key rotation on its own thread rather than the shared scheduler, where a rotation over millions of
+ * cards would hold up every other job. After each chunk the worker sleeps long enough to stay under
+ * {@link KeyRotationService#rateLimit()}, which is read again every chunk so a change applies immediately.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "card.key-rotation.enabled", havingValue = "true", matchIfMissing = true)
+public class KeyRotationWorker {
+
+    private final KeyRotationService keyRotationService;
+
+    @Value("${card.key-rotation.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${card.key-rotation.idle-delay-ms:30000}")
+    private long idleDelayMs;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        running = true;
+        thread = Thread.ofPlatform().name("key-rotation-worker").daemon().start(this::rotate);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void rotate() {
+        while (running) {
+            try {
+                int rate = keyRotationService.rateLimit();
+                if (rate <= 0) {
+                    Thread.sleep(idleDelayMs);
+                    continue;
+                }
+
+                long started = System.nanoTime();
+                int examined = keyRotationService.rotateChunk(Math.min(chunkSize, rate));
+                if (examined == 0) {
+                    Thread.sleep(idleDelayMs);
+                    continue;
+                }
+
+                long budgetNanos = TimeUnit.SECONDS.toNanos(examined) / rate;
+                long remainingNanos = budgetNanos - (System.nanoTime() - started);
+                if (remainingNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Key rotation chunk failed, will retry", e);
+                try {
+                    Thread.sleep(idleDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
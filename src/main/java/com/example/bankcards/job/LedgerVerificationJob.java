@@ -0,0 +1,115 @@
+package com.example.bankcards.job;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerVerificationJob {
+
+    private static final String DRIFT_SQL = """
+            select c.id,
+                   c.balance,
+                   coalesce(sum(case when l.entry_type = 'CREDIT' then l.amount else -l.amount end), 0) as ledger_balance
+            from (
+                select cards.id,
+                       cards.balance + coalesce((select sum(s.balance)
+                                                 from card_balance_stripes s
+                                                 where s.card_id = cards.id), 0) as balance
+                from cards
+                where cards.id between ? and ?
+            ) c
+            left join ledger_entries l on l.card_id = c.id
+            group by c.id, c.balance
+            having c.balance <> coalesce(sum(case when l.entry_type = 'CREDIT' then l.amount else -l.amount end), 0)
+            """;
+
+    private static final int MAX_LOGGED_DRIFTS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong lastDriftCount = new AtomicLong();
+
+    @Value("${ledger.verification.chunk-size:10000}")
+    private long chunkSize;
+
+    @Value("${ledger.verification.parallelism:4}")
+    private int parallelism;
+
+    @Scheduled(cron = "${ledger.verification.cron:0 30 3 * * *}")
+    public void verify() {
+        Long minId = jdbcTemplate.queryForObject("select min(id) from cards", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from cards", Long.class);
+        if (minId == null || maxId == null) {
+            return;
+        }
+
+        meterRegistry.gauge("ledger.drift.cards", lastDriftCount);
+        long started = System.nanoTime();
+
+        List<Drift> drifts = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<List<Drift>>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long lower = from;
+                long upper = Math.min(from + chunkSize - 1, maxId);
+                chunks.add(executor.submit(() -> findDrift(lower, upper)));
+            }
+            for (Future<List<Drift>> chunk : chunks) {
+                drifts.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Ledger verification interrupted");
+            return;
+        } catch (ExecutionException e) {
+            log.error("Ledger verification failed", e.getCause());
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        lastDriftCount.set(drifts.size());
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        if (drifts.isEmpty()) {
+            log.info("Ledger verification of cards {}..{} finished in {} ms, no drift", minId, maxId, elapsedMs);
+            return;
+        }
+
+        log.warn("Ledger verification of cards {}..{} finished in {} ms, {} cards drifted",
+                minId, maxId, elapsedMs, drifts.size());
+        for (Drift drift : drifts.subList(0, Math.min(drifts.size(), MAX_LOGGED_DRIFTS))) {
+            log.warn("Card {} balance {} differs from ledger {}",
+                    drift.cardId(), drift.balance(), drift.ledgerBalance());
+        }
+    }
+
+    private List<Drift> findDrift(long fromId, long toId) {
+        return jdbcTemplate.query(DRIFT_SQL, (rs, rowNum) -> new Drift(
+                rs.getLong("id"),
+                rs.getBigDecimal("balance"),
+                rs.getBigDecimal("ledger_balance")
+        ), fromId, toId);
+    }
+
+    private record Drift(long cardId, BigDecimal balance, BigDecimal ledgerBalance) {
+    }
+}
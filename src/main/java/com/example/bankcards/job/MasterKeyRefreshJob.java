@@ -0,0 +1,21 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.util.KeyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MasterKeyRefreshJob {
+
+    private final KeyService keyService;
+
+    @Scheduled(
+            initialDelayString = "${crypto.key-refresh-interval-ms:30000}",
+            fixedDelayString = "${crypto.key-refresh-interval-ms:30000}"
+    )
+    public void refresh() {
+        keyService.refresh();
+    }
+}
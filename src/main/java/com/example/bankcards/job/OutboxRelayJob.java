@@ -0,0 +1,113 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.event.OutboxEvent;
+import com.example.bankcards.event.OutboxEventType;
+import com.example.bankcards.event.OutboxSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves events from {@code outbox_events} to the configured {@link OutboxSink} in {@code id} order
+ * (a transaction that commits after a later id was relayed is delivered on the next pass).
+ * A batch is locked, published and deleted in one transaction, so delivery is at-least-once. Plain
+ * {@code for update} (not {@code skip locked}) makes relays of several instances take turns instead
+ * of publishing out of order.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelayJob {
+
+    private static final String CLAIM_SQL = """
+            select id, event_type, card_id, payload, created_at
+            from outbox_events
+            order by id
+            limit ?
+            for update
+            """;
+
+    private static final String DELETE_SQL = "delete from outbox_events where id in (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxSink outboxSink;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${outbox.relay.poll-interval-ms:200}",
+            fixedDelayString = "${outbox.relay.poll-interval-ms:200}"
+    )
+    public void relay() {
+        long started = System.nanoTime();
+        long published = 0;
+
+        try {
+            int batch;
+            do {
+                batch = relayBatch();
+                published += batch;
+            } while (batch == batchSize);
+        } catch (RuntimeException e) {
+            // The failed batch was rolled back and stays at the head of the outbox
+            log.error("Outbox relay failed after {} events, will retry", published, e);
+        }
+
+        if (published > 0) {
+            long elapsedNanos = System.nanoTime() - started;
+            log.debug("Relayed {} outbox events in {} ms", published, elapsedNanos / 1_000_000);
+        }
+    }
+
+    private int relayBatch() {
+        Integer relayed = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new OutboxEvent(
+                    rs.getLong("id"),
+                    OutboxEventType.valueOf(rs.getString("event_type")),
+                    rs.getObject("card_id", Long.class),
+                    rs.getString("payload"),
+                    rs.getTimestamp("created_at").toLocalDateTime()
+            ), batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            long start = System.nanoTime();
+            outboxSink.publish(events);
+            meterRegistry.timer("outbox.relay.publish").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            namedParameterJdbcTemplate.update(DELETE_SQL,
+                    Map.of("ids", events.stream().map(OutboxEvent::id).toList()));
+
+            LocalDateTime now = LocalDateTime.now();
+            Timer lag = meterRegistry.timer("outbox.relay.lag");
+            events.forEach(event -> lag.record(Duration.between(event.createdAt(), now)));
+            return events.size();
+        });
+        if (relayed == null || relayed == 0) {
+            return 0;
+        }
+
+        meterRegistry.counter("outbox.relay.events").increment(relayed);
+        return relayed;
+    }
+}
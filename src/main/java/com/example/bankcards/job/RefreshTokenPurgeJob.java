@@ -0,0 +1,37 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.auth.RefreshTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenPurgeJob {
+
+    private final RefreshTokenService refreshTokenService;
+
+    @Value("${jwt.refresh.purge-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(
+            initialDelayString = "${jwt.refresh.purge-interval-ms:3600000}",
+            fixedDelayString = "${jwt.refresh.purge-interval-ms:3600000}"
+    )
+    public void purgeExpired() {
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = refreshTokenService.purgeExpired(batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.ScheduledTransferService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs due scheduled transfers. Every tick fixes the cut-off time and lets {@code parallelism} workers
+ * claim chunks with {@code SKIP LOCKED} until nothing due is left. A chunk commits together with the
+ * move of its orders to the next occurrence, so after a crash the uncommitted chunk is simply claimed again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transfer.scheduled.enabled", havingValue = "true", matchIfMissing = true)
+public class ScheduledTransferJob {
+
+    private final ScheduledTransferService scheduledTransferService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transfer.scheduled.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${transfer.scheduled.parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("scheduled-transfer-", 0).factory());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${transfer.scheduled.tick-ms:1000}",
+            fixedDelayString = "${transfer.scheduled.tick-ms:1000}"
+    )
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        long started = System.nanoTime();
+
+        List<Future<Integer>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(executor.submit(() -> drain(now)));
+        }
+
+        long processed = 0;
+        try {
+            for (Future<Integer> worker : workers) {
+                processed += worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            log.error("Scheduled transfer worker failed", e.getCause());
+        }
+
+        if (processed == 0) {
+            return;
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        meterRegistry.timer("transfer.scheduled.run").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("Executed {} scheduled transfers due by {} in {} ms ({} per second)",
+                processed, now, elapsedNanos / 1_000_000, processed * 1_000_000_000L / Math.max(elapsedNanos, 1));
+    }
+
+    private int drain(LocalDateTime now) {
+        int total = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long started = System.nanoTime();
+            int claimed;
+            try {
+                claimed = scheduledTransferService.runDue(now, chunkSize);
+            } catch (RuntimeException e) {
+                // The chunk rolled back and stays due; it is retried on the next tick
+                log.error("Scheduled transfer chunk failed, will retry", e);
+                return total;
+            }
+            if (claimed == 0) {
+                return total;
+            }
+
+            meterRegistry.timer("transfer.scheduled.chunk").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            total += claimed;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.security.UserVersionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class UserVersionRefreshJob {
+
+    private final UserVersionService userVersionService;
+
+    /**
+     * Bounds how long a token revoked on another instance is still accepted here.
+     */
+    @Scheduled(
+            initialDelayString = "${jwt.user-versions.refresh-interval-ms:1000}",
+            fixedDelayString = "${jwt.user-versions.refresh-interval-ms:1000}"
+    )
+    public void refresh() {
+        userVersionService.refresh();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.job;
+
+import com.example.bankcards.service.VelocityLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class VelocityCheckpointJob {
+
+    private final VelocityLimitService velocityLimitService;
+
+    @Scheduled(
+            initialDelayString = "${transfer.velocity.checkpoint-interval-ms:5000}",
+            fixedDelayString = "${transfer.velocity.checkpoint-interval-ms:5000}"
+    )
+    public void checkpoint() {
+        velocityLimitService.checkpoint();
+    }
+}
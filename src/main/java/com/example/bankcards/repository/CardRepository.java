@@ -1,14 +1,21 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.card.CardOwnership;
+import com.example.bankcards.dto.card.CurrencyBalance;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import jakarta.persistence.LockModeType;
 import org.jspecify.annotations.NullMarked;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @NullMarked
@@ -18,14 +25,73 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
     Optional<Card> findByIdAndUserId(Long id, Long userId);
 
+    boolean existsByIdAndUserId(Long id, Long userId);
+
     Page<Card> findAllByStatus(CardStatus status, Pageable pageable);
 
     @Query("""
-                select coalesce(sum(c.balance), 0)
+                select new com.example.bankcards.dto.card.CurrencyBalance(c.currency, sum(c.balance))
                 from Card c
                 where c.user.id = :userId
+                group by c.currency
+                order by c.currency
             """)
-    BigDecimal sumBalanceByUserId(Long userId);
+    List<CurrencyBalance> sumBalanceByUserIdGroupByCurrency(Long userId);
+
+    @Query("select c.id from Card c where c.user.id = :userId order by c.id")
+    List<Long> findIdsByUserId(Long userId);
+
+    @Query("select c.stripeCount from Card c where c.id = :id")
+    Optional<Integer> findStripeCountById(Long id);
+
+    @Query("""
+                select new com.example.bankcards.dto.card.CardOwnership(c.user.id, c.status, c.currency)
+                from Card c
+                where c.id = :id
+            """)
+    Optional<CardOwnership> findOwnershipById(Long id);
 
     boolean existsByEncryptedCardNumber(String encryptedCardNumber);
+
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    Optional<Card> findByCardNumberHash(String cardNumberHash);
+
+    Optional<Card> findByEncryptedCardNumber(String encryptedCardNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+                select c
+                from Card c
+                where c.id in :ids
+                order by c.id
+            """)
+    List<Card> findAllByIdInForUpdate(Collection<Long> ids);
+
+    // Relative update, so concurrent transfers on the row are not overwritten; the context is cleared so that
+    // the card read afterwards sees the new balance
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Card c set c.balance = c.balance + :delta where c.id = :cardId")
+    int addBalance(Long cardId, BigDecimal delta);
+
+    @Modifying
+    @Query("""
+                update Card c
+                set c.balance = c.balance - :amount
+                where c.id = :cardId
+                  and c.user.id = :userId
+                  and c.status = com.example.bankcards.entity.CardStatus.ACTIVE
+                  and c.balance >= :amount
+            """)
+    int debitIfActive(Long cardId, Long userId, BigDecimal amount);
+
+    @Modifying
+    @Query("""
+                update Card c
+                set c.balance = c.balance + :amount
+                where c.id = :cardId
+                  and c.user.id = :userId
+                  and c.status = com.example.bankcards.entity.CardStatus.ACTIVE
+            """)
+    int creditIfActive(Long cardId, Long userId, BigDecimal amount);
 }
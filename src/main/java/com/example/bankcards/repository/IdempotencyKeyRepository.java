@@ -0,0 +1,47 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    @Modifying
+    @Query(value = """
+                insert into idempotency_keys
+                    (user_id, idempotency_key, request_hash, response_status, response_message, created_at, expires_at)
+                values (:userId, :idempotencyKey, :requestHash, :responseStatus, :responseMessage, :createdAt, :expiresAt)
+                on conflict (user_id, idempotency_key) do update
+                    set request_hash = excluded.request_hash,
+                        response_status = excluded.response_status,
+                        response_message = excluded.response_message,
+                        created_at = excluded.created_at,
+                        expires_at = excluded.expires_at
+                    where idempotency_keys.expires_at < excluded.created_at
+            """, nativeQuery = true)
+    int claim(Long userId,
+              String idempotencyKey,
+              String requestHash,
+              int responseStatus,
+              String responseMessage,
+              LocalDateTime createdAt,
+              LocalDateTime expiresAt);
+
+    @Modifying
+    @Query(value = """
+                delete from idempotency_keys
+                where id in (
+                    select id
+                    from idempotency_keys
+                    where expires_at < :now
+                    limit :limit
+                )
+            """, nativeQuery = true)
+    int deleteExpired(LocalDateTime now, int limit);
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.QueuedTransfer;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+@NullMarked
+public interface QueuedTransferRepository extends JpaRepository<QueuedTransfer, Long> {
+
+    Optional<QueuedTransfer> findByIdAndUserId(Long id, Long userId);
+
+    @Query(value = """
+                select *
+                from transfer_requests
+                where status = 'QUEUED'
+                order by id
+                limit :limit
+                for update skip locked
+            """, nativeQuery = true)
+    List<QueuedTransfer> claimQueued(int limit);
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.ScheduledTransfer;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@NullMarked
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+
+    Optional<ScheduledTransfer> findByIdAndUserId(Long id, Long userId);
+
+    Page<ScheduledTransfer> findAllByUserId(Long userId, Pageable pageable);
+
+    @Query(value = """
+                select *
+                from scheduled_transfers
+                where status = 'ACTIVE'
+                  and next_run_at <= :now
+                order by next_run_at, id
+                limit :limit
+                for update skip locked
+            """, nativeQuery = true)
+    List<ScheduledTransfer> claimDue(LocalDateTime now, int limit);
+}
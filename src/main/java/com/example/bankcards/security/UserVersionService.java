@@ -0,0 +1,113 @@
+package com.example.bankcards.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of {@code user_versions}, which lets stateless JWT authentication reject tokens issued before
+ * a role change, rename, password change or deletion without reading {@code users} on every request.
+ * <p>
+ * Only users that ever changed have a row, so the table stays small. {@link #refresh()} reads rows changed
+ * since the last run; the look-back of {@code jwt.user-versions.overlap} covers transactions that committed
+ * after a later {@code updated_at} was already seen. Versions only grow, so reading a row twice is harmless.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserVersionService {
+
+    private static final String BUMP_SQL = """
+            insert into user_versions (user_id, version, updated_at)
+            values (?, 1, now())
+            on conflict (user_id) do update
+            set version = user_versions.version + 1, updated_at = now()
+            returning version
+            """;
+
+    private static final String VERSION_BY_USERNAME_SQL = """
+            select u.id, coalesce(v.version, 0) as version
+            from users u
+            left join user_versions v on v.user_id = u.id
+            where u.username = ?
+            """;
+
+    private static final String CHANGED_SQL = """
+            select user_id, version, updated_at
+            from user_versions
+            where updated_at > ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${jwt.user-versions.overlap:PT5S}")
+    private Duration overlap;
+
+    private final ConcurrentHashMap<Long, Long> versions = new ConcurrentHashMap<>();
+    private volatile Timestamp watermark;
+
+    @PostConstruct
+    void init() {
+        watermark = new Timestamp(0);
+        refresh();
+    }
+
+    /**
+     * A token is current unless the user changed after it was issued. A token newer than the local copy was
+     * issued after a change this instance has not read yet and is accepted.
+     */
+    public boolean isCurrent(Long userId, long tokenVersion) {
+        return tokenVersion >= versions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Reads the version straight from the database for a token about to be issued, so it is never older
+     * than a change made on another instance. Call it before loading the user whose role and name go into the
+     * token: a change committed in between then pairs the new role with the old version, which is rejected,
+     * never the old role with the new version.
+     */
+    public long currentVersion(String username) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(VERSION_BY_USERNAME_SQL, username);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Long userId = ((Number) rows.get(0).get("id")).longValue();
+        return apply(userId, ((Number) rows.get(0).get("version")).longValue());
+    }
+
+    /**
+     * Invalidates every access token issued to the user so far.
+     */
+    public void bump(Long userId) {
+        Long version = jdbcTemplate.queryForObject(BUMP_SQL, Long.class, userId);
+        apply(userId, version);
+    }
+
+    public void refresh() {
+        Timestamp from = watermark;
+        Timestamp since = new Timestamp(Math.max(0, from.getTime() - overlap.toMillis()));
+        List<Timestamp> changed = jdbcTemplate.query(CHANGED_SQL, (rs, rowNum) -> {
+            apply(rs.getLong("user_id"), rs.getLong("version"));
+            return rs.getTimestamp("updated_at");
+        }, since);
+
+        Timestamp latest = from;
+        for (Timestamp updatedAt : changed) {
+            if (updatedAt.after(latest)) {
+                latest = updatedAt;
+            }
+        }
+        watermark = latest;
+    }
+
+    private long apply(Long userId, long version) {
+        return versions.merge(userId, version, Math::max);
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.bankcards.security.jwt;
 
+import com.example.bankcards.security.CustomUserPrinciple;
+import com.example.bankcards.security.UserVersionService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -23,6 +29,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final UserVersionService userVersionService;
+
+    /**
+     * When set, the principal is built from the verified claims and revocation is checked against
+     * {@link UserVersionService} instead of loading the user from {@code users} on every request.
+     */
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(
@@ -40,29 +54,60 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
-        if (!jwtService.isTokenValid(token)) {
-            throw new AuthenticationCredentialsNotFoundException("Invalid JWT token");
+        if (stateless) {
+            authenticateFromClaims(token, request);
+        } else {
+            authenticateFromUsers(token, request);
         }
 
-        String username = jwtService.extractUsername(token);
+        filterChain.doFilter(request, response);
+    }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+    private void authenticateFromClaims(String token, HttpServletRequest request) {
+        TokenClaims claims = parse(token);
+
+        if (!userVersionService.isCurrent(claims.userId(), claims.version())) {
+            throw new AuthenticationCredentialsNotFoundException("Revoked JWT token");
+        }
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            authenticate(new CustomUserPrinciple(
+                    claims.userId(),
+                    claims.username(),
+                    null,
+                    List.of(new SimpleGrantedAuthority("ROLE_" + claims.role().name()))
+            ), request);
+        }
+    }
 
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
+    private void authenticateFromUsers(String token, HttpServletRequest request) {
+        String username = parse(token).username();
 
-            authentication.setDetails(
-                    new WebAuthenticationDetailsSource().buildDetails(request)
-            );
+        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            authenticate(userDetailsService.loadUserByUsername(username), request);
+        }
+    }
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
+    private TokenClaims parse(String token) {
+        try {
+            return jwtService.parse(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AuthenticationCredentialsNotFoundException("Invalid JWT token");
         }
+    }
 
-        filterChain.doFilter(request, response);
+    private void authenticate(UserDetails userDetails, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
+
+        authentication.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request)
+        );
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 }
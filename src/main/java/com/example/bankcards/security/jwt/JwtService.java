@@ -2,34 +2,75 @@ package com.example.bankcards.security.jwt;
 
 import com.example.bankcards.entity.User;
 import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.util.LruCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 
+/**
+ * Issues and verifies access tokens. The signing key and parser are built once at startup.
+ * <p>
+ * Verified tokens are remembered until they expire, keyed by a SHA-256 digest of the token so the cache holds
+ * no usable credentials, and a repeat request skips the HMAC check and the JSON parse. Revocation is not
+ * affected: it is checked per request against {@code UserVersionService}, not stored here. The cache is split
+ * into stripes so request threads do not queue on one lock.
+ */
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
+    private static final String VERSION_CLAIM = "ver";
+    private static final int CACHE_STRIPES = 16;
+
     @Value("${jwt.expiration-ms}")
     private long expirationMs;
 
     @Value("${jwt.secret}")
     private String jwtSecret;
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64URL.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${jwt.verified-cache.size:10000}")
+    private int verifiedCacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private List<LruCache<String, TokenClaims>> verified;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64URL.decode(jwtSecret));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        verified = new ArrayList<>(CACHE_STRIPES);
+        if (verifiedCacheSize > 0) {
+            int stripeSize = Math.max(1, verifiedCacheSize / CACHE_STRIPES);
+            for (int i = 0; i < CACHE_STRIPES; i++) {
+                verified.add(new LruCache<>(stripeSize));
+            }
+        }
     }
 
-    public String generateToken(User user) {
+    /**
+     * @param version the user's current token version, see {@code UserVersionService}
+     */
+    public String generateToken(User user, long version) {
 
         Date now = new Date();
         Date expiration = new Date(now.getTime() + expirationMs);
@@ -38,39 +79,82 @@ public class JwtService {
                 .subject(user.getId().toString())
                 .claim("username", user.getUsername())
                 .claim("role", user.getRole().name())
+                .claim(VERSION_CLAIM, version)
                 .issuedAt(now)
                 .expiration(expiration)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public boolean isTokenValid(String token) {
         try {
-            parseClaims(token);
+            parse(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
 
+    /**
+     * Verifies the token and reads every claim the filter needs in one parse, or returns the claims of an
+     * identical token verified earlier that has not expired yet.
+     *
+     * @throws JwtException if the token is malformed, expired or not signed with our key
+     */
+    public TokenClaims parse(String token) {
+        if (verified.isEmpty()) {
+            return toTokenClaims(parseClaims(token));
+        }
+
+        byte[] digest = digest(token);
+        LruCache<String, TokenClaims> stripe = verified.get(digest[0] & (CACHE_STRIPES - 1));
+        String key = Base64.getEncoder().encodeToString(digest);
+
+        TokenClaims cached = stripe.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = parseClaims(token);
+        TokenClaims tokenClaims = toTokenClaims(claims);
+        if (claims.getExpiration() != null) {
+            stripe.put(key, tokenClaims, claims.getExpiration().getTime());
+        }
+        return tokenClaims;
+    }
+
     public Long extractUserId(String token) {
-        return Long.parseLong(parseClaims(token).getSubject());
+        return parse(token).userId();
     }
 
     public UserRole extractRole(String token) {
-        String role = parseClaims(token).get("role", String.class);
-        return UserRole.valueOf(role);
+        return parse(token).role();
     }
 
     public String extractUsername(String token) {
-        return parseClaims(token).get("username", String.class);
+        return parse(token).username();
     }
 
     private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
+        return parser.parseSignedClaims(token)
                 .getPayload();
     }
+
+    private TokenClaims toTokenClaims(Claims claims) {
+        Long version = claims.get(VERSION_CLAIM, Long.class);
+        return new TokenClaims(
+                Long.parseLong(claims.getSubject()),
+                claims.get("username", String.class),
+                UserRole.valueOf(claims.get("role", String.class)),
+                version == null ? 0 : version
+        );
+    }
+
+    private byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
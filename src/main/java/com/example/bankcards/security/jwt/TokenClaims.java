@@ -0,0 +1,10 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.UserRole;
+
+/**
+ * The verified contents of an access token. {@code version} is the user's token version at issue time,
+ * {@code 0} for tokens issued before versions existed.
+ */
+public record TokenClaims(Long userId, String username, UserRole role, long version) {
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.QueuedTransferDto;
+import com.example.bankcards.dto.card.TransferRequest;
+
+public interface AsyncTransferService {
+
+    QueuedTransferDto submit(Long userId, TransferRequest request);
+
+    QueuedTransferDto get(Long userId, Long transferId);
+
+    /**
+     * Claims up to {@code limit} queued transfers and executes them in one transaction.
+     *
+     * @return number of claimed transfers, 0 when the queue is empty
+     */
+    int processQueued(int limit);
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.BalanceImportFormat;
+import com.example.bankcards.dto.card.BalanceImportReport;
+
+import java.io.InputStream;
+
+/**
+ * Applies balance adjustments streamed line by line; each chunk of lines commits in its own transaction.
+ */
+public interface BalanceImportService {
+
+    BalanceImportReport importBalances(InputStream input, BalanceImportFormat format);
+}
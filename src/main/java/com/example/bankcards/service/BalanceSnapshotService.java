@@ -0,0 +1,20 @@
+package com.example.bankcards.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Closing balances per card written to {@code daily_balance_snapshots}, plus totals by status and by user.
+ * A day is split into card id ranges that commit independently, so an interrupted run resumes where it stopped.
+ */
+public interface BalanceSnapshotService {
+
+    /**
+     * Snapshots every range of the day that is not done yet, then writes the totals once all ranges are.
+     *
+     * @return {@code true} when the day is complete
+     */
+    boolean snapshot(LocalDate date);
+
+    List<LocalDate> incompleteDates();
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.BatchTransferRequest;
+import com.example.bankcards.dto.card.BatchTransferResponse;
+
+public interface BatchTransferService {
+    BatchTransferResponse transfer(Long userId, BatchTransferRequest request);
+}
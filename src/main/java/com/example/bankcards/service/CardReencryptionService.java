@@ -0,0 +1,15 @@
+package com.example.bankcards.service;
+
+/**
+ * Moves cards from the old deterministic AES/ECB ciphertext to envelope encryption and fills their blind index.
+ * A card counts as migrated once {@code card_number_hash} is set, so the work can stop and resume at any chunk.
+ */
+public interface CardReencryptionService {
+
+    /**
+     * Re-encrypts up to one chunk of pending cards in its own transaction.
+     *
+     * @return the number of cards migrated, {@code 0} when none are pending
+     */
+    int reencryptChunk();
+}
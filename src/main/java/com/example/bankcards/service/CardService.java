@@ -9,6 +9,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 
 public interface CardService {
@@ -16,12 +17,14 @@ public interface CardService {
     CardBalanceDto getBalance(Long cardId, Long userId);
     CardBalanceDto setBalance(Long cardId, BigDecimal amount);
 
-    BigDecimal getTotalBalance(Long userId);
+    List<CardBalanceDto> getTotalBalance(Long userId);
 
     CardDto create(CreateCardRequest request);
 
     CardDto getById(Long id);
 
+    CardDto getByCardNumber(String cardNumber);
+
     Page<CardDto> getByUser(Long userId, Pageable pageable);
 
     Page<CardDto> getAll(Pageable pageable);
@@ -30,5 +33,7 @@ public interface CardService {
 
     CardDto updateStatus(Long cardId, UpdateCardStatusRequest request);
 
+    CardDto setStripes(Long cardId, int stripes);
+
     void delete(Long cardId);
 }
@@ -0,0 +1,15 @@
+package com.example.bankcards.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes balance and status of a user's cards to open server-sent event connections.
+ */
+public interface CardStreamService {
+
+    /**
+     * Opens a stream that starts with the current state of every card of the user and then
+     * sends a card again whenever it changes.
+     */
+    SseEmitter subscribe(Long userId);
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+
+/**
+ * Cached owner and status of cards, used to turn away obviously invalid transfers before a transaction
+ * is opened. The cache may be stale, so transfers still repeat the checks on the locked rows.
+ */
+public interface CardValidationService {
+
+    /**
+     * Throws the same exceptions as the in-transaction checks when a card of the request is missing,
+     * belongs to another user or is not active.
+     */
+    void precheck(Long userId, TransferRequest request);
+
+    /**
+     * Throws when the cards of the request hold different currencies. A card's currency never changes,
+     * so unlike the other checks this one is exact; engines that cannot convert call it instead of
+     * reading both cards.
+     */
+    void requireSameCurrency(TransferRequest request);
+
+    void invalidate(Long cardId);
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.FxConversion;
+
+import java.math.BigDecimal;
+
+/**
+ * Exchange rates served from an in-memory snapshot of {@code fx_rates}; {@code FxRateRefreshJob} reloads it.
+ */
+public interface FxRateService {
+
+    /**
+     * Converts an amount at the current rate. The result is rounded half-even to cents, so the same amount
+     * and rate always credit the same value.
+     */
+    FxConversion convert(String fromCurrency, String toCurrency, BigDecimal amount);
+
+    void refresh();
+}
@@ -0,0 +1,11 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+
+public interface IdempotentTransferService {
+
+    /**
+     * @return {@code true} if the outcome was replayed from an earlier request with the same key
+     */
+    boolean transfer(Long userId, String idempotencyKey, TransferRequest request);
+}
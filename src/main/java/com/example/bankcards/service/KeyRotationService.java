@@ -0,0 +1,28 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.KeyRotationStatusDto;
+
+/**
+ * Moves card numbers to data keys wrapped by the active master key. Cards are walked in id order and the last
+ * id of every committed chunk is stored in {@code card_key_rotations}, so a restart continues where it stopped.
+ * A rotation starts by itself when {@link com.example.bankcards.util.KeyService#activeKeyId()} changes.
+ */
+public interface KeyRotationService {
+
+    /**
+     * Rotates up to {@code limit} cards after the checkpoint in one transaction. Rows changed by someone else
+     * since they were read are skipped and counted as conflicts.
+     *
+     * @return the number of cards examined, {@code 0} when the rotation is complete or held by another instance
+     */
+    int rotateChunk(int limit);
+
+    KeyRotationStatusDto status();
+
+    /**
+     * Rows per second the background worker may rotate; {@code 0} pauses it.
+     */
+    int rateLimit();
+
+    KeyRotationStatusDto setRateLimit(int rowsPerSecond);
+}
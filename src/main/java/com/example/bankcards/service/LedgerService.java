@@ -0,0 +1,25 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface LedgerService {
+
+    void recordTransfer(TransferRequest transfer);
+
+    void recordTransfer(TransferRequest transfer, FxConversion conversion);
+
+    void recordTransfers(List<TransferRequest> transfers);
+
+    void recordAdjustment(Long cardId, BigDecimal delta);
+
+    List<LedgerEntry> transferEntries(TransferRequest transfer);
+
+    List<LedgerEntry> adjustmentEntries(Long cardId, BigDecimal delta);
+
+    void record(List<LedgerEntry> entries);
+}
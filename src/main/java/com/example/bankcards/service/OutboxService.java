@@ -0,0 +1,23 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.BalanceAdjustment;
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.event.OutboxEventType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes events to {@code outbox_events} in the caller's transaction; {@code OutboxRelayJob} delivers them.
+ */
+public interface OutboxService {
+
+    void record(OutboxEventType type, Long cardId, Map<String, Object> payload);
+
+    void recordTransfers(List<TransferRequest> transfers);
+
+    void recordTransfer(TransferRequest transfer, FxConversion conversion);
+
+    void recordAdjustments(List<BalanceAdjustment> adjustments);
+}
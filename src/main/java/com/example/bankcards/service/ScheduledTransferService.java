@@ -0,0 +1,25 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CreateScheduledTransferRequest;
+import com.example.bankcards.dto.card.ScheduledTransferDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+
+public interface ScheduledTransferService {
+
+    ScheduledTransferDto create(Long userId, CreateScheduledTransferRequest request);
+
+    Page<ScheduledTransferDto> getByUser(Long userId, Pageable pageable);
+
+    void cancel(Long userId, Long scheduledTransferId);
+
+    /**
+     * Claims up to {@code limit} orders due at {@code now} and executes them in one transaction,
+     * moving each order to its next occurrence in the same transaction.
+     *
+     * @return number of claimed orders, 0 when nothing is due
+     */
+    int runDue(LocalDateTime now, int limit);
+}
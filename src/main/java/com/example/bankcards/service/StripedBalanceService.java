@@ -0,0 +1,50 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Balance of a striped card is {@code cards.balance} plus the sum of its rows in {@code card_balance_stripes}.
+ * Credits go to a random stripe so they do not serialize on the card row; debits fold the stripes back
+ * into the card row while holding its lock.
+ */
+public interface StripedBalanceService {
+
+    void configure(Long cardId, int stripes);
+
+    /**
+     * Adds to a random stripe while holding the card row {@code FOR SHARE}: credits run in parallel with each
+     * other but not with {@link #configure} or {@link #compact}. The stripe count is read under that lock.
+     */
+    void credit(Long cardId, BigDecimal amount);
+
+    /**
+     * Moves the stripes of a card into the entity balance. The card row must already be locked.
+     */
+    void absorb(Card card);
+
+    /**
+     * Locks the card row and moves its stripes into {@code cards.balance}.
+     *
+     * @return folded amount
+     */
+    BigDecimal compact(Long cardId);
+
+    BigDecimal stripedBalance(Long cardId);
+
+    /**
+     * Stripe sums of several cards in one query, for a page of cards. Cards without stripes are absent.
+     */
+    Map<Long, BigDecimal> stripedBalances(Collection<Long> cardIds);
+
+    /**
+     * Sum of the user's stripes by card currency.
+     */
+    Map<String, BigDecimal> stripedTotals(Long userId);
+
+    List<Long> stripedCardIds();
+}
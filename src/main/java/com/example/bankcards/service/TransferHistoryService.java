@@ -0,0 +1,19 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.dto.card.TransferHistoryFilter;
+import com.example.bankcards.dto.card.TransferHistoryPage;
+import com.example.bankcards.dto.card.TransferRequest;
+
+import java.util.List;
+
+public interface TransferHistoryService {
+
+    void record(List<TransferRequest> transfers);
+
+    void record(TransferRequest transfer, FxConversion conversion);
+
+    TransferHistoryPage getForUser(Long userId, Long cardId, TransferHistoryFilter filter, String cursor, int limit);
+
+    TransferHistoryPage getForCard(Long cardId, TransferHistoryFilter filter, String cursor, int limit);
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Hourly and daily spend limits per source card, counted in memory over sliding windows.
+ */
+public interface VelocityLimitService {
+
+    /**
+     * Fails fast when {@code amount} would not fit into the limits. Does not count anything.
+     */
+    void check(Long cardId, BigDecimal amount);
+
+    /**
+     * Counts {@code amount} against the limits or throws when it does not fit. Inside a transaction the
+     * amount is given back if the transaction rolls back; outside of one the caller has to {@link #release} it.
+     */
+    void reserve(Long cardId, BigDecimal amount);
+
+    void release(Long cardId, BigDecimal amount);
+
+    /**
+     * Writes counters changed since the previous checkpoint to the database and forgets idle cards.
+     */
+    void checkpoint();
+}
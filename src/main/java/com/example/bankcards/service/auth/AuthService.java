@@ -2,9 +2,11 @@ package com.example.bankcards.service.auth;
 
 import com.example.bankcards.dto.auth.AuthResponse;
 import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.dto.auth.RefreshTokenRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.user.UserNotFoundByUsernameException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserVersionService;
 import com.example.bankcards.security.jwt.JwtService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,8 +20,13 @@ public class AuthService {
     private final UserRepository userRepository;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final UserVersionService userVersionService;
+    private final RefreshTokenService refreshTokenService;
 
     public AuthResponse login(LoginRequest request) {
+        // Version first, user second: see UserVersionService.currentVersion
+        long version = userVersionService.currentVersion(request.getUsername());
+
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new UserNotFoundByUsernameException(request.getUsername()));
 
@@ -30,9 +37,17 @@ public class AuthService {
                 )
         );
 
-        String token = jwtService.generateToken(user);
+        String token = jwtService.generateToken(user, version);
+        String refreshToken = refreshTokenService.issue(user, version);
+
+        return new AuthResponse(token, refreshToken);
+    }
 
-        return new AuthResponse(token);
+    /**
+     * Renews the access token without a password check or a {@code users} lookup.
+     */
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        return refreshTokenService.rotate(request.getRefreshToken());
     }
 }
 
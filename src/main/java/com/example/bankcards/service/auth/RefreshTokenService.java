@@ -0,0 +1,226 @@
+package com.example.bankcards.service.auth;
+
+import com.example.bankcards.dto.auth.AuthResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.exception.user.InvalidRefreshTokenException;
+import com.example.bankcards.security.UserVersionService;
+import com.example.bankcards.security.jwt.JwtService;
+import com.example.bankcards.util.LruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Opaque single-use refresh tokens. Every refresh marks the presented token used and issues the next one in
+ * the same family. If a used token comes back, it was copied. The whole family is then revoked, which logs out
+ * both the thief and the owner.
+ * <p>
+ * Tokens are 256 random bits, so a plain SHA-256 is enough to store them and no BCrypt is involved. A refresh
+ * costs one conditional {@code UPDATE ... RETURNING} and one {@code INSERT}. The user's name and role come from
+ * the token row and revocation from {@link UserVersionService}, so {@code users} is not read. Hashes used on
+ * this instance are remembered until they expire, so a replayed token is recognized without the database.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final String INSERT_SQL = """
+            insert into refresh_tokens
+                (token_hash, family_id, user_id, username, role, user_version, created_at, expires_at)
+            values (?, ?, ?, ?, ?, ?, now(), ?)
+            """;
+
+    // Marks the token used in the same statement that checks it, so two concurrent refreshes cannot both win
+    private static final String CONSUME_SQL = """
+            update refresh_tokens
+            set used_at = now()
+            where token_hash = ? and used_at is null and revoked_at is null and expires_at > now()
+            returning family_id, user_id, username, role, user_version
+            """;
+
+    private static final String USED_FAMILY_SQL = """
+            select family_id
+            from refresh_tokens
+            where token_hash = ? and used_at is not null
+            """;
+
+    private static final String REVOKE_FAMILY_SQL = """
+            update refresh_tokens
+            set revoked_at = now()
+            where family_id = ? and revoked_at is null
+            """;
+
+    private static final String PURGE_SQL = """
+            delete from refresh_tokens
+            where token_hash in (
+                select token_hash
+                from refresh_tokens
+                where expires_at < now()
+                limit ?
+            )
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JwtService jwtService;
+    private final UserVersionService userVersionService;
+    private final MeterRegistry meterRegistry;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh.ttl:P14D}")
+    private Duration ttl;
+
+    @Value("${jwt.refresh.cache-size:10000}")
+    private int cacheSize;
+
+    private LruCache<String, String> usedFamilies;
+
+    @PostConstruct
+    void init() {
+        usedFamilies = new LruCache<>(cacheSize);
+    }
+
+    /**
+     * Starts a new token family for a user who has just logged in.
+     */
+    public String issue(User user, long userVersion) {
+        String token = newToken();
+        insert(hash(token), UUID.randomUUID().toString(), user.getId(), user.getUsername(), user.getRole(), userVersion);
+        meterRegistry.counter("auth.refresh.tokens", "result", "issued").increment();
+        return token;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token of the same family.
+     *
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked, already used or issued
+     *                                      before the user's role, name or password changed
+     */
+    public AuthResponse rotate(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidRefreshTokenException();
+        }
+
+        String hash = hash(refreshToken);
+        String knownFamily = usedFamilies.get(hash);
+        if (knownFamily != null) {
+            throw reused(knownFamily);
+        }
+
+        String next = newToken();
+        StoredToken stored = transactionTemplate.execute(status -> {
+            List<StoredToken> consumed = jdbcTemplate.query(CONSUME_SQL, this::mapRow, hash);
+            if (consumed.isEmpty()) {
+                return null;
+            }
+
+            StoredToken current = consumed.get(0);
+            if (userVersionService.isCurrent(current.userId(), current.userVersion())) {
+                insert(hash(next), current.familyId(), current.userId(), current.username(), current.role(),
+                        current.userVersion());
+            } else {
+                jdbcTemplate.update(REVOKE_FAMILY_SQL, current.familyId());
+            }
+            return current;
+        });
+
+        if (stored == null) {
+            List<String> usedFamily = jdbcTemplate.queryForList(USED_FAMILY_SQL, String.class, hash);
+            if (!usedFamily.isEmpty()) {
+                throw reused(usedFamily.get(0));
+            }
+            meterRegistry.counter("auth.refresh.tokens", "result", "rejected").increment();
+            throw new InvalidRefreshTokenException();
+        }
+
+        usedFamilies.put(hash, stored.familyId(), System.currentTimeMillis() + ttl.toMillis());
+        // Versions only grow, so a token found stale inside the transaction is still stale here
+        if (!userVersionService.isCurrent(stored.userId(), stored.userVersion())) {
+            meterRegistry.counter("auth.refresh.tokens", "result", "stale").increment();
+            throw new InvalidRefreshTokenException();
+        }
+        meterRegistry.counter("auth.refresh.tokens", "result", "rotated").increment();
+
+        User user = User.builder()
+                .id(stored.userId())
+                .username(stored.username())
+                .role(stored.role())
+                .build();
+        return new AuthResponse(jwtService.generateToken(user, stored.userVersion()), next);
+    }
+
+    /**
+     * Deletes up to {@code limit} expired tokens.
+     *
+     * @return the number of tokens deleted
+     */
+    public int purgeExpired(int limit) {
+        return jdbcTemplate.update(PURGE_SQL, limit);
+    }
+
+    private InvalidRefreshTokenException reused(String familyId) {
+        int revoked = jdbcTemplate.update(REVOKE_FAMILY_SQL, familyId);
+        if (revoked > 0) {
+            log.warn("Refresh token reused, revoked token family {}", familyId);
+        }
+        meterRegistry.counter("auth.refresh.tokens", "result", "reused").increment();
+        return new InvalidRefreshTokenException();
+    }
+
+    private void insert(String hash, String familyId, Long userId, String username, UserRole role, long userVersion) {
+        jdbcTemplate.update(INSERT_SQL, hash, familyId, userId, username, role.name(), userVersion,
+                Timestamp.valueOf(LocalDateTime.now().plus(ttl)));
+    }
+
+    private StoredToken mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new StoredToken(
+                rs.getString("family_id"),
+                rs.getLong("user_id"),
+                rs.getString("username"),
+                UserRole.valueOf(rs.getString("role")),
+                rs.getLong("user_version")
+        );
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record StoredToken(String familyId, Long userId, String username, UserRole role, long userVersion) {
+    }
+}
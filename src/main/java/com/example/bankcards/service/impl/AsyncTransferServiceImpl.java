@@ -0,0 +1,178 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.QueuedTransferDto;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.QueuedTransfer;
+import com.example.bankcards.entity.QueuedTransferStatus;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
+import com.example.bankcards.exception.card.QueuedTransferNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.QueuedTransferRepository;
+import com.example.bankcards.service.AsyncTransferService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.service.VelocityLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class AsyncTransferServiceImpl implements AsyncTransferService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final QueuedTransferRepository queuedTransferRepository;
+    private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final VelocityLimitService velocityLimitService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public QueuedTransferDto submit(Long userId, TransferRequest request) {
+        if (request.getFromCardId() == null || request.getToCardId() == null) {
+            throw new InvalidTransferRequestException("Both fromCardId and toCardId are required");
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new InvalidTransferRequestException("Transfer amount must be positive");
+        }
+        if (!cardRepository.existsByIdAndUserId(request.getFromCardId(), userId)) {
+            throw new CardNotFoundException(request.getFromCardId());
+        }
+        if (!cardRepository.existsByIdAndUserId(request.getToCardId(), userId)) {
+            throw new CardNotFoundException(request.getToCardId());
+        }
+
+        QueuedTransfer transfer = QueuedTransfer.builder()
+                .userId(userId)
+                .fromCardId(request.getFromCardId())
+                .toCardId(request.getToCardId())
+                .amount(request.getAmount())
+                .status(QueuedTransferStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        return toDto(queuedTransferRepository.save(transfer));
+    }
+
+    @Override
+    public QueuedTransferDto get(Long userId, Long transferId) {
+        return queuedTransferRepository.findByIdAndUserId(transferId, userId)
+                .map(this::toDto)
+                .orElseThrow(() -> new QueuedTransferNotFoundException(transferId));
+    }
+
+    @Override
+    public int processQueued(int limit) {
+        Integer processed = transactionTemplate.execute(status -> {
+            List<QueuedTransfer> claimed = queuedTransferRepository.claimQueued(limit);
+            if (claimed.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, Card> cards = lockCards(claimed);
+            List<TransferRequest> applied = new ArrayList<>(claimed.size());
+            LocalDateTime now = LocalDateTime.now();
+
+            for (QueuedTransfer transfer : claimed) {
+                try {
+                    applied.add(execute(transfer, cards));
+                    transfer.setStatus(QueuedTransferStatus.COMPLETED);
+                } catch (ApiException | IllegalArgumentException e) {
+                    transfer.setStatus(QueuedTransferStatus.REJECTED);
+                    transfer.setError(truncate(e.getMessage()));
+                }
+                transfer.setCompletedAt(now);
+
+                meterRegistry.counter("transfer.async.processed", "status", transfer.getStatus().name()).increment();
+                meterRegistry.timer("transfer.async.queue.time")
+                        .record(Duration.between(transfer.getCreatedAt(), now));
+            }
+
+            ledgerService.recordTransfers(applied);
+            publishChanges(applied);
+            return claimed.size();
+        });
+
+        return processed == null ? 0 : processed;
+    }
+
+    private TransferRequest execute(QueuedTransfer transfer, Map<Long, Card> cards) {
+        Card from = cards.get(transfer.getFromCardId());
+        if (from == null) {
+            throw new CardNotFoundException(transfer.getFromCardId());
+        }
+
+        Card to = cards.get(transfer.getToCardId());
+        if (to == null) {
+            throw new CardNotFoundException(transfer.getToCardId());
+        }
+
+        TransferRules.check(transfer.getUserId(), from, to, transfer.getAmount());
+        velocityLimitService.reserve(from.getId(), transfer.getAmount());
+        TransferRules.apply(transfer.getUserId(), from, to, transfer.getAmount());
+        return new TransferRequest(transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount());
+    }
+
+    private Map<Long, Card> lockCards(List<QueuedTransfer> transfers) {
+        Set<Long> ids = new TreeSet<>();
+        for (QueuedTransfer transfer : transfers) {
+            ids.add(transfer.getFromCardId());
+            ids.add(transfer.getToCardId());
+        }
+
+        List<Card> locked = cardRepository.findAllByIdInForUpdate(ids);
+        for (Card card : locked) {
+            if (card.getStripeCount() > 0) {
+                stripedBalanceService.absorb(card);
+            }
+        }
+
+        return locked.stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    private void publishChanges(List<TransferRequest> applied) {
+        Set<Long> changed = new TreeSet<>();
+        for (TransferRequest transfer : applied) {
+            changed.add(transfer.getFromCardId());
+            changed.add(transfer.getToCardId());
+        }
+        changed.forEach(cardId -> eventPublisher.publishEvent(new CardChangedEvent(cardId)));
+    }
+
+    private String truncate(String message) {
+        if (message != null && message.length() > MAX_ERROR_LENGTH) {
+            return message.substring(0, MAX_ERROR_LENGTH);
+        }
+        return message;
+    }
+
+    private QueuedTransferDto toDto(QueuedTransfer transfer) {
+        return QueuedTransferDto.builder()
+                .id(transfer.getId())
+                .fromCardId(transfer.getFromCardId())
+                .toCardId(transfer.getToCardId())
+                .amount(transfer.getAmount())
+                .status(transfer.getStatus())
+                .error(transfer.getError())
+                .createdAt(transfer.getCreatedAt())
+                .completedAt(transfer.getCompletedAt())
+                .build();
+    }
+}
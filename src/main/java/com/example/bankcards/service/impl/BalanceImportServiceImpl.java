@@ -0,0 +1,216 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.BalanceAdjustment;
+import com.example.bankcards.dto.card.BalanceImportError;
+import com.example.bankcards.dto.card.BalanceImportFormat;
+import com.example.bankcards.dto.card.BalanceImportReport;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.service.BalanceImportService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.OutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceImportServiceImpl implements BalanceImportService {
+
+    private static final String UPDATE_SQL = "update cards set balance = balance + ? where id = ?";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int AMOUNT_SCALE = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${balance.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${balance.import.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${balance.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Override
+    public BalanceImportReport importBalances(InputStream input, BalanceImportFormat format) {
+        ImportProgress progress = new ImportProgress();
+        List<Line> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE)) {
+            String raw;
+            long number = 0;
+            boolean first = true;
+            while ((raw = reader.readLine()) != null) {
+                number++;
+                String text = (number == 1 ? stripBom(raw) : raw).strip();
+                if (text.isEmpty()) {
+                    continue;
+                }
+                if (first) {
+                    first = false;
+                    if (format == BalanceImportFormat.CSV && isHeader(text)) {
+                        continue;
+                    }
+                }
+
+                progress.processed++;
+                try {
+                    chunk.add(parse(number, text, format));
+                } catch (IllegalArgumentException | JacksonException e) {
+                    progress.reject(number, "Malformed line: " + e.getMessage());
+                    continue;
+                }
+
+                if (chunk.size() >= chunkSize) {
+                    applyChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                applyChunk(chunk, progress);
+            }
+        } catch (IOException e) {
+            log.warn("Balance import aborted after {} lines, {} adjustments committed", progress.processed, progress.applied);
+            throw new UncheckedIOException(e);
+        }
+
+        progress.errors.sort(Comparator.comparingLong(BalanceImportError::getLine));
+        return BalanceImportReport.builder()
+                .processed(progress.processed)
+                .applied(progress.applied)
+                .rejected(progress.rejected)
+                .errors(progress.errors)
+                .errorsTruncated(progress.rejected > progress.errors.size())
+                .build();
+    }
+
+    private void applyChunk(List<Line> chunk, ImportProgress progress) {
+        // Rows are locked in card id order, the same order the transfer engines use, so an import
+        // running alongside live traffic cannot deadlock with it.
+        List<Line> ordered = new ArrayList<>(chunk);
+        ordered.sort(Comparator.comparing(Line::cardId).thenComparingLong(Line::number));
+
+        List<Line> missing = new ArrayList<>();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int applied = transactionTemplate.execute(status -> {
+                int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, ordered, batchSize, (ps, line) -> {
+                    ps.setBigDecimal(1, line.amount());
+                    ps.setLong(2, line.cardId());
+                });
+
+                List<BalanceAdjustment> adjustments = new ArrayList<>(ordered.size());
+                List<LedgerEntry> entries = new ArrayList<>(ordered.size() * 2);
+                int index = 0;
+                for (int[] batch : counts) {
+                    for (int count : batch) {
+                        Line line = ordered.get(index++);
+                        if (count == 0) {
+                            missing.add(line);
+                            continue;
+                        }
+                        adjustments.add(new BalanceAdjustment(line.cardId(), line.amount()));
+                        entries.addAll(ledgerService.adjustmentEntries(line.cardId(), line.amount()));
+                    }
+                }
+
+                ledgerService.record(entries);
+                outboxService.recordAdjustments(adjustments);
+                adjustments.forEach(adjustment -> eventPublisher.publishEvent(new CardChangedEvent(adjustment.getCardId())));
+                return adjustments.size();
+            });
+
+            progress.applied += applied;
+            missing.forEach(line -> progress.reject(line.number(), "Card not found: " + line.cardId()));
+            meterRegistry.counter("balance.import.rows", "result", "applied").increment(applied);
+        } catch (DataAccessException e) {
+            log.warn("Balance import chunk of {} lines rolled back", chunk.size(), e);
+            String reason = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+            chunk.forEach(line -> progress.reject(line.number(), reason));
+        } finally {
+            sample.stop(meterRegistry.timer("balance.import.chunk"));
+        }
+    }
+
+    private Line parse(long number, String text, BalanceImportFormat format) {
+        Long cardId;
+        BigDecimal amount;
+        if (format == BalanceImportFormat.NDJSON) {
+            BalanceAdjustment adjustment = objectMapper.readValue(text, BalanceAdjustment.class);
+            cardId = adjustment.getCardId();
+            amount = adjustment.getAmount();
+        } else {
+            String[] fields = text.split(",", -1);
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("expected cardId,amount");
+            }
+            cardId = Long.valueOf(fields[0].strip());
+            amount = new BigDecimal(fields[1].strip());
+        }
+
+        if (cardId == null || amount == null) {
+            throw new IllegalArgumentException("cardId and amount are required");
+        }
+        if (amount.stripTrailingZeros().scale() > AMOUNT_SCALE) {
+            throw new IllegalArgumentException("amount has more than " + AMOUNT_SCALE + " decimal places");
+        }
+        return new Line(number, cardId, amount);
+    }
+
+    private boolean isHeader(String text) {
+        String first = text.split(",", 2)[0].strip();
+        return !first.isEmpty() && !Character.isDigit(first.charAt(0));
+    }
+
+    private String stripBom(String text) {
+        return text.startsWith("\uFEFF") ? text.substring(1) : text;
+    }
+
+    private record Line(long number, Long cardId, BigDecimal amount) {
+    }
+
+    private final class ImportProgress {
+
+        private long processed;
+        private long applied;
+        private long rejected;
+        private final List<BalanceImportError> errors = new ArrayList<>();
+
+        void reject(long line, String error) {
+            rejected++;
+            meterRegistry.counter("balance.import.rows", "result", "rejected").increment();
+            if (errors.size() < maxErrors) {
+                errors.add(new BalanceImportError(line, error));
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.service.BalanceSnapshotService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotServiceImpl implements BalanceSnapshotService {
+
+    private static final String PLAN_SQL = """
+            insert into daily_balance_snapshot_partitions (snapshot_date, range_start, range_end)
+            values (?, ?, ?)
+            on conflict do nothing
+            """;
+
+    private static final String CLAIM_SQL = """
+            select range_end
+            from daily_balance_snapshot_partitions
+            where snapshot_date = ? and range_start = ? and completed_at is null
+            for update skip locked
+            """;
+
+    // Every balance change is entered in the ledger in the same transaction, so taking back the entries made
+    // after the cut-off turns the live balance into the closing balance of the day
+    private static final String CARDS_SQL = """
+            select c.id, c.user_id, c.status, c.currency,
+                   c.balance + coalesce(s.balance, 0) - coalesce(l.delta, 0) as balance
+            from cards c
+            left join (
+                select card_id, sum(balance) as balance
+                from card_balance_stripes
+                where card_id between ? and ?
+                group by card_id
+            ) s on s.card_id = c.id
+            left join (
+                select card_id, sum(case when entry_type = 'CREDIT' then amount else -amount end) as delta
+                from ledger_entries
+                where created_at >= ? and card_id between ? and ?
+                group by card_id
+            ) l on l.card_id = c.id
+            where c.id between ? and ?
+            order by c.id
+            """;
+
+    private static final String INSERT_SQL = """
+            insert into daily_balance_snapshots (snapshot_date, card_id, user_id, status, currency, balance)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String COMPLETE_SQL = """
+            update daily_balance_snapshot_partitions
+            set completed_at = now(), card_count = ?
+            where snapshot_date = ? and range_start = ?
+            """;
+
+    private static final String TOTALS_SQL = """
+            insert into daily_balance_totals (snapshot_date, group_type, group_key, currency, card_count, balance)
+            select snapshot_date, 'STATUS', status, currency, count(*), sum(balance)
+            from daily_balance_snapshots
+            where snapshot_date = ?
+            group by snapshot_date, status, currency
+            union all
+            select snapshot_date, 'USER', cast(user_id as varchar), currency, count(*), sum(balance)
+            from daily_balance_snapshots
+            where snapshot_date = ?
+            group by snapshot_date, user_id, currency
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${balance.snapshot.partition-size:100000}")
+    private long partitionSize;
+
+    @Value("${balance.snapshot.parallelism:4}")
+    private int parallelism;
+
+    @Value("${balance.snapshot.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${balance.snapshot.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${balance.snapshot.zone:Europe/Moscow}")
+    private ZoneId zone;
+
+    @Override
+    public boolean snapshot(LocalDate date) {
+        plan(date);
+
+        List<Long> pending = jdbcTemplate.queryForList("""
+                select range_start
+                from daily_balance_snapshot_partitions
+                where snapshot_date = ? and completed_at is null
+                order by range_start
+                """, Long.class, Date.valueOf(date));
+
+        long started = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<Long>> partitions = new ArrayList<>(pending.size());
+            for (Long rangeStart : pending) {
+                partitions.add(executor.submit(() -> snapshotPartition(date, rangeStart)));
+            }
+            for (Future<Long> partition : partitions) {
+                partition.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Balance snapshot for {} interrupted", date);
+            return false;
+        } catch (ExecutionException e) {
+            // Finished ranges stay committed; the next run picks up the rest
+            log.error("Balance snapshot for {} failed", date, e.getCause());
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Integer remaining = jdbcTemplate.queryForObject("""
+                select count(*)
+                from daily_balance_snapshot_partitions
+                where snapshot_date = ? and completed_at is null
+                """, Integer.class, Date.valueOf(date));
+        if (remaining != null && remaining > 0) {
+            // Claimed by another instance that is still running
+            log.info("Balance snapshot for {} waits for {} ranges held elsewhere", date, remaining);
+            return false;
+        }
+
+        writeTotals(date);
+        log.info("Balance snapshot for {} finished in {} ms ({} ranges this run)",
+                date, (System.nanoTime() - started) / 1_000_000, pending.size());
+        return true;
+    }
+
+    @Override
+    public List<LocalDate> incompleteDates() {
+        return jdbcTemplate.queryForList("""
+                        select distinct snapshot_date
+                        from daily_balance_snapshot_partitions
+                        where completed_at is null
+                        order by snapshot_date
+                        """, Date.class).stream()
+                .map(Date::toLocalDate)
+                .toList();
+    }
+
+    private void plan(LocalDate date) {
+        Integer planned = jdbcTemplate.queryForObject(
+                "select count(*) from daily_balance_snapshot_partitions where snapshot_date = ?",
+                Integer.class, Date.valueOf(date));
+        if (planned != null && planned > 0) {
+            return;
+        }
+
+        // Ranges are fixed on the first run of the day, so a restart resumes exactly the same partitions
+        Long minId = jdbcTemplate.queryForObject("select min(id) from cards", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from cards", Long.class);
+        if (minId == null || maxId == null) {
+            minId = 0L;
+            maxId = 0L;
+        }
+
+        List<Object[]> ranges = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += partitionSize) {
+            ranges.add(new Object[]{Date.valueOf(date), from, Math.min(from + partitionSize - 1, maxId)});
+        }
+        jdbcTemplate.batchUpdate(PLAN_SQL, ranges);
+    }
+
+    private long snapshotPartition(LocalDate date, long rangeStart) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Long written = transactionTemplate.execute(status -> {
+            // The row lock keeps a second instance off this range until the transaction ends
+            List<Long> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, Date.valueOf(date), rangeStart);
+            if (claimed.isEmpty()) {
+                return 0L;
+            }
+            long rangeEnd = claimed.get(0);
+            Timestamp cutoff = cutoff(date);
+
+            SnapshotWriter writer = new SnapshotWriter(date);
+            // One statement reads one MVCC snapshot of the range, so the balances are consistent with each
+            // other without locking cards; the forward-only cursor streams rows instead of loading the range
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                        CARDS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, rangeStart);
+                ps.setLong(2, rangeEnd);
+                ps.setTimestamp(3, cutoff);
+                ps.setLong(4, rangeStart);
+                ps.setLong(5, rangeEnd);
+                ps.setLong(6, rangeStart);
+                ps.setLong(7, rangeEnd);
+                return ps;
+            }, writer::add);
+            writer.flush();
+
+            jdbcTemplate.update(COMPLETE_SQL, writer.count, Date.valueOf(date), rangeStart);
+            return writer.count;
+        });
+        sample.stop(meterRegistry.timer("balance.snapshot.partition"));
+
+        long count = written == null ? 0 : written;
+        meterRegistry.counter("balance.snapshot.cards").increment(count);
+        return count;
+    }
+
+    /**
+     * Midnight after the day in the snapshot zone, as the server-local time that ledger entries are stamped with.
+     */
+    private Timestamp cutoff(LocalDate date) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(
+                date.plusDays(1).atStartOfDay(zone).toInstant(), ZoneId.systemDefault()));
+    }
+
+    private void writeTotals(LocalDate date) {
+        transactionTemplate.execute(status -> {
+            jdbcTemplate.update("delete from daily_balance_totals where snapshot_date = ?", Date.valueOf(date));
+            jdbcTemplate.update(TOTALS_SQL, Date.valueOf(date), Date.valueOf(date));
+            return null;
+        });
+    }
+
+    private final class SnapshotWriter {
+
+        private final Date date;
+        private final List<Object[]> buffer = new ArrayList<>(batchSize);
+        private long count;
+
+        private SnapshotWriter(LocalDate date) {
+            this.date = Date.valueOf(date);
+        }
+
+        void add(ResultSet rs) throws SQLException {
+            buffer.add(new Object[]{
+                    date,
+                    rs.getLong("id"),
+                    rs.getLong("user_id"),
+                    rs.getString("status"),
+                    rs.getString("currency"),
+                    rs.getBigDecimal("balance")
+            });
+            if (buffer.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, buffer);
+            count += buffer.size();
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.*;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.TransferBatchTooLargeException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.BatchTransferService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.service.VelocityLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BatchTransferServiceImpl implements BatchTransferService {
+
+    private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final VelocityLimitService velocityLimitService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${transfer.batch.max-size:5000}")
+    private int maxSize;
+
+    @Override
+    public BatchTransferResponse transfer(Long userId, BatchTransferRequest request) {
+        List<TransferRequest> items = request.getTransfers() == null ? List.of() : request.getTransfers();
+        BatchTransferMode mode = request.getMode() == null ? BatchTransferMode.ALL_OR_NOTHING : request.getMode();
+
+        if (items.size() > maxSize) {
+            throw new TransferBatchTooLargeException(items.size(), maxSize);
+        }
+
+        return transactionTemplate.execute(status -> {
+            Map<Long, Card> cards = lockCards(items);
+
+            List<TransferItemResult> results = new ArrayList<>(items.size());
+            List<TransferRequest> applied = new ArrayList<>(items.size());
+            int rejected = 0;
+
+            for (int i = 0; i < items.size(); i++) {
+                TransferRequest item = items.get(i);
+                TransferItemResult.TransferItemResultBuilder result = TransferItemResult.builder()
+                        .index(i)
+                        .fromCardId(item.getFromCardId())
+                        .toCardId(item.getToCardId())
+                        .amount(item.getAmount());
+
+                try {
+                    apply(userId, item, cards);
+                    applied.add(item);
+                    result.status(TransferItemStatus.APPLIED);
+                } catch (ApiException | IllegalArgumentException e) {
+                    result.status(TransferItemStatus.REJECTED).error(e.getMessage());
+                    rejected++;
+                }
+                results.add(result.build());
+            }
+
+            if (mode == BatchTransferMode.ALL_OR_NOTHING && rejected > 0) {
+                status.setRollbackOnly();
+                results.stream()
+                        .filter(r -> r.getStatus() == TransferItemStatus.APPLIED)
+                        .forEach(r -> r.setStatus(TransferItemStatus.ROLLED_BACK));
+            } else {
+                ledgerService.recordTransfers(applied);
+                publishChanges(applied);
+            }
+
+            return BatchTransferResponse.builder()
+                    .mode(mode)
+                    .applied(count(results, TransferItemStatus.APPLIED))
+                    .rejected(rejected)
+                    .results(results)
+                    .build();
+        });
+    }
+
+    private Map<Long, Card> lockCards(List<TransferRequest> items) {
+        Set<Long> ids = new TreeSet<>();
+        for (TransferRequest item : items) {
+            if (item.getFromCardId() != null) {
+                ids.add(item.getFromCardId());
+            }
+            if (item.getToCardId() != null) {
+                ids.add(item.getToCardId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Card> locked = cardRepository.findAllByIdInForUpdate(ids);
+        for (Card card : locked) {
+            if (card.getStripeCount() > 0) {
+                stripedBalanceService.absorb(card);
+            }
+        }
+
+        return locked.stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    private void apply(Long userId, TransferRequest item, Map<Long, Card> cards) {
+        TransferRules.requirePositive(item.getAmount());
+
+        Card from = cards.get(item.getFromCardId());
+        if (from == null) {
+            throw new CardNotFoundException(item.getFromCardId());
+        }
+
+        Card to = cards.get(item.getToCardId());
+        if (to == null) {
+            throw new CardNotFoundException(item.getToCardId());
+        }
+
+        TransferRules.check(userId, from, to, item.getAmount());
+        velocityLimitService.reserve(from.getId(), item.getAmount());
+        TransferRules.apply(userId, from, to, item.getAmount());
+    }
+
+    private void publishChanges(List<TransferRequest> applied) {
+        Set<Long> changed = new TreeSet<>();
+        for (TransferRequest item : applied) {
+            changed.add(item.getFromCardId());
+            changed.add(item.getToCardId());
+        }
+        changed.forEach(cardId -> eventPublisher.publishEvent(new CardChangedEvent(cardId)));
+    }
+
+    private int count(List<TransferItemResult> results, TransferItemStatus status) {
+        return (int) results.stream()
+                .filter(r -> r.getStatus() == status)
+                .count();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.service.CardReencryptionService;
+import com.example.bankcards.util.BlindIndexService;
+import com.example.bankcards.util.CryptoService;
+import com.example.bankcards.util.EncryptedCardNumber;
+import com.example.bankcards.util.EnvelopeCryptoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CardReencryptionServiceImpl implements CardReencryptionService {
+
+    // skip locked lets several instances share the backlog; rows a live request holds are picked up next time
+    private static final String PENDING_SQL = """
+            select id, card_number_encrypted
+            from cards
+            where card_number_hash is null
+            order by id
+            limit ?
+            for update skip locked
+            """;
+
+    private static final String UPDATE_SQL = """
+            update cards
+            set card_number_encrypted = ?, key_id = ?, wrapped_key = ?, card_number_hash = ?
+            where id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CryptoService cryptoService;
+    private final EnvelopeCryptoService envelopeCryptoService;
+    private final BlindIndexService blindIndexService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${card.reencryption.chunk-size:1000}")
+    private int chunkSize;
+
+    @Override
+    public int reencryptChunk() {
+        Integer migrated = transactionTemplate.execute(status -> {
+            List<PendingCard> pending = jdbcTemplate.query(PENDING_SQL,
+                    (rs, rowNum) -> new PendingCard(rs.getLong("id"), rs.getString("card_number_encrypted")),
+                    chunkSize);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+
+            List<String> cardNumbers = cryptoService.decryptAll(pending.stream().map(PendingCard::encrypted).toList());
+            List<EncryptedCardNumber> encrypted = envelopeCryptoService.encryptAll(cardNumbers);
+
+            List<Object[]> updates = new ArrayList<>(pending.size());
+            for (int i = 0; i < pending.size(); i++) {
+                updates.add(new Object[]{
+                        encrypted.get(i).ciphertext(),
+                        encrypted.get(i).keyId(),
+                        encrypted.get(i).wrappedKey(),
+                        blindIndexService.index(cardNumbers.get(i)),
+                        pending.get(i).id()
+                });
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+            return updates.size();
+        });
+
+        int count = migrated == null ? 0 : migrated;
+        meterRegistry.counter("card.reencryption.rows").increment(count);
+        return count;
+    }
+
+    private record PendingCard(long id, String encrypted) {
+    }
+}
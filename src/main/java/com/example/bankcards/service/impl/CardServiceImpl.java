@@ -8,20 +8,37 @@ import com.example.bankcards.dto.card.UpdateCardStatusRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.event.OutboxEventType;
 import com.example.bankcards.exception.card.CardAlreadyExistsException;
 import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.UnsupportedCurrencyException;
 import com.example.bankcards.exception.user.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardValidationService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.util.BlindIndexService;
 import com.example.bankcards.util.CryptoService;
+import com.example.bankcards.util.EncryptedCardNumber;
+import com.example.bankcards.util.EnvelopeCryptoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -31,6 +48,16 @@ public class CardServiceImpl implements CardService {
     private final UserRepository userRepository;
     private final CardMapper cardMapper;
     private final CryptoService cryptoService;
+    private final EnvelopeCryptoService envelopeCryptoService;
+    private final BlindIndexService blindIndexService;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final CardValidationService cardValidationService;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${card.default-currency:RUB}")
+    private String defaultCurrency;
 
     @Override
     @Transactional
@@ -39,24 +66,33 @@ public class CardServiceImpl implements CardService {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new UserNotFoundException(request.getUserId()));
 
-        String encrypted = cryptoService.encrypt(request.getCardNumber());
+        String currency = currency(request.getCurrency());
+        String cardNumberHash = blindIndexService.index(request.getCardNumber());
 
-        if (cardRepository.existsByEncryptedCardNumber(encrypted)) {
+        if (cardRepository.existsByCardNumberHash(cardNumberHash)
+                || cardRepository.existsByEncryptedCardNumber(cryptoService.encryptLegacy(request.getCardNumber()))) {
             throw new CardAlreadyExistsException();
         }
 
+        EncryptedCardNumber encrypted = envelopeCryptoService.encrypt(request.getCardNumber());
+
         Card card = Card.builder()
-                .encryptedCardNumber(encrypted)
+                .encryptedCardNumber(encrypted.ciphertext())
+                .keyId(encrypted.keyId())
+                .wrappedKey(encrypted.wrappedKey())
+                .cardNumberHash(cardNumberHash)
+                .cardLast4(lastFour(request.getCardNumber()))
                 .owner(request.getOwner())
                 .expirationDate(request.getExpirationDate())
                 .status(CardStatus.ACTIVE)
                 .balance(BigDecimal.ZERO)
+                .currency(currency)
                 .user(user)
                 .build();
 
         Card saved = cardRepository.save(card);
 
-        return cardMapper.toDto(saved, mask(request.getCardNumber()));
+        return toDto(saved);
     }
 
 
@@ -65,39 +101,35 @@ public class CardServiceImpl implements CardService {
         Card card = cardRepository.findById(id)
                 .orElseThrow(() -> new CardNotFoundException(id));
 
-        String decrypted = cryptoService.decrypt(card.getEncryptedCardNumber());
-        return cardMapper.toDto(card, mask(decrypted));
+        return toDto(card);
+    }
+
+
+    @Override
+    public CardDto getByCardNumber(String cardNumber) {
+        Card card = findByCardNumber(cardNumber, blindIndexService.index(cardNumber))
+                .orElseThrow(CardNotFoundException::new);
+
+        return toDto(card);
     }
 
 
     @Override
     public Page<CardDto> getByUser(Long userId, Pageable pageable) {
 
-        return cardRepository.findAllByUserId(userId, pageable)
-                .map(card -> {
-                    String decrypted = cryptoService.decrypt(card.getEncryptedCardNumber());
-                    return cardMapper.toDto(card, mask(decrypted));
-                });
+        return toDtos(cardRepository.findAllByUserId(userId, pageable));
     }
 
     @Override
     public Page<CardDto> getAll(Pageable pageable) {
 
-        return cardRepository.findAll(pageable)
-                .map(card -> {
-                    String decrypted = cryptoService.decrypt(card.getEncryptedCardNumber());
-                    return cardMapper.toDto(card, mask(decrypted));
-                });
+        return toDtos(cardRepository.findAll(pageable));
     }
 
     @Override
     public Page<CardDto> getByStatus(CardStatus status, Pageable pageable) {
 
-        return cardRepository.findAllByStatus(status, pageable)
-                .map(card -> {
-                    String decrypted = cryptoService.decrypt(card.getEncryptedCardNumber());
-                    return cardMapper.toDto(card, mask(decrypted));
-                });
+        return toDtos(cardRepository.findAllByStatus(status, pageable));
     }
 
     @Override
@@ -108,52 +140,130 @@ public class CardServiceImpl implements CardService {
 
         return CardBalanceDto.builder()
                 .cardId(card.getId())
-                .balance(card.getBalance())
+                .balance(effectiveBalance(card))
+                .currency(card.getCurrency())
                 .build();
     }
 
     @Override
     @Transactional
     public CardBalanceDto setBalance(Long cardId, BigDecimal balance) {
-        Card card = cardRepository.findById(cardId)
+        if (cardRepository.addBalance(cardId, balance) == 0) {
+            throw new CardNotFoundException(cardId);
+        }
+        Card savedCard = cardRepository.findById(cardId)
                 .orElseThrow(() -> new CardNotFoundException(cardId));
+        ledgerService.recordAdjustment(cardId, balance);
+        eventPublisher.publishEvent(new CardChangedEvent(cardId));
 
-        card.setBalance(card.getBalance().add(balance));
-        Card savedCard = cardRepository.save(card);
+        BigDecimal effective = effectiveBalance(savedCard);
+        outboxService.record(OutboxEventType.BALANCE_ADJUSTED, cardId, Map.of("delta", balance, "balance", effective));
 
         return  CardBalanceDto.builder()
                 .cardId(savedCard.getId())
-                .balance(savedCard.getBalance())
+                .balance(effective)
+                .currency(savedCard.getCurrency())
                 .build();
     }
 
     @Override
-    public BigDecimal getTotalBalance(Long userId) {
-        return cardRepository.sumBalanceByUserId(userId);
+    public List<CardBalanceDto> getTotalBalance(Long userId) {
+        // Balances in different currencies are never added together
+        Map<String, BigDecimal> striped = stripedBalanceService.stripedTotals(userId);
+        return cardRepository.sumBalanceByUserIdGroupByCurrency(userId).stream()
+                .map(total -> CardBalanceDto.builder()
+                        .currency(total.getCurrency())
+                        .balance(total.getBalance().add(striped.getOrDefault(total.getCurrency(), BigDecimal.ZERO)))
+                        .build())
+                .toList();
     }
 
 
     @Override
+    @Transactional
     public CardDto updateStatus(Long cardId, UpdateCardStatusRequest request) {
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new CardNotFoundException(cardId));
 
         card.setStatus(request.getStatus());
         Card saved = cardRepository.save(card);
+        cardValidationService.invalidate(cardId);
+        eventPublisher.publishEvent(new CardChangedEvent(cardId));
+        outboxService.record(OutboxEventType.STATUS_CHANGED, cardId, Map.of("status", request.getStatus()));
+
+        return toDto(saved);
+    }
+
+    @Override
+    @Transactional
+    public CardDto setStripes(Long cardId, int stripes) {
+        stripedBalanceService.configure(cardId, stripes);
+
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new CardNotFoundException(cardId));
 
-        String decrypted = cryptoService.decrypt(saved.getEncryptedCardNumber());
-        return cardMapper.toDto(saved, mask(decrypted));
+        return toDto(card);
     }
 
     @Override
+    @Transactional
     public void delete(Long cardId) {
         if (!cardRepository.existsById(cardId)) {
             throw new CardNotFoundException(cardId);
         }
         cardRepository.deleteById(cardId);
+        cardValidationService.invalidate(cardId);
+        eventPublisher.publishEvent(new CardChangedEvent(cardId));
+        outboxService.record(OutboxEventType.CARD_DELETED, cardId, Map.of());
+    }
+
+    private CardDto toDto(Card card) {
+        return cardMapper.toDto(card, mask(card.getCardLast4()), effectiveBalance(card));
+    }
+
+    // Stripes of the whole page are summed in one query instead of one per striped card
+    private Page<CardDto> toDtos(Page<Card> cards) {
+        List<Long> striped = cards.stream()
+                .filter(card -> card.getStripeCount() > 0)
+                .map(Card::getId)
+                .toList();
+        Map<Long, BigDecimal> stripes = stripedBalanceService.stripedBalances(striped);
+
+        return cards.map(card -> cardMapper.toDto(card, mask(card.getCardLast4()),
+                card.getBalance().add(stripes.getOrDefault(card.getId(), BigDecimal.ZERO))));
+    }
+
+    private BigDecimal effectiveBalance(Card card) {
+        if (card.getStripeCount() == 0) {
+            return card.getBalance();
+        }
+        return card.getBalance().add(stripedBalanceService.stripedBalance(card.getId()));
+    }
+
+    // Cards the re-encryption job has not reached yet have no hash, but their AES/ECB ciphertext is
+    // deterministic and still unique-indexed, so a miss on the hash falls back to that lookup.
+    // The same applies to the duplicate check in create.
+    private Optional<Card> findByCardNumber(String cardNumber, String cardNumberHash) {
+        return cardRepository.findByCardNumberHash(cardNumberHash)
+                .or(() -> cardRepository.findByEncryptedCardNumber(cryptoService.encryptLegacy(cardNumber)));
+    }
+
+    private String mask(String last4) {
+        return "**** **** **** " + last4;
     }
 
-    private String mask(String cardNumber) {
-        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
+    private String lastFour(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    private String currency(String requested) {
+        if (requested == null || requested.isBlank()) {
+            return defaultCurrency;
+        }
+        try {
+            return Currency.getInstance(requested.strip().toUpperCase(Locale.ROOT)).getCurrencyCode();
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedCurrencyException(requested);
+        }
     }
 }
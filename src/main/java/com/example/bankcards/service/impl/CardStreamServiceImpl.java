@@ -0,0 +1,245 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardStreamEvent;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.event.OutboxEvent;
+import com.example.bankcards.event.OutboxEventType;
+import com.example.bankcards.exception.card.StreamLimitExceededException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardStreamService;
+import com.example.bankcards.service.StripedBalanceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every connection is served by its own virtual thread. Changes only mark a card as pending for the
+ * connections that watch it; the thread then reads and sends the current state. A slow client therefore
+ * never queues more than one update per card, it just skips intermediate balances. Connections that had
+ * nothing to send for {@code idle-timeout} are closed, clients are expected to reconnect.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardStreamServiceImpl implements CardStreamService {
+
+    private final CardRepository cardRepository;
+    private final StripedBalanceService stripedBalanceService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Set<Subscription>> subscriptionsByCard = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> connectionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Value("${card.stream.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${card.stream.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    @Value("${card.stream.heartbeat-interval:PT15S}")
+    private Duration heartbeatInterval;
+
+    @Value("${card.stream.idle-timeout:PT5M}")
+    private Duration idleTimeout;
+
+    @Value("${card.stream.max-lifetime:PT1H}")
+    private Duration maxLifetime;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        meterRegistry.gauge("card.stream.connections", Tags.empty(), connections);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter subscribe(Long userId) {
+        // Read before taking a slot: nothing below can fail once the counters are raised
+        List<Long> cardIds = cardRepository.findIdsByUserId(userId);
+
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new StreamLimitExceededException("Too many open streams, try again later");
+        }
+        try {
+            connectionsByUser.compute(userId, (id, count) -> {
+                int open = count == null ? 0 : count;
+                if (open >= maxConnectionsPerUser) {
+                    throw new StreamLimitExceededException("Too many open streams for user " + userId);
+                }
+                return open + 1;
+            });
+        } catch (StreamLimitExceededException e) {
+            connections.decrementAndGet();
+            throw e;
+        }
+
+        SseEmitter emitter = new SseEmitter(maxLifetime.toMillis());
+        Subscription subscription = new Subscription(userId, emitter, cardIds);
+
+        subscription.cardIds.forEach(cardId ->
+                subscriptionsByCard.computeIfAbsent(cardId, id -> ConcurrentHashMap.newKeySet()).add(subscription));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+
+        // The client first receives the current state of all its cards
+        subscription.cardIds.forEach(subscription::mark);
+        executor.submit(subscription::run);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        notify(event.cardId());
+    }
+
+    @EventListener
+    public void onOutboxEvent(OutboxEvent event) {
+        if (event.type() == OutboxEventType.TRANSFER) {
+            Map<?, ?> payload = objectMapper.readValue(event.payload(), Map.class);
+            notify(((Number) payload.get("fromCardId")).longValue());
+            notify(((Number) payload.get("toCardId")).longValue());
+        } else if (event.cardId() != null) {
+            notify(event.cardId());
+        }
+    }
+
+    private void notify(Long cardId) {
+        Set<Subscription> subscriptions = subscriptionsByCard.get(cardId);
+        if (subscriptions != null) {
+            subscriptions.forEach(subscription -> subscription.mark(cardId));
+        }
+    }
+
+    private CardStreamEvent snapshot(Long userId, Long cardId) {
+        Card card = cardRepository.findByIdAndUserId(cardId, userId).orElse(null);
+        if (card == null) {
+            return CardStreamEvent.builder()
+                    .cardId(cardId)
+                    .deleted(true)
+                    .build();
+        }
+
+        BigDecimal balance = card.getStripeCount() > 0
+                ? card.getBalance().add(stripedBalanceService.stripedBalance(cardId))
+                : card.getBalance();
+        return CardStreamEvent.builder()
+                .cardId(cardId)
+                .balance(balance)
+                .status(card.getStatus())
+                .build();
+    }
+
+    private final class Subscription {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final List<Long> cardIds;
+        private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+        private final Semaphore signal = new Semaphore(0);
+        private volatile boolean open = true;
+
+        private Subscription(Long userId, SseEmitter emitter, List<Long> cardIds) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.cardIds = cardIds;
+        }
+
+        void mark(Long cardId) {
+            if (pending.add(cardId)) {
+                signal.release();
+            }
+        }
+
+        void run() {
+            long idleSince = System.nanoTime();
+            try {
+                while (open) {
+                    if (!signal.tryAcquire(heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                        if (System.nanoTime() - idleSince >= idleTimeout.toNanos()) {
+                            meterRegistry.counter("card.stream.closed", "reason", "idle").increment();
+                            emitter.complete();
+                            return;
+                        }
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                        continue;
+                    }
+                    signal.drainPermits();
+
+                    for (Long cardId : pending) {
+                        pending.remove(cardId);
+                        emitter.send(SseEmitter.event()
+                                .name("card")
+                                .data(snapshot(userId, cardId)));
+                        meterRegistry.counter("card.stream.sent").increment();
+                    }
+                    idleSince = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Card stream of user {} closed: {}", userId, e.getMessage());
+                emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                log.warn("Card stream of user {} failed", userId, e);
+                emitter.completeWithError(e);
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (!open) {
+                return;
+            }
+            synchronized (this) {
+                if (!open) {
+                    return;
+                }
+                open = false;
+            }
+            signal.release();
+            for (Long cardId : cardIds) {
+                subscriptionsByCard.computeIfPresent(cardId, (id, subscriptions) -> {
+                    subscriptions.remove(this);
+                    return subscriptions.isEmpty() ? null : subscriptions;
+                });
+            }
+            connections.decrementAndGet();
+            connectionsByUser.computeIfPresent(userId, (id, count) -> count <= 1 ? null : count - 1);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CardOwnership;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CurrencyMismatchException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardValidationService;
+import com.example.bankcards.util.LruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+public class CardValidationServiceImpl implements CardValidationService {
+
+    private final CardRepository cardRepository;
+    private final MeterRegistry meterRegistry;
+
+    // Bumped on every invalidation so that a load racing with it does not put the old value back
+    private final AtomicLong generation = new AtomicLong();
+
+    @Value("${transfer.validation-cache.size:100000}")
+    private int cacheSize;
+
+    @Value("${transfer.validation-cache.ttl:PT1M}")
+    private Duration ttl;
+
+    private LruCache<Long, CardOwnership> cards;
+
+    @PostConstruct
+    void init() {
+        cards = new LruCache<>(cacheSize);
+    }
+
+    @Override
+    public void precheck(Long userId, TransferRequest request) {
+        CardOwnership from = ownership(request.getFromCardId());
+        CardOwnership to = ownership(request.getToCardId());
+
+        if (!from.getUserId().equals(userId) || !to.getUserId().equals(userId)) {
+            meterRegistry.counter("transfer.validation.rejected", "reason", "owner").increment();
+            throw new AccessDeniedException(userId);
+        }
+
+        if (from.getStatus() != CardStatus.ACTIVE || to.getStatus() != CardStatus.ACTIVE) {
+            meterRegistry.counter("transfer.validation.rejected", "reason", "status").increment();
+            throw new CardNotActiveException();
+        }
+    }
+
+    @Override
+    public void requireSameCurrency(TransferRequest request) {
+        CardOwnership from = ownership(request.getFromCardId());
+        CardOwnership to = ownership(request.getToCardId());
+
+        if (!Objects.equals(from.getCurrency(), to.getCurrency())) {
+            meterRegistry.counter("transfer.validation.rejected", "reason", "currency").increment();
+            throw new CurrencyMismatchException(from.getCurrency(), to.getCurrency());
+        }
+    }
+
+    @Override
+    public void invalidate(Long cardId) {
+        evict(cardId);
+
+        // Inside a transaction the change is not visible to other loaders until commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(cardId);
+                }
+            });
+        }
+    }
+
+    private CardOwnership ownership(Long cardId) {
+        CardOwnership cached = cards.get(cardId);
+        if (cached != null) {
+            meterRegistry.counter("transfer.validation.cache", "result", "hit").increment();
+            return cached;
+        }
+        meterRegistry.counter("transfer.validation.cache", "result", "miss").increment();
+
+        long loadedAt = generation.get();
+        CardOwnership loaded = cardRepository.findOwnershipById(cardId)
+                .orElseThrow(() -> new CardNotFoundException(cardId));
+
+        synchronized (this) {
+            if (generation.get() == loadedAt) {
+                cards.put(cardId, loaded, System.currentTimeMillis() + ttl.toMillis());
+            }
+        }
+        return loaded;
+    }
+
+    private void evict(Long cardId) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            cards.remove(cardId);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardValidationService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.service.TransferService;
+import com.example.bankcards.service.VelocityLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@ConditionalOnProperty(name = "transfer.engine", havingValue = "conditional")
+public class ConditionalTransferServiceImpl implements TransferService {
+
+    private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VelocityLimitService velocityLimitService;
+    private final CardValidationService cardValidationService;
+
+    @Override
+    public void transfer(Long userId, TransferRequest request) {
+        TransferRules.requirePositive(request.getAmount());
+
+        Long fromId = request.getFromCardId();
+        Long toId = request.getToCardId();
+
+        // The conditional updates move the same amount on both rows, so they cannot convert currencies
+        cardValidationService.requireSameCurrency(request);
+        velocityLimitService.reserve(fromId, request.getAmount());
+
+        // Rows are touched in id order so that opposite transfers cannot deadlock
+        if (fromId <= toId) {
+            debit(userId, request);
+            credit(userId, request);
+        } else {
+            credit(userId, request);
+            debit(userId, request);
+        }
+
+        ledgerService.recordTransfer(request);
+        eventPublisher.publishEvent(new CardChangedEvent(fromId));
+        eventPublisher.publishEvent(new CardChangedEvent(toId));
+    }
+
+    private void debit(Long userId, TransferRequest request) {
+        int updated = cardRepository.debitIfActive(request.getFromCardId(), userId, request.getAmount());
+        if (updated == 0 && cardRepository.findStripeCountById(request.getFromCardId()).orElse(0) > 0
+                && stripedBalanceService.compact(request.getFromCardId()).signum() != 0) {
+            updated = cardRepository.debitIfActive(request.getFromCardId(), userId, request.getAmount());
+        }
+        if (updated == 0) {
+            throw rejection(request.getFromCardId(), userId);
+        }
+    }
+
+    private void credit(Long userId, TransferRequest request) {
+        int updated = cardRepository.creditIfActive(request.getToCardId(), userId, request.getAmount());
+        if (updated == 0) {
+            throw rejection(request.getToCardId(), userId);
+        }
+    }
+
+    private RuntimeException rejection(Long cardId, Long userId) {
+        Card card = cardRepository.findById(cardId).orElse(null);
+
+        if (card == null) {
+            return new CardNotFoundException(cardId);
+        }
+        if (!card.getUser().getId().equals(userId)) {
+            return new AccessDeniedException(userId);
+        }
+        if (card.getStatus() != CardStatus.ACTIVE) {
+            return new CardNotActiveException();
+        }
+        return new InsufficientFundsException();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.exception.card.FxRateNotFoundException;
+import com.example.bankcards.service.FxRateService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FxRateServiceImpl implements FxRateService {
+
+    private static final String LOAD_SQL = "select base_currency, quote_currency, rate from fx_rates";
+    private static final int RATE_SCALE = 8;
+    private static final int AMOUNT_SCALE = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Transfers read whichever snapshot is current without locking; a refresh builds a new map and swaps it in
+    private final AtomicReference<Map<String, BigDecimal>> rates = new AtomicReference<>(Map.of());
+
+    @PostConstruct
+    void init() {
+        refresh();
+    }
+
+    @Override
+    public FxConversion convert(String fromCurrency, String toCurrency, BigDecimal amount) {
+        BigDecimal rate = rates.get().get(key(fromCurrency, toCurrency));
+        if (rate == null) {
+            meterRegistry.counter("fx.rate.missing").increment();
+            throw new FxRateNotFoundException(fromCurrency, toCurrency);
+        }
+
+        BigDecimal credited = amount.multiply(rate).setScale(AMOUNT_SCALE, RoundingMode.HALF_EVEN);
+        return new FxConversion(fromCurrency, toCurrency, rate, credited);
+    }
+
+    @Override
+    public void refresh() {
+        List<Rate> loaded = jdbcTemplate.query(LOAD_SQL, (rs, rowNum) -> new Rate(
+                rs.getString("base_currency"),
+                rs.getString("quote_currency"),
+                rs.getBigDecimal("rate")
+        ));
+
+        Map<String, BigDecimal> direct = new HashMap<>();
+        Map<String, BigDecimal> inverse = new HashMap<>();
+        for (Rate rate : loaded) {
+            if (rate.value().signum() <= 0) {
+                log.warn("Ignoring non-positive rate {} -> {}: {}", rate.base(), rate.quote(), rate.value());
+                continue;
+            }
+            direct.put(key(rate.base(), rate.quote()), rate.value());
+            inverse.put(key(rate.quote(), rate.base()), BigDecimal.ONE.divide(rate.value(), RATE_SCALE, RoundingMode.HALF_EVEN));
+        }
+        // A pair quoted in both directions uses its own rate; otherwise the inverse of the opposite pair
+        inverse.forEach(direct::putIfAbsent);
+
+        rates.set(Map.copyOf(direct));
+        meterRegistry.counter("fx.rate.refresh").increment();
+    }
+
+    private static String key(String fromCurrency, String toCurrency) {
+        return fromCurrency + '/' + toCurrency;
+    }
+
+    private record Rate(String base, String quote, BigDecimal value) {
+    }
+}
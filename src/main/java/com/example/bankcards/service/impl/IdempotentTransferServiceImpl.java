@@ -0,0 +1,222 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.exception.card.IdempotencyKeyReusedException;
+import com.example.bankcards.exception.card.InvalidIdempotencyKeyException;
+import com.example.bankcards.exception.card.ReplayedTransferException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.service.IdempotentTransferService;
+import com.example.bankcards.service.TransferService;
+import com.example.bankcards.util.LruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+
+@Service
+@RequiredArgsConstructor
+public class IdempotentTransferServiceImpl implements IdempotentTransferService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private final TransferService transferService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transfer.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${transfer.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${transfer.lock.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${transfer.lock.backoff-ms:20}")
+    private long backoffMs;
+
+    private LruCache<String, IdempotencyKey> recent;
+
+    @PostConstruct
+    void init() {
+        recent = new LruCache<>(cacheSize);
+    }
+
+    @Override
+    public boolean transfer(Long userId, String idempotencyKey, TransferRequest request) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(MAX_KEY_LENGTH);
+        }
+
+        String requestHash = fingerprint(request);
+        String cacheKey = userId + ":" + idempotencyKey;
+
+        IdempotencyKey cached = recent.get(cacheKey);
+        if (cached != null) {
+            meterRegistry.counter("transfer.idempotency.replays", "source", "memory").increment();
+            replay(cached, requestHash);
+            return true;
+        }
+
+        IdempotencyKey stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .filter(k -> k.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElse(null);
+        if (stored != null) {
+            remember(cacheKey, stored);
+            meterRegistry.counter("transfer.idempotency.replays", "source", "database").increment();
+            replay(stored, requestHash);
+            return true;
+        }
+
+        IdempotencyKey outcome;
+        try {
+            outcome = executeOnce(userId, idempotencyKey, requestHash, request);
+        } catch (ApiException e) {
+            // The claim rolled back with the transfer, so a transient failure leaves the key free for the retry
+            if (isFinal(e)) {
+                rememberRejection(cacheKey, userId, idempotencyKey, requestHash, e);
+            }
+            throw e;
+        }
+
+        if (outcome == null) {
+            IdempotencyKey winner = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .orElseThrow(() -> new IllegalStateException("Idempotency key vanished: " + idempotencyKey));
+            remember(cacheKey, winner);
+            replay(winner, requestHash);
+            return true;
+        }
+
+        remember(cacheKey, outcome);
+        return false;
+    }
+
+    private IdempotencyKey executeOnce(Long userId, String idempotencyKey, String requestHash,
+                                       TransferRequest request) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    IdempotencyKey key = newKey(userId, idempotencyKey, requestHash, HttpStatus.OK.value(), null);
+
+                    if (claim(key) == 0) {
+                        status.setRollbackOnly();
+                        return null;
+                    }
+
+                    // Must join this transaction: the partitioned engine switches to conditional updates here
+                    transferService.transfer(userId, request);
+                    return key;
+                });
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                meterRegistry.counter("transfer.lock.retries").increment();
+                sleep(backoffMs * attempt, e);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Business rejections answer the same way on every retry. 429 and 5xx say "try again later" and must not
+     * be stored as the key's outcome.
+     */
+    private boolean isFinal(ApiException rejection) {
+        HttpStatus status = rejection.getStatus();
+        return status.is4xxClientError() && status != HttpStatus.TOO_MANY_REQUESTS;
+    }
+
+    private void rememberRejection(String cacheKey, Long userId, String idempotencyKey, String requestHash,
+                                   ApiException rejection) {
+        String message = rejection.getMessage();
+        if (message != null && message.length() > MAX_MESSAGE_LENGTH) {
+            message = message.substring(0, MAX_MESSAGE_LENGTH);
+        }
+        IdempotencyKey key = newKey(userId, idempotencyKey, requestHash, rejection.getStatus().value(), message);
+
+        Integer claimed = transactionTemplate.execute(status -> claim(key));
+        if (claimed != null && claimed > 0) {
+            remember(cacheKey, key);
+        }
+    }
+
+    private int claim(IdempotencyKey key) {
+        return idempotencyKeyRepository.claim(
+                key.getUserId(),
+                key.getIdempotencyKey(),
+                key.getRequestHash(),
+                key.getResponseStatus(),
+                key.getResponseMessage(),
+                key.getCreatedAt(),
+                key.getExpiresAt()
+        );
+    }
+
+    private IdempotencyKey newKey(Long userId, String idempotencyKey, String requestHash,
+                                  int status, String message) {
+        LocalDateTime now = LocalDateTime.now();
+        return IdempotencyKey.builder()
+                .userId(userId)
+                .idempotencyKey(idempotencyKey)
+                .requestHash(requestHash)
+                .responseStatus(status)
+                .responseMessage(message)
+                .createdAt(now)
+                .expiresAt(now.plus(ttl))
+                .build();
+    }
+
+    private void remember(String cacheKey, IdempotencyKey key) {
+        long expiresAtMillis = key.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        recent.put(cacheKey, key, expiresAtMillis);
+    }
+
+    private void replay(IdempotencyKey key, String requestHash) {
+        if (!key.getRequestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(key.getIdempotencyKey());
+        }
+
+        HttpStatus status = HttpStatus.valueOf(key.getResponseStatus());
+        if (!status.is2xxSuccessful()) {
+            throw new ReplayedTransferException(key.getResponseMessage(), status);
+        }
+    }
+
+    private String fingerprint(TransferRequest request) {
+        String amount = request.getAmount() == null ? "" : request.getAmount().stripTrailingZeros().toPlainString();
+        String canonical = request.getFromCardId() + "|" + request.getToCardId() + "|" + amount;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void sleep(long millis, PessimisticLockingFailureException cause) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.KeyRotationStatusDto;
+import com.example.bankcards.exception.card.InvalidRotationRateException;
+import com.example.bankcards.service.KeyRotationService;
+import com.example.bankcards.util.EncryptedCardNumber;
+import com.example.bankcards.util.EnvelopeCryptoService;
+import com.example.bankcards.util.KeyService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KeyRotationServiceImpl implements KeyRotationService {
+
+    private static final String START_SQL = """
+            insert into card_key_rotations (target_key_id, last_card_id, rotated, conflicts, started_at, updated_at)
+            values (?, 0, 0, 0, now(), now())
+            on conflict (target_key_id) do nothing
+            """;
+
+    // skip locked: a second instance backs off instead of queueing behind the one holding the checkpoint
+    private static final String CLAIM_SQL = """
+            select last_card_id
+            from card_key_rotations
+            where target_key_id = ? and completed_at is null
+            for update skip locked
+            """;
+
+    // Cards without a blind index are still on AES/ECB and belong to the re-encryption job
+    private static final String CHUNK_SQL = """
+            select id, card_number_encrypted, key_id, wrapped_key
+            from cards
+            where id > ? and card_number_hash is not null and key_id is distinct from ?
+            order by id
+            limit ?
+            """;
+
+    // The old ciphertext in the guard makes a row written by anyone else since the read a no-op
+    private static final String UPDATE_SQL = """
+            update cards
+            set card_number_encrypted = ?, key_id = ?, wrapped_key = ?
+            where id = ? and card_number_encrypted = ?
+            """;
+
+    private static final String CHECKPOINT_SQL = """
+            update card_key_rotations
+            set last_card_id = ?, rotated = rotated + ?, conflicts = conflicts + ?, updated_at = now()
+            where target_key_id = ?
+            """;
+
+    private static final String COMPLETE_SQL = """
+            update card_key_rotations
+            set completed_at = now(), updated_at = now()
+            where target_key_id = ?
+            """;
+
+    private static final String STATUS_SQL = """
+            select last_card_id, rotated, conflicts, started_at, updated_at, completed_at
+            from card_key_rotations
+            where target_key_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KeyService keyService;
+    private final EnvelopeCryptoService envelopeCryptoService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${card.key-rotation.parallelism:2}")
+    private int parallelism;
+
+    @Value("${card.key-rotation.rows-per-second:1000}")
+    private int initialRowsPerSecond;
+
+    @Value("${card.key-rotation.max-rows-per-second:50000}")
+    private int maxRowsPerSecond;
+
+    private final AtomicInteger rowsPerSecond = new AtomicInteger();
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        rowsPerSecond.set(initialRowsPerSecond);
+        executor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("key-rotation-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public int rotateChunk(int limit) {
+        String targetKeyId = keyService.activeKeyId();
+
+        Integer examined = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(START_SQL, targetKeyId);
+            List<Long> checkpoint = jdbcTemplate.queryForList(CLAIM_SQL, Long.class, targetKeyId);
+            if (checkpoint.isEmpty()) {
+                return 0;
+            }
+
+            long lastCardId = checkpoint.get(0);
+            List<StoredCard> chunk = readChunk(lastCardId, targetKeyId, limit);
+            if (chunk.isEmpty() && lastCardId > 0) {
+                // Conflicting rows were skipped and cards may have been written behind the walk with an old key,
+                // so the rotation only completes once a pass from the first card finds nothing left
+                chunk = readChunk(0, targetKeyId, limit);
+                if (!chunk.isEmpty()) {
+                    log.info("Cards under an old master key remain, restarting rotation to {} from the first card",
+                            targetKeyId);
+                }
+            }
+            if (chunk.isEmpty()) {
+                jdbcTemplate.update(COMPLETE_SQL, targetKeyId);
+                log.info("Card numbers rotated to master key {}", targetKeyId);
+                return 0;
+            }
+
+            List<EncryptedCardNumber> rotated = reencrypt(chunk);
+            List<Object[]> updates = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                updates.add(new Object[]{
+                        rotated.get(i).ciphertext(),
+                        rotated.get(i).keyId(),
+                        rotated.get(i).wrappedKey(),
+                        chunk.get(i).id(),
+                        chunk.get(i).encrypted().ciphertext()
+                });
+            }
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+
+            int conflicts = 0;
+            for (int count : counts) {
+                if (count == 0) {
+                    conflicts++;
+                }
+            }
+            int written = chunk.size() - conflicts;
+            jdbcTemplate.update(CHECKPOINT_SQL, chunk.get(chunk.size() - 1).id(), written, conflicts, targetKeyId);
+
+            meterRegistry.counter("card.key-rotation.rows", "result", "rotated").increment(written);
+            meterRegistry.counter("card.key-rotation.rows", "result", "conflict").increment(conflicts);
+            return chunk.size();
+        });
+
+        return examined == null ? 0 : examined;
+    }
+
+    @Override
+    public KeyRotationStatusDto status() {
+        String targetKeyId = keyService.activeKeyId();
+        List<KeyRotationStatusDto> rows = jdbcTemplate.query(STATUS_SQL,
+                (rs, rowNum) -> KeyRotationStatusDto.builder()
+                        .targetKeyId(targetKeyId)
+                        .lastCardId(rs.getLong("last_card_id"))
+                        .rotated(rs.getLong("rotated"))
+                        .conflicts(rs.getLong("conflicts"))
+                        .rowsPerSecond(rowsPerSecond.get())
+                        .startedAt(toLocalDateTime(rs.getTimestamp("started_at")))
+                        .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+                        .completedAt(toLocalDateTime(rs.getTimestamp("completed_at")))
+                        .build(),
+                targetKeyId);
+        if (!rows.isEmpty()) {
+            return rows.get(0);
+        }
+        return KeyRotationStatusDto.builder()
+                .targetKeyId(targetKeyId)
+                .lastCardId(0L)
+                .rotated(0L)
+                .conflicts(0L)
+                .rowsPerSecond(rowsPerSecond.get())
+                .build();
+    }
+
+    @Override
+    public int rateLimit() {
+        return rowsPerSecond.get();
+    }
+
+    @Override
+    public KeyRotationStatusDto setRateLimit(int rowsPerSecond) {
+        if (rowsPerSecond < 0 || rowsPerSecond > maxRowsPerSecond) {
+            throw new InvalidRotationRateException(rowsPerSecond, maxRowsPerSecond);
+        }
+        int previous = this.rowsPerSecond.getAndSet(rowsPerSecond);
+        log.info("Key rotation rate changed from {} to {} rows per second", previous, rowsPerSecond);
+        return status();
+    }
+
+    /**
+     * Decrypts and re-encrypts the chunk in slices on the rotation pool. The pool is sized well below the
+     * request threads so a large chunk never takes every core away from live traffic.
+     */
+    private List<EncryptedCardNumber> reencrypt(List<StoredCard> chunk) {
+        int slice = Math.ceilDiv(chunk.size(), parallelism);
+        List<Future<List<EncryptedCardNumber>>> futures = new ArrayList<>(parallelism);
+        for (int from = 0; from < chunk.size(); from += slice) {
+            List<StoredCard> cards = chunk.subList(from, Math.min(from + slice, chunk.size()));
+            futures.add(executor.submit(() -> envelopeCryptoService.encryptAll(
+                    envelopeCryptoService.decryptAll(cards.stream().map(StoredCard::encrypted).toList()))));
+        }
+
+        List<EncryptedCardNumber> result = new ArrayList<>(chunk.size());
+        try {
+            for (Future<List<EncryptedCardNumber>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Key rotation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Key rotation failed", e.getCause());
+        }
+        return result;
+    }
+
+    private List<StoredCard> readChunk(long afterCardId, String targetKeyId, int limit) {
+        return jdbcTemplate.query(CHUNK_SQL,
+                (rs, rowNum) -> new StoredCard(rs.getLong("id"), EncryptedCardNumber.of(
+                        rs.getString("card_number_encrypted"), rs.getString("key_id"), rs.getString("wrapped_key"))),
+                afterCardId, targetKeyId, limit);
+    }
+
+    private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private record StoredCard(long id, EncryptedCardNumber encrypted) {
+    }
+}
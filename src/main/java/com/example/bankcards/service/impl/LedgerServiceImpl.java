@@ -0,0 +1,139 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.entity.LedgerReason;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.OutboxService;
+import com.example.bankcards.service.TransferHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    private static final String INSERT_SQL = """
+            insert into ledger_entries (tx_id, card_id, entry_type, amount, reason, created_at)
+            values (?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransferHistoryService transferHistoryService;
+    private final OutboxService outboxService;
+
+    @Value("${ledger.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void recordTransfer(TransferRequest transfer) {
+        record(transferEntries(transfer));
+        transferHistoryService.record(List.of(transfer));
+        outboxService.recordTransfers(List.of(transfer));
+    }
+
+    @Override
+    public void recordTransfer(TransferRequest transfer, FxConversion conversion) {
+        // Each side is entered in its own card's currency, so per-card ledger sums still match the balances
+        record(pair(transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount(),
+                conversion.getCreditedAmount(), LedgerReason.TRANSFER));
+        transferHistoryService.record(transfer, conversion);
+        outboxService.recordTransfer(transfer, conversion);
+    }
+
+    @Override
+    public void recordTransfers(List<TransferRequest> transfers) {
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        for (TransferRequest transfer : transfers) {
+            entries.addAll(transferEntries(transfer));
+        }
+        record(entries);
+        transferHistoryService.record(transfers);
+        outboxService.recordTransfers(transfers);
+    }
+
+    @Override
+    public void recordAdjustment(Long cardId, BigDecimal delta) {
+        record(adjustmentEntries(cardId, delta));
+    }
+
+    @Override
+    public List<LedgerEntry> transferEntries(TransferRequest transfer) {
+        BigDecimal amount = transfer.getAmount();
+        if (amount.signum() == 0) {
+            return List.of();
+        }
+        Long debited = amount.signum() > 0 ? transfer.getFromCardId() : transfer.getToCardId();
+        Long credited = amount.signum() > 0 ? transfer.getToCardId() : transfer.getFromCardId();
+
+        return pair(debited, credited, amount.abs(), LedgerReason.TRANSFER);
+    }
+
+    @Override
+    public List<LedgerEntry> adjustmentEntries(Long cardId, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return List.of();
+        }
+        Long debited = delta.signum() > 0 ? null : cardId;
+        Long credited = delta.signum() > 0 ? cardId : null;
+
+        return pair(debited, credited, delta.abs(), LedgerReason.ADJUSTMENT);
+    }
+
+    @Override
+    public void record(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, batchSize, (ps, entry) -> {
+            ps.setObject(1, entry.getTxId());
+            ps.setObject(2, entry.getCardId(), Types.BIGINT);
+            ps.setString(3, entry.getEntryType().name());
+            ps.setBigDecimal(4, entry.getAmount());
+            ps.setString(5, entry.getReason().name());
+            ps.setTimestamp(6, Timestamp.valueOf(entry.getCreatedAt()));
+        });
+    }
+
+    private List<LedgerEntry> pair(Long debitedCardId, Long creditedCardId, BigDecimal amount, LedgerReason reason) {
+        return pair(debitedCardId, creditedCardId, amount, amount, reason);
+    }
+
+    private List<LedgerEntry> pair(Long debitedCardId, Long creditedCardId, BigDecimal debited, BigDecimal credited,
+                                   LedgerReason reason) {
+        UUID txId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+
+        return List.of(
+                LedgerEntry.builder()
+                        .txId(txId)
+                        .cardId(debitedCardId)
+                        .entryType(LedgerEntryType.DEBIT)
+                        .amount(debited)
+                        .reason(reason)
+                        .createdAt(now)
+                        .build(),
+                LedgerEntry.builder()
+                        .txId(txId)
+                        .cardId(creditedCardId)
+                        .entryType(LedgerEntryType.CREDIT)
+                        .amount(credited)
+                        .reason(reason)
+                        .createdAt(now)
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.BalanceAdjustment;
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.event.OutboxEventType;
+import com.example.bankcards.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private static final String INSERT_SQL = """
+            insert into outbox_events (event_type, card_id, payload, created_at)
+            values (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ledger.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void record(OutboxEventType type, Long cardId, Map<String, Object> payload) {
+        if (!enabled) {
+            return;
+        }
+        insert(List.of(new Row(type, cardId, objectMapper.writeValueAsString(payload))));
+    }
+
+    @Override
+    public void recordTransfers(List<TransferRequest> transfers) {
+        if (!enabled || transfers.isEmpty()) {
+            return;
+        }
+
+        List<Row> rows = new ArrayList<>(transfers.size());
+        for (TransferRequest transfer : transfers) {
+            rows.add(new Row(OutboxEventType.TRANSFER, transfer.getFromCardId(),
+                    objectMapper.writeValueAsString(transferPayload(transfer))));
+        }
+        insert(rows);
+    }
+
+    @Override
+    public void recordTransfer(TransferRequest transfer, FxConversion conversion) {
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, Object> payload = transferPayload(transfer);
+        payload.put("fromCurrency", conversion.getFromCurrency());
+        payload.put("toCurrency", conversion.getToCurrency());
+        payload.put("fxRate", conversion.getRate());
+        payload.put("creditedAmount", conversion.getCreditedAmount());
+        insert(List.of(new Row(OutboxEventType.TRANSFER, transfer.getFromCardId(), objectMapper.writeValueAsString(payload))));
+    }
+
+    @Override
+    public void recordAdjustments(List<BalanceAdjustment> adjustments) {
+        if (!enabled || adjustments.isEmpty()) {
+            return;
+        }
+
+        List<Row> rows = new ArrayList<>(adjustments.size());
+        for (BalanceAdjustment adjustment : adjustments) {
+            String payload = objectMapper.writeValueAsString(Map.of("delta", adjustment.getAmount()));
+            rows.add(new Row(OutboxEventType.BALANCE_ADJUSTED, adjustment.getCardId(), payload));
+        }
+        insert(rows);
+    }
+
+    private Map<String, Object> transferPayload(TransferRequest transfer) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("fromCardId", transfer.getFromCardId());
+        payload.put("toCardId", transfer.getToCardId());
+        payload.put("amount", transfer.getAmount());
+        return payload;
+    }
+
+    private void insert(List<Row> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setString(1, row.type().name());
+            ps.setObject(2, row.cardId(), Types.BIGINT);
+            ps.setString(3, row.payload());
+            ps.setTimestamp(4, now);
+        });
+    }
+
+    private record Row(OutboxEventType type, Long cardId, String payload) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardValidationService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.service.TransferService;
+import com.example.bankcards.service.VelocityLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Transfers through {@link TransferPartition}s, which group-commit on their own threads in their own
+ * transactions. Such a commit cannot join a transaction opened by the caller, so a call made inside one, like
+ * the idempotency claim, runs on the conditional updates of {@link ConditionalTransferServiceImpl} in the
+ * caller's transaction instead. The partitions then drop their copies of both cards when it commits.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "transfer.engine", havingValue = "partitioned")
+public class PartitionedTransferServiceImpl implements TransferService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final MeterRegistry meterRegistry;
+    private final VelocityLimitService velocityLimitService;
+    private final CardValidationService cardValidationService;
+    private final CardRepository cardRepository;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${transfer.partitioned.partitions:4}")
+    private int partitionCount;
+
+    @Value("${transfer.partitioned.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${transfer.partitioned.commit-interval-ms:2}")
+    private long commitIntervalMs;
+
+    @Value("${transfer.partitioned.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${transfer.partitioned.max-cards:100000}")
+    private int maxCards;
+
+    @Value("${transfer.partitioned.shutdown-timeout-ms:5000}")
+    private long shutdownTimeoutMs;
+
+    private List<TransferPartition> partitions;
+    private TransferService inTransaction;
+
+    @PostConstruct
+    void start() {
+        inTransaction = new ConditionalTransferServiceImpl(cardRepository, ledgerService, stripedBalanceService,
+                eventPublisher, velocityLimitService, cardValidationService);
+
+        partitions = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            TransferPartition partition = new TransferPartition(i, jdbcTemplate, transactionTemplate,
+                    ledgerService, meterRegistry, maxBatchSize, commitIntervalMs, queueCapacity, maxCards);
+            partitions.add(partition);
+            partition.start();
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (TransferPartition partition : partitions) {
+            partition.stop(shutdownTimeoutMs);
+        }
+    }
+
+    @Override
+    public void transfer(Long userId, TransferRequest request) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            meterRegistry.counter("transfer.partitioned.in-transaction").increment();
+            inTransaction.transfer(userId, request);
+            return;
+        }
+
+        TransferRules.requirePositive(request.getAmount());
+
+        // Partitions commit on their own threads, so the spend is bound to the caller's transaction only if there is one
+        boolean bound = TransactionSynchronizationManager.isSynchronizationActive();
+        cardValidationService.requireSameCurrency(request);
+        velocityLimitService.reserve(request.getFromCardId(), request.getAmount());
+        try {
+            execute(userId, request);
+        } catch (RuntimeException e) {
+            if (!bound) {
+                velocityLimitService.release(request.getFromCardId(), request.getAmount());
+            }
+            throw e;
+        }
+    }
+
+    private void execute(Long userId, TransferRequest request) {
+        TransferPartition source = partitionOf(request.getFromCardId());
+        TransferPartition target = partitionOf(request.getToCardId());
+
+        if (source == target) {
+            await(source.transfer(userId, request));
+            return;
+        }
+
+        await(source.reserve(userId, request.getFromCardId(), request.getAmount()));
+        try {
+            await(target.apply(userId, request));
+        } catch (RuntimeException e) {
+            source.release(request.getFromCardId(), request.getAmount());
+            throw e;
+        }
+        source.confirm(request.getFromCardId(), request.getAmount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        partitionOf(event.cardId()).evict(event.cardId());
+    }
+
+    TransferPartition partitionOf(Long cardId) {
+        return partitions.get(Math.floorMod(Long.hashCode(cardId), partitions.size()));
+    }
+
+    private void await(CompletableFuture<Void> result) {
+        try {
+            result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
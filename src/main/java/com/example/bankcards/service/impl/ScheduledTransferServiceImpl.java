@@ -0,0 +1,244 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.CreateScheduledTransferRequest;
+import com.example.bankcards.dto.card.ScheduledTransferDto;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.ScheduledTransfer;
+import com.example.bankcards.entity.ScheduledTransferStatus;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
+import com.example.bankcards.exception.card.ScheduledTransferNotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.ScheduledTransferService;
+import com.example.bankcards.service.StripedBalanceService;
+import com.example.bankcards.service.VelocityLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ScheduledTransferServiceImpl implements ScheduledTransferService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final VelocityLimitService velocityLimitService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public ScheduledTransferDto create(Long userId, CreateScheduledTransferRequest request) {
+        if (request.getFromCardId() == null || request.getToCardId() == null) {
+            throw new InvalidTransferRequestException("Both fromCardId and toCardId are required");
+        }
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new InvalidTransferRequestException("Transfer amount must be positive");
+        }
+        if (request.getFirstRunAt() == null) {
+            throw new InvalidTransferRequestException("firstRunAt is required");
+        }
+        if (request.getRepeatPeriod() != null) {
+            parsePeriod(request.getRepeatPeriod());
+        }
+        if (!cardRepository.existsByIdAndUserId(request.getFromCardId(), userId)) {
+            throw new CardNotFoundException(request.getFromCardId());
+        }
+        if (!cardRepository.existsByIdAndUserId(request.getToCardId(), userId)) {
+            throw new CardNotFoundException(request.getToCardId());
+        }
+
+        ScheduledTransfer transfer = ScheduledTransfer.builder()
+                .userId(userId)
+                .fromCardId(request.getFromCardId())
+                .toCardId(request.getToCardId())
+                .amount(request.getAmount())
+                .repeatPeriod(request.getRepeatPeriod())
+                .firstRunAt(request.getFirstRunAt())
+                .nextRunAt(request.getFirstRunAt())
+                .occurrence(0)
+                .status(ScheduledTransferStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        return toDto(scheduledTransferRepository.save(transfer));
+    }
+
+    @Override
+    public Page<ScheduledTransferDto> getByUser(Long userId, Pageable pageable) {
+        return scheduledTransferRepository.findAllByUserId(userId, pageable)
+                .map(this::toDto);
+    }
+
+    @Override
+    public void cancel(Long userId, Long scheduledTransferId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ScheduledTransfer transfer = scheduledTransferRepository.findByIdAndUserId(scheduledTransferId, userId)
+                    .orElseThrow(() -> new ScheduledTransferNotFoundException(scheduledTransferId));
+            if (transfer.getStatus() == ScheduledTransferStatus.ACTIVE) {
+                transfer.setStatus(ScheduledTransferStatus.CANCELLED);
+            }
+        });
+    }
+
+    @Override
+    public int runDue(LocalDateTime now, int limit) {
+        Integer processed = transactionTemplate.execute(status -> {
+            List<ScheduledTransfer> claimed = scheduledTransferRepository.claimDue(now, limit);
+            if (claimed.isEmpty()) {
+                return 0;
+            }
+
+            Map<Long, Card> cards = lockCards(claimed);
+            List<TransferRequest> applied = new ArrayList<>(claimed.size());
+
+            for (ScheduledTransfer transfer : claimed) {
+                String outcome;
+                try {
+                    applied.add(execute(transfer, cards));
+                    transfer.setLastError(null);
+                    outcome = "COMPLETED";
+                } catch (ApiException | IllegalArgumentException e) {
+                    transfer.setLastError(truncate(e.getMessage()));
+                    outcome = "REJECTED";
+                }
+
+                meterRegistry.counter("transfer.scheduled.executed", "status", outcome).increment();
+                meterRegistry.timer("transfer.scheduled.lag")
+                        .record(Duration.between(transfer.getNextRunAt(), LocalDateTime.now()));
+
+                transfer.setLastRunAt(now);
+                advance(transfer, now);
+            }
+
+            ledgerService.recordTransfers(applied);
+            publishChanges(applied);
+            return claimed.size();
+        });
+
+        return processed == null ? 0 : processed;
+    }
+
+    /**
+     * Moves the order to its first occurrence after {@code now}. Occurrences are computed from
+     * {@code firstRunAt} rather than from the previous run, so a monthly order started on the 31st
+     * does not drift to the 28th after February; occurrences missed during downtime are skipped.
+     */
+    private void advance(ScheduledTransfer transfer, LocalDateTime now) {
+        if (transfer.getRepeatPeriod() == null) {
+            transfer.setStatus(ScheduledTransferStatus.COMPLETED);
+            return;
+        }
+
+        Period period = parsePeriod(transfer.getRepeatPeriod());
+        int occurrence = transfer.getOccurrence();
+        LocalDateTime next;
+        do {
+            occurrence++;
+            next = transfer.getFirstRunAt().plus(period.multipliedBy(occurrence));
+        } while (!next.isAfter(now));
+
+        transfer.setOccurrence(occurrence);
+        transfer.setNextRunAt(next);
+    }
+
+    private TransferRequest execute(ScheduledTransfer transfer, Map<Long, Card> cards) {
+        Card from = cards.get(transfer.getFromCardId());
+        if (from == null) {
+            throw new CardNotFoundException(transfer.getFromCardId());
+        }
+
+        Card to = cards.get(transfer.getToCardId());
+        if (to == null) {
+            throw new CardNotFoundException(transfer.getToCardId());
+        }
+
+        TransferRules.check(transfer.getUserId(), from, to, transfer.getAmount());
+        velocityLimitService.reserve(from.getId(), transfer.getAmount());
+        TransferRules.apply(transfer.getUserId(), from, to, transfer.getAmount());
+        return new TransferRequest(transfer.getFromCardId(), transfer.getToCardId(), transfer.getAmount());
+    }
+
+    private Map<Long, Card> lockCards(List<ScheduledTransfer> transfers) {
+        Set<Long> ids = new TreeSet<>();
+        for (ScheduledTransfer transfer : transfers) {
+            ids.add(transfer.getFromCardId());
+            ids.add(transfer.getToCardId());
+        }
+
+        List<Card> locked = cardRepository.findAllByIdInForUpdate(ids);
+        for (Card card : locked) {
+            if (card.getStripeCount() > 0) {
+                stripedBalanceService.absorb(card);
+            }
+        }
+
+        return locked.stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    private void publishChanges(List<TransferRequest> applied) {
+        Set<Long> changed = new TreeSet<>();
+        for (TransferRequest transfer : applied) {
+            changed.add(transfer.getFromCardId());
+            changed.add(transfer.getToCardId());
+        }
+        changed.forEach(cardId -> eventPublisher.publishEvent(new CardChangedEvent(cardId)));
+    }
+
+    private Period parsePeriod(String value) {
+        Period period;
+        try {
+            period = Period.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new InvalidTransferRequestException("repeatPeriod must be an ISO-8601 period, e.g. P1M");
+        }
+        if (period.isZero() || period.isNegative()) {
+            throw new InvalidTransferRequestException("repeatPeriod must be positive");
+        }
+        return period;
+    }
+
+    private String truncate(String message) {
+        if (message != null && message.length() > MAX_ERROR_LENGTH) {
+            return message.substring(0, MAX_ERROR_LENGTH);
+        }
+        return message;
+    }
+
+    private ScheduledTransferDto toDto(ScheduledTransfer transfer) {
+        return ScheduledTransferDto.builder()
+                .id(transfer.getId())
+                .fromCardId(transfer.getFromCardId())
+                .toCardId(transfer.getToCardId())
+                .amount(transfer.getAmount())
+                .repeatPeriod(transfer.getRepeatPeriod())
+                .nextRunAt(transfer.getNextRunAt())
+                .status(transfer.getStatus())
+                .lastRunAt(transfer.getLastRunAt())
+                .lastError(transfer.getLastError())
+                .createdAt(transfer.getCreatedAt())
+                .build();
+    }
+}
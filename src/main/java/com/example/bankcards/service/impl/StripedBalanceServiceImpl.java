@@ -0,0 +1,160 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InvalidStripeCountException;
+import com.example.bankcards.service.StripedBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+@RequiredArgsConstructor
+public class StripedBalanceServiceImpl implements StripedBalanceService {
+
+    private static final String LOCK_SQL = "select id from cards where id = ? for update";
+
+    // Credits hold the card row FOR SHARE, so they wait for this lock and then see the new stripe_count
+    private static final String SHARE_SQL = "select stripe_count from cards where id = ? for share";
+
+    // Every stripe is locked, zero or not, so no credit can be in flight on a row that configure() deletes
+    private static final String DRAIN_SQL = """
+            with drained as (
+                select stripe, balance
+                from card_balance_stripes
+                where card_id = ?
+                for update
+            ), cleared as (
+                update card_balance_stripes s
+                set balance = 0
+                from drained d
+                where s.card_id = ? and s.stripe = d.stripe and d.balance <> 0
+            )
+            select coalesce(sum(balance), 0) from drained
+            """;
+
+    private static final String ADD_SQL = "update cards set balance = balance + ? where id = ?";
+
+    private static final String CREDIT_SQL =
+            "update card_balance_stripes set balance = balance + ? where card_id = ? and stripe = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${transfer.striping.max-stripes:64}")
+    private int maxStripes;
+
+    @Override
+    public void configure(Long cardId, int stripes) {
+        if (stripes < 0 || stripes > maxStripes) {
+            throw new InvalidStripeCountException(stripes, maxStripes);
+        }
+
+        compact(cardId);
+        jdbcTemplate.update("delete from card_balance_stripes where card_id = ?", cardId);
+
+        List<Object[]> rows = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            rows.add(new Object[]{cardId, stripe});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("insert into card_balance_stripes (card_id, stripe, balance) values (?, ?, 0)", rows);
+        }
+        jdbcTemplate.update("update cards set stripe_count = ? where id = ?", stripes, cardId);
+    }
+
+    @Override
+    public void credit(Long cardId, BigDecimal amount) {
+        List<Integer> stripeCount = jdbcTemplate.queryForList(SHARE_SQL, Integer.class, cardId);
+        if (stripeCount.isEmpty()) {
+            throw new CardNotFoundException(cardId);
+        }
+        if (stripeCount.get(0) == 0) {
+            // Striping was switched off after the caller read the card
+            jdbcTemplate.update(ADD_SQL, amount, cardId);
+            return;
+        }
+
+        int stripe = ThreadLocalRandom.current().nextInt(stripeCount.get(0));
+        if (jdbcTemplate.update(CREDIT_SQL, amount, cardId, stripe) == 0) {
+            throw new IllegalStateException("Stripe " + stripe + " of card " + cardId + " does not exist");
+        }
+    }
+
+    @Override
+    public void absorb(Card card) {
+        if (card.getStripeCount() == 0) {
+            return;
+        }
+        card.setBalance(card.getBalance().add(drain(card.getId())));
+    }
+
+    @Override
+    public BigDecimal compact(Long cardId) {
+        if (jdbcTemplate.queryForList(LOCK_SQL, Long.class, cardId).isEmpty()) {
+            throw new CardNotFoundException(cardId);
+        }
+
+        BigDecimal drained = drain(cardId);
+        if (drained.signum() != 0) {
+            jdbcTemplate.update(ADD_SQL, drained, cardId);
+        }
+        return drained;
+    }
+
+    @Override
+    public BigDecimal stripedBalance(Long cardId) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(balance), 0) from card_balance_stripes where card_id = ?",
+                BigDecimal.class, cardId);
+    }
+
+    @Override
+    public Map<Long, BigDecimal> stripedBalances(Collection<Long> cardIds) {
+        if (cardIds.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(cardIds.size(), "?"));
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        jdbcTemplate.queryForList("""
+                select card_id, sum(balance) as balance
+                from card_balance_stripes
+                where card_id in (%s)
+                group by card_id
+                """.formatted(placeholders), cardIds.toArray())
+                .forEach(row -> balances.put(((Number) row.get("card_id")).longValue(), (BigDecimal) row.get("balance")));
+        return balances;
+    }
+
+    @Override
+    public Map<String, BigDecimal> stripedTotals(Long userId) {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        jdbcTemplate.queryForList("""
+                select c.currency, sum(s.balance) as balance
+                from card_balance_stripes s
+                join cards c on c.id = s.card_id
+                where c.user_id = ?
+                group by c.currency
+                """, userId)
+                .forEach(row -> totals.put((String) row.get("currency"), (BigDecimal) row.get("balance")));
+        return totals;
+    }
+
+    @Override
+    public List<Long> stripedCardIds() {
+        return jdbcTemplate.queryForList("select id from cards where stripe_count > 0 order by id", Long.class);
+    }
+
+    private BigDecimal drain(Long cardId) {
+        return jdbcTemplate.queryForObject(DRAIN_SQL, BigDecimal.class, cardId, cardId);
+    }
+}
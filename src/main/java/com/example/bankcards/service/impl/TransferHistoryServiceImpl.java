@@ -0,0 +1,180 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.*;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InvalidCursorException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.TransferHistoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class TransferHistoryServiceImpl implements TransferHistoryService {
+
+    private static final String INSERT_SQL = """
+            insert into transfers (from_card_id, to_card_id, amount, credited_amount, fx_rate, created_at)
+            values (:fromCardId, :toCardId, :amount, :creditedAmount, :fxRate, :createdAt)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CardRepository cardRepository;
+
+    @Value("${transfer.history.max-limit:200}")
+    private int maxLimit;
+
+    @Override
+    public void record(List<TransferRequest> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource[] rows = transfers.stream()
+                .map(transfer -> new MapSqlParameterSource()
+                        .addValue("fromCardId", transfer.getFromCardId())
+                        .addValue("toCardId", transfer.getToCardId())
+                        .addValue("amount", transfer.getAmount())
+                        .addValue("creditedAmount", null, Types.NUMERIC)
+                        .addValue("fxRate", null, Types.NUMERIC)
+                        .addValue("createdAt", now))
+                .toArray(MapSqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Override
+    public void record(TransferRequest transfer, FxConversion conversion) {
+        jdbcTemplate.update(INSERT_SQL, new MapSqlParameterSource()
+                .addValue("fromCardId", transfer.getFromCardId())
+                .addValue("toCardId", transfer.getToCardId())
+                .addValue("amount", transfer.getAmount())
+                .addValue("creditedAmount", conversion.getCreditedAmount())
+                .addValue("fxRate", conversion.getRate())
+                .addValue("createdAt", LocalDateTime.now()));
+    }
+
+    @Override
+    public TransferHistoryPage getForUser(Long userId, Long cardId, TransferHistoryFilter filter,
+                                          String cursor, int limit) {
+        if (!cardRepository.existsByIdAndUserId(cardId, userId)) {
+            throw new CardNotFoundException(cardId);
+        }
+        return page(cardId, filter, cursor, limit);
+    }
+
+    @Override
+    public TransferHistoryPage getForCard(Long cardId, TransferHistoryFilter filter, String cursor, int limit) {
+        if (!cardRepository.existsById(cardId)) {
+            throw new CardNotFoundException(cardId);
+        }
+        return page(cardId, filter, cursor, limit);
+    }
+
+    private TransferHistoryPage page(Long cardId, TransferHistoryFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxLimit));
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cardId", cardId)
+                .addValue("limit", pageSize + 1);
+
+        StringBuilder predicates = new StringBuilder();
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor position = decode(cursor);
+            predicates.append(" and (created_at, id) < (:cursorAt, :cursorId)");
+            params.addValue("cursorAt", position.createdAt()).addValue("cursorId", position.id());
+        }
+        if (filter.getFrom() != null) {
+            predicates.append(" and created_at >= :from");
+            params.addValue("from", filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            predicates.append(" and created_at < :to");
+            params.addValue("to", filter.getTo());
+        }
+        if (filter.getMinAmount() != null) {
+            predicates.append(" and amount >= :minAmount");
+            params.addValue("minAmount", filter.getMinAmount());
+        }
+        if (filter.getMaxAmount() != null) {
+            predicates.append(" and amount <= :maxAmount");
+            params.addValue("maxAmount", filter.getMaxAmount());
+        }
+
+        // Each branch is an index-only range scan on its (card, created_at, id) index
+        String sql = """
+                (select id, from_card_id, to_card_id, amount, credited_amount, fx_rate, created_at
+                 from transfers
+                 where from_card_id = :cardId%1$s
+                 order by created_at desc, id desc
+                 limit :limit)
+                union all
+                (select id, from_card_id, to_card_id, amount, credited_amount, fx_rate, created_at
+                 from transfers
+                 where to_card_id = :cardId and from_card_id <> :cardId%1$s
+                 order by created_at desc, id desc
+                 limit :limit)
+                order by created_at desc, id desc
+                limit :limit
+                """.formatted(predicates);
+
+        List<TransferHistoryItem> items = new ArrayList<>(jdbcTemplate.query(sql, params, (rs, rowNum) -> {
+            long fromCardId = rs.getLong("from_card_id");
+            return TransferHistoryItem.builder()
+                    .id(rs.getLong("id"))
+                    .fromCardId(fromCardId)
+                    .toCardId(rs.getLong("to_card_id"))
+                    .amount(rs.getBigDecimal("amount"))
+                    .creditedAmount(rs.getBigDecimal("credited_amount"))
+                    .fxRate(rs.getBigDecimal("fx_rate"))
+                    .direction(fromCardId == cardId ? TransferDirection.OUTGOING : TransferDirection.INCOMING)
+                    .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                    .build();
+        }));
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            TransferHistoryItem last = items.get(pageSize - 1);
+            nextCursor = encode(last.getCreatedAt(), last.getId());
+        }
+
+        return TransferHistoryPage.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private String encode(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('_');
+            return new Cursor(
+                    Timestamp.valueOf(LocalDateTime.parse(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    private record Cursor(Timestamp createdAt, long id) {
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.card.TransferEngineOverloadedException;
+import com.example.bankcards.service.LedgerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Single-threaded owner of a slice of cards. Balances of the owned cards live in memory and are changed
+ * only by the partition thread; changes are written to the database in one transaction per batch and
+ * callers are released after that transaction commits.
+ */
+@Slf4j
+final class TransferPartition implements Runnable {
+
+    private static final String STRIPES_SQL =
+            "coalesce((select sum(s.balance) from card_balance_stripes s where s.card_id = c.id), 0)";
+    private static final String LOAD_SQL =
+            "select c.user_id, c.status, c.balance + " + STRIPES_SQL + " as balance from cards c where c.id = ?";
+    private static final String UPDATE_SQL =
+            "update cards c set balance = c.balance + ? where c.id = ? and c.balance + " + STRIPES_SQL + " + ? >= 0";
+    private static final long IDLE_POLL_MS = 100;
+
+    private final int index;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final MeterRegistry meterRegistry;
+    private final int maxBatchSize;
+    private final long commitIntervalNanos;
+    private final int queueCapacity;
+    private final int maxCards;
+
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final LinkedHashMap<Long, CardState> cards = new LinkedHashMap<>(16, 0.75f, true);
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    TransferPartition(int index, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                      LedgerService ledgerService, MeterRegistry meterRegistry,
+                      int maxBatchSize, long commitIntervalMs, int queueCapacity, int maxCards) {
+        this.index = index;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ledgerService = ledgerService;
+        this.meterRegistry = meterRegistry;
+        this.maxBatchSize = maxBatchSize;
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMs);
+        this.queueCapacity = queueCapacity;
+        this.maxCards = maxCards;
+        this.thread = new Thread(this, "transfer-partition-" + index);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop(long timeoutMs) throws InterruptedException {
+        running = false;
+        thread.join(timeoutMs);
+    }
+
+    /**
+     * Transfer between two cards owned by this partition.
+     */
+    CompletableFuture<Void> transfer(Long userId, TransferRequest request) {
+        return submit(batch -> {
+            CardState from = load(request.getFromCardId());
+            CardState to = load(request.getToCardId());
+            BigDecimal amount = request.getAmount();
+
+            if (!from.userId.equals(userId) || !to.userId.equals(userId)) {
+                throw new AccessDeniedException(userId);
+            }
+            if (from.available().compareTo(amount) < 0) {
+                throw new InsufficientFundsException();
+            }
+            if (from.status != CardStatus.ACTIVE || to.status != CardStatus.ACTIVE) {
+                throw new CardNotActiveException();
+            }
+
+            from.balance = from.balance.subtract(amount);
+            to.balance = to.balance.add(amount);
+            batch.change(request.getFromCardId(), amount.negate(), true);
+            batch.change(request.getToCardId(), amount, true);
+            batch.transfers.add(request);
+        }, true);
+    }
+
+    /**
+     * First step of a cross-partition transfer: holds the amount on the source card in memory.
+     * Nothing is written; the hold is either confirmed or released by the caller.
+     */
+    CompletableFuture<Void> reserve(Long userId, Long cardId, BigDecimal amount) {
+        return submit(batch -> {
+            CardState card = load(cardId);
+
+            if (!card.userId.equals(userId)) {
+                throw new AccessDeniedException(userId);
+            }
+            if (card.available().compareTo(amount) < 0) {
+                throw new InsufficientFundsException();
+            }
+            if (card.status != CardStatus.ACTIVE) {
+                throw new CardNotActiveException();
+            }
+
+            card.held = card.held.add(amount);
+        }, false);
+    }
+
+    /**
+     * Second step of a cross-partition transfer: credits the target card and commits both sides
+     * together with the ledger entries. The source card must already hold the amount.
+     */
+    CompletableFuture<Void> apply(Long userId, TransferRequest request) {
+        return submit(batch -> {
+            CardState to = load(request.getToCardId());
+            BigDecimal amount = request.getAmount();
+
+            if (!to.userId.equals(userId)) {
+                throw new AccessDeniedException(userId);
+            }
+            if (to.status != CardStatus.ACTIVE) {
+                throw new CardNotActiveException();
+            }
+
+            to.balance = to.balance.add(amount);
+            batch.change(request.getToCardId(), amount, true);
+            batch.change(request.getFromCardId(), amount.negate(), false);
+            batch.transfers.add(request);
+        }, true);
+    }
+
+    void confirm(Long cardId, BigDecimal amount) {
+        settle(cardId, card -> {
+            card.balance = card.balance.subtract(amount);
+            card.held = card.held.subtract(amount);
+        });
+    }
+
+    void release(Long cardId, BigDecimal amount) {
+        settle(cardId, card -> card.held = card.held.subtract(amount));
+    }
+
+    void evict(Long cardId) {
+        queue.add(new Command(batch -> {
+            if (batch.local.containsKey(cardId)) {
+                batch.evictions.add(cardId);
+            } else {
+                evictNow(cardId);
+            }
+        }, null, false));
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Command first;
+            try {
+                first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            Batch batch = new Batch();
+            handle(first, batch);
+            collect(batch);
+            commit(batch);
+        }
+
+        Command left;
+        while ((left = queue.poll()) != null) {
+            if (left.result() != null) {
+                left.result().completeExceptionally(stopped());
+            }
+        }
+    }
+
+    private void collect(Batch batch) {
+        long deadline = System.nanoTime() + commitIntervalNanos;
+        while (batch.commands < maxBatchSize) {
+            Command next = queue.poll();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                try {
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    return;
+                }
+                if (next == null) {
+                    return;
+                }
+            }
+            handle(next, batch);
+        }
+    }
+
+    private void handle(Command command, Batch batch) {
+        batch.commands++;
+        try {
+            command.action().accept(batch);
+        } catch (RuntimeException e) {
+            if (command.result() != null) {
+                command.result().completeExceptionally(e);
+            } else {
+                log.error("Transfer partition {} failed to apply a command", index, e);
+            }
+            return;
+        }
+
+        if (command.result() == null) {
+            return;
+        }
+        if (command.durable()) {
+            batch.waiting.add(command.result());
+        } else {
+            command.result().complete(null);
+        }
+    }
+
+    private void commit(Batch batch) {
+        if (!batch.deltas.isEmpty() || !batch.transfers.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.execute(status -> {
+                    writeBalances(batch.deltas);
+                    ledgerService.recordTransfers(batch.transfers);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.warn("Transfer partition {} failed to commit {} transfers", index, batch.waiting.size(), e);
+                batch.local.forEach((cardId, delta) -> {
+                    CardState card = cards.get(cardId);
+                    if (card != null) {
+                        card.balance = card.balance.subtract(delta);
+                    }
+                });
+                batch.evictions.addAll(batch.local.keySet());
+                applyEvictions(batch.evictions);
+                batch.waiting.forEach(result -> result.completeExceptionally(e));
+                return;
+            }
+            meterRegistry.timer("transfer.partition.commit")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.summary("transfer.partition.batch.size").record(batch.waiting.size());
+        }
+
+        applyEvictions(batch.evictions);
+        trim();
+        batch.waiting.forEach(result -> result.complete(null));
+    }
+
+    private void writeBalances(Map<Long, BigDecimal> deltas) {
+        List<Long> ids = new ArrayList<>(deltas.size());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((cardId, delta) -> {
+            if (delta.signum() != 0) {
+                ids.add(cardId);
+                args.add(new Object[]{delta, cardId, delta});
+            }
+        });
+        if (args.isEmpty()) {
+            return;
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new IllegalStateException("Balance of card " + ids.get(i) + " was changed outside the transfer engine");
+            }
+        }
+    }
+
+    private CardState load(Long cardId) {
+        CardState card = cards.get(cardId);
+        if (card != null) {
+            return card;
+        }
+
+        List<CardState> found = jdbcTemplate.query(LOAD_SQL, (rs, rowNum) -> new CardState(
+                rs.getLong("user_id"),
+                CardStatus.valueOf(rs.getString("status")),
+                rs.getBigDecimal("balance")
+        ), cardId);
+        if (found.isEmpty()) {
+            throw new CardNotFoundException(cardId);
+        }
+
+        card = found.get(0);
+        cards.put(cardId, card);
+        return card;
+    }
+
+    private void settle(Long cardId, Consumer<CardState> change) {
+        queue.add(new Command(batch -> {
+            CardState card = cards.get(cardId);
+            if (card == null) {
+                throw new IllegalStateException("Card " + cardId + " has a hold but is not loaded");
+            }
+            change.accept(card);
+            if (card.evictPending && card.held.signum() == 0) {
+                cards.remove(cardId);
+            }
+        }, null, false));
+    }
+
+    private void applyEvictions(Set<Long> evictions) {
+        evictions.forEach(this::evictNow);
+    }
+
+    private void evictNow(Long cardId) {
+        CardState card = cards.get(cardId);
+        if (card == null) {
+            return;
+        }
+        if (card.held.signum() == 0) {
+            cards.remove(cardId);
+        } else {
+            card.evictPending = true;
+        }
+    }
+
+    private void trim() {
+        Iterator<CardState> eldest = cards.values().iterator();
+        while (cards.size() > maxCards && eldest.hasNext()) {
+            if (eldest.next().held.signum() == 0) {
+                eldest.remove();
+            }
+        }
+    }
+
+    private CompletableFuture<Void> submit(Consumer<Batch> action, boolean durable) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(stopped());
+        } else if (queue.size() >= queueCapacity) {
+            result.completeExceptionally(new TransferEngineOverloadedException());
+        } else {
+            queue.add(new Command(action, result, durable));
+        }
+        return result;
+    }
+
+    private IllegalStateException stopped() {
+        return new IllegalStateException("Transfer partition " + index + " is stopped");
+    }
+
+    private record Command(Consumer<Batch> action, CompletableFuture<Void> result, boolean durable) {
+    }
+
+    private static final class CardState {
+        private final Long userId;
+        private final CardStatus status;
+        private BigDecimal balance;
+        private BigDecimal held = BigDecimal.ZERO;
+        private boolean evictPending;
+
+        private CardState(Long userId, CardStatus status, BigDecimal balance) {
+            this.userId = userId;
+            this.status = status;
+            this.balance = balance;
+        }
+
+        private BigDecimal available() {
+            return balance.subtract(held);
+        }
+    }
+
+    private static final class Batch {
+        private final Map<Long, BigDecimal> deltas = new TreeMap<>();
+        private final Map<Long, BigDecimal> local = new HashMap<>();
+        private final List<TransferRequest> transfers = new ArrayList<>();
+        private final List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        private final Set<Long> evictions = new HashSet<>();
+        private int commands;
+
+        private void change(Long cardId, BigDecimal delta, boolean owned) {
+            deltas.merge(cardId, delta, BigDecimal::add);
+            if (owned) {
+                local.merge(cardId, delta, BigDecimal::add);
+            }
+        }
+    }
+}
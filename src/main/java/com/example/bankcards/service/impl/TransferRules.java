@@ -0,0 +1,61 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CurrencyMismatchException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+final class TransferRules {
+
+    private TransferRules() {
+    }
+
+    /**
+     * Checked by every engine before the velocity limit: a zero or negative amount would pass the limit and
+     * then move money the other way.
+     */
+    static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidTransferRequestException("Transfer amount must be positive");
+        }
+    }
+
+    static void check(Long userId, Card from, Card to, BigDecimal amount) {
+        checkConverted(userId, from, to, amount);
+
+        if (!Objects.equals(from.getCurrency(), to.getCurrency())) {
+            throw new CurrencyMismatchException(from.getCurrency(), to.getCurrency());
+        }
+    }
+
+    /**
+     * Same as {@link #check} for a transfer whose amount is converted into the target card's currency.
+     */
+    static void checkConverted(Long userId, Card from, Card to, BigDecimal amount) {
+        if (!from.getUser().getId().equals(userId)
+                || !to.getUser().getId().equals(userId)) {
+            throw new AccessDeniedException(userId);
+        }
+
+        if (from.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException();
+        }
+
+        if (from.getStatus() != CardStatus.ACTIVE || to.getStatus() != CardStatus.ACTIVE) {
+            throw new CardNotActiveException();
+        }
+    }
+
+    static void apply(Long userId, Card from, Card to, BigDecimal amount) {
+        check(userId, from, to, amount);
+
+        from.setBalance(from.getBalance().subtract(amount));
+        to.setBalance(to.getBalance().add(amount));
+    }
+}
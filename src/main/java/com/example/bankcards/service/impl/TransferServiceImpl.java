@@ -1,48 +1,189 @@
 package com.example.bankcards.service.impl;
 
+import com.example.bankcards.dto.card.FxConversion;
 import com.example.bankcards.dto.card.TransferRequest;
 import com.example.bankcards.entity.Card;
-import com.example.bankcards.entity.CardStatus;
-import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.event.CardChangedEvent;
 import com.example.bankcards.exception.card.CardNotFoundException;
-import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardValidationService;
+import com.example.bankcards.service.FxRateService;
+import com.example.bankcards.service.LedgerService;
+import com.example.bankcards.service.StripedBalanceService;
 import com.example.bankcards.service.TransferService;
+import com.example.bankcards.service.VelocityLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
+@ConditionalOnProperty(name = "transfer.engine", havingValue = "entity", matchIfMissing = true)
 public class TransferServiceImpl implements TransferService {
 
     private final CardRepository cardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LedgerService ledgerService;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VelocityLimitService velocityLimitService;
+    private final CardValidationService cardValidationService;
+    private final FxRateService fxRateService;
+
+    @Value("${transfer.lock.enabled:true}")
+    private boolean lockEnabled;
+
+    @Value("${transfer.lock.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${transfer.lock.backoff-ms:20}")
+    private long backoffMs;
 
     @Override
     public void transfer(Long userId, TransferRequest request) {
+        TransferRules.requirePositive(request.getAmount());
 
-        Card from = cardRepository.findById(request.getFromCardId())
-                .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+        // Foreign or inactive cards and cards over their spend limit are turned away before a transaction
+        // is opened; the rules are checked again on the locked rows
+        cardValidationService.precheck(userId, request);
+        velocityLimitService.check(request.getFromCardId(), request.getAmount());
 
-        Card to = cardRepository.findById(request.getToCardId())
-                .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
+        if (!lockEnabled) {
+            transactionTemplate.execute(status -> {
+                velocityLimitService.reserve(request.getFromCardId(), request.getAmount());
 
-        if (!from.getUser().getId().equals(userId)
-                || !to.getUser().getId().equals(userId)) {
-            throw new AccessDeniedException(userId);
+                Card from = cardRepository.findById(request.getFromCardId())
+                        .orElseThrow(() -> new CardNotFoundException(request.getFromCardId()));
+
+                Card to = cardRepository.findById(request.getToCardId())
+                        .orElseThrow(() -> new CardNotFoundException(request.getToCardId()));
+
+                execute(userId, request, from, to);
+                return null;
+            });
+            return;
         }
 
-        if (from.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException();
+        boolean retryable = !TransactionSynchronizationManager.isActualTransactionActive();
+        int attempt = 1;
+        while (true) {
+            try {
+                transactionTemplate.execute(status -> {
+                    velocityLimitService.reserve(request.getFromCardId(), request.getAmount());
+
+                    // Credits to a striped card go to a stripe row, so its card row is read without a lock
+                    boolean stripedTarget = !request.getFromCardId().equals(request.getToCardId())
+                            && cardRepository.findStripeCountById(request.getToCardId()).orElse(0) > 0;
+
+                    Map<Long, Card> cards = stripedTarget
+                            ? lockCards(List.of(request.getFromCardId()))
+                            : lockCards(List.of(request.getFromCardId(), request.getToCardId()));
+
+                    Card from = cards.get(request.getFromCardId());
+                    if (from == null) {
+                        throw new CardNotFoundException(request.getFromCardId());
+                    }
+
+                    Card to = stripedTarget
+                            ? cardRepository.findById(request.getToCardId()).orElse(null)
+                            : cards.get(request.getToCardId());
+                    if (to == null) {
+                        throw new CardNotFoundException(request.getToCardId());
+                    }
+
+                    execute(userId, request, from, to);
+                    return null;
+                });
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (!retryable || attempt >= maxAttempts) {
+                    throw e;
+                }
+                meterRegistry.counter("transfer.lock.retries").increment();
+                log.warn("Transfer {} -> {} lost lock race (attempt {}/{}), retrying",
+                        request.getFromCardId(), request.getToCardId(), attempt, maxAttempts);
+                backoff(attempt, e);
+                attempt++;
+            }
         }
+    }
+
+    private void execute(Long userId, TransferRequest request, Card from, Card to) {
+        BigDecimal amount = request.getAmount();
 
-        if (from.getStatus() != CardStatus.ACTIVE || to.getStatus() != CardStatus.ACTIVE) {
-            throw new IllegalArgumentException("Cannot to transfer when card is not active");
+        if (from.getStripeCount() > 0 && from.getBalance().compareTo(amount) < 0) {
+            stripedBalanceService.absorb(from);
         }
 
-        from.setBalance(from.getBalance().subtract(request.getAmount()));
-        to.setBalance(to.getBalance().add(request.getAmount()));
+        if (!Objects.equals(from.getCurrency(), to.getCurrency())) {
+            TransferRules.checkConverted(userId, from, to, amount);
+            FxConversion conversion = fxRateService.convert(from.getCurrency(), to.getCurrency(), amount);
+            if (conversion.getCreditedAmount().signum() <= 0) {
+                throw new InvalidTransferRequestException("Transfer amount is too small to convert");
+            }
+
+            from.setBalance(from.getBalance().subtract(amount));
+            credit(to, conversion.getCreditedAmount());
+            ledgerService.recordTransfer(request, conversion);
+        } else if (to.getStripeCount() > 0 && from != to) {
+            TransferRules.check(userId, from, to, amount);
+            from.setBalance(from.getBalance().subtract(amount));
+            credit(to, amount);
+            ledgerService.recordTransfer(request);
+        } else {
+            TransferRules.apply(userId, from, to, amount);
+            ledgerService.recordTransfer(request);
+        }
+
+        eventPublisher.publishEvent(new CardChangedEvent(from.getId()));
+        eventPublisher.publishEvent(new CardChangedEvent(to.getId()));
     }
-}
 
+    private void credit(Card to, BigDecimal amount) {
+        if (to.getStripeCount() > 0) {
+            stripedBalanceService.credit(to.getId(), amount);
+        } else {
+            to.setBalance(to.getBalance().add(amount));
+        }
+    }
+
+    private Map<Long, Card> lockCards(List<Long> cardIds) {
+        TreeSet<Long> ids = new TreeSet<>(cardIds);
+
+        long start = System.nanoTime();
+        List<Card> locked = cardRepository.findAllByIdInForUpdate(ids);
+        meterRegistry.timer("transfer.lock.wait")
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return locked.stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    private void backoff(int attempt, PessimisticLockingFailureException cause) {
+        try {
+            Thread.sleep(backoffMs * attempt);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -9,12 +9,14 @@ import com.example.bankcards.exception.user.UserNotFoundException;
 import com.example.bankcards.exception.user.UserWithThisUsernameAlreadyExist;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.PasswordConfig;
+import com.example.bankcards.security.UserVersionService;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +25,7 @@ public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordConfig passwordConfig;
     private final UserMapper userMapper;
+    private final UserVersionService userVersionService;
 
     @Override
     public UserDto create(CreateUserRequest request, UserRole role) {
@@ -56,6 +59,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserDto updateUsername(Long id, ChangeUserUsernameRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
@@ -64,19 +68,25 @@ public class UserServiceImpl implements UserService {
         }
         user.setUsername(request.getUsername());
 
-        return userMapper.toDto(userRepository.save(user));
+        User saved = userRepository.save(user);
+        userVersionService.bump(id);
+        return userMapper.toDto(saved);
     }
 
     @Override
+    @Transactional
     public UserDto updateRole(Long id, ChangeUserRoleRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
         user.setRole(request.getRole());
 
-        return userMapper.toDto(userRepository.save(user));
+        User saved = userRepository.save(user);
+        userVersionService.bump(id);
+        return userMapper.toDto(saved);
     }
 
     @Override
+    @Transactional
     public void updatePassword(Long id, ChangeUserPasswordRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
@@ -93,13 +103,16 @@ public class UserServiceImpl implements UserService {
 
         user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userVersionService.bump(id);
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
         if (!userRepository.existsById(id)) {
             throw new UserNotFoundException(id);
         }
         userRepository.deleteById(id);
+        userVersionService.bump(id);
     }
 }
@@ -0,0 +1,203 @@
+package com.example.bankcards.service.impl;
+
+import com.example.bankcards.exception.card.VelocityLimitExceededException;
+import com.example.bankcards.service.VelocityLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link VelocityWindow} per card in a {@link ConcurrentHashMap}. A reservation adds the amount
+ * first and takes it back if the window then exceeds a limit, so concurrent transfers on one card can
+ * never overshoot it together without any lock. Windows are seeded from {@code card_velocity_buckets} on
+ * startup and written back by {@link #checkpoint()}; counts since the last checkpoint are lost on a crash.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VelocityLimitServiceImpl implements VelocityLimitService {
+
+    private static final String UPSERT_SQL = """
+            insert into card_velocity_buckets (card_id, unit, bucket, amount)
+            values (?, ?, ?, ?)
+            on conflict (card_id, unit, bucket) do update set amount = excluded.amount
+            """;
+
+    private static final String SEED_SQL = """
+            select card_id, unit, bucket, amount
+            from card_velocity_buckets
+            where (unit = 'MINUTE' and bucket > ?) or (unit = 'HOUR' and bucket > ?)
+            """;
+
+    private static final String PURGE_SQL = """
+            delete from card_velocity_buckets
+            where (unit = 'MINUTE' and bucket <= ?) or (unit = 'HOUR' and bucket <= ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, VelocityWindow> windows = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    @Value("${transfer.velocity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transfer.velocity.hourly-limit:0}")
+    private BigDecimal hourlyLimit;
+
+    @Value("${transfer.velocity.daily-limit:0}")
+    private BigDecimal dailyLimit;
+
+    @Value("${ledger.batch-size:500}")
+    private int batchSize;
+
+    private long hourlyLimitMinor;
+    private long dailyLimitMinor;
+
+    @PostConstruct
+    void init() {
+        hourlyLimitMinor = toMinor(hourlyLimit);
+        dailyLimitMinor = toMinor(dailyLimit);
+        meterRegistry.gaugeMapSize("transfer.velocity.cards", Tags.empty(), windows);
+
+        if (!enabled) {
+            return;
+        }
+
+        long minute = currentMinute();
+        jdbcTemplate.query(SEED_SQL, (RowCallbackHandler) rs -> {
+            windows.computeIfAbsent(rs.getLong("card_id"), id -> new VelocityWindow())
+                    .seed("HOUR".equals(rs.getString("unit")), rs.getLong("bucket"), toMinor(rs.getBigDecimal("amount")));
+        }, minute - VelocityWindow.MINUTES, minute / VelocityWindow.MINUTES - VelocityWindow.HOURS);
+
+        log.info("Seeded spend windows of {} cards", windows.size());
+    }
+
+    @Override
+    public void check(Long cardId, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+
+        VelocityWindow window = windows.get(cardId);
+        if (window == null) {
+            window = new VelocityWindow();
+        }
+        verify(cardId, window, currentMinute(), toMinor(amount));
+    }
+
+    @Override
+    public void reserve(Long cardId, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+
+        long minor = toMinor(amount);
+        long minute = currentMinute();
+        VelocityWindow window = windows.computeIfAbsent(cardId, id -> new VelocityWindow());
+
+        window.add(minute, minor);
+        try {
+            verify(cardId, window, minute, 0);
+        } catch (VelocityLimitExceededException e) {
+            window.add(minute, -minor);
+            throw e;
+        }
+        dirty.add(cardId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(cardId, amount);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void release(Long cardId, BigDecimal amount) {
+        if (!enabled) {
+            return;
+        }
+
+        VelocityWindow window = windows.get(cardId);
+        if (window != null) {
+            window.add(currentMinute(), -toMinor(amount));
+            dirty.add(cardId);
+        }
+    }
+
+    @Override
+    public void checkpoint() {
+        if (!enabled) {
+            return;
+        }
+
+        long minute = currentMinute();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long cardId : dirty) {
+            dirty.remove(cardId);
+            VelocityWindow window = windows.get(cardId);
+            if (window == null) {
+                continue;
+            }
+            for (VelocityWindow.Slot slot : window.slots(minute)) {
+                rows.add(new Object[]{
+                        cardId,
+                        slot.hourly() ? "HOUR" : "MINUTE",
+                        slot.epoch(),
+                        BigDecimal.valueOf(slot.amount(), 2)
+                });
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+            }
+        }
+        jdbcTemplate.update(PURGE_SQL, minute - VelocityWindow.MINUTES, minute / VelocityWindow.MINUTES - VelocityWindow.HOURS);
+
+        // A card idle for a full day has nothing left in either window
+        windows.entrySet().removeIf(entry -> entry.getValue().idle(minute) && !dirty.contains(entry.getKey()));
+    }
+
+    private void verify(Long cardId, VelocityWindow window, long minute, long extra) {
+        if (hourlyLimitMinor > 0 && window.hourTotal(minute) + extra > hourlyLimitMinor) {
+            meterRegistry.counter("transfer.velocity.rejected", "window", "hourly").increment();
+            throw new VelocityLimitExceededException(cardId, "hourly");
+        }
+        if (dailyLimitMinor > 0 && window.dayTotal(minute) + extra > dailyLimitMinor) {
+            meterRegistry.counter("transfer.velocity.rejected", "window", "daily").increment();
+            throw new VelocityLimitExceededException(cardId, "daily");
+        }
+    }
+
+    private long currentMinute() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+}
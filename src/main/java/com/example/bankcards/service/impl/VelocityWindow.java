@@ -0,0 +1,111 @@
+package com.example.bankcards.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Spend of one card as two rings of buckets: 60 one-minute buckets for the hourly window and
+ * 24 one-hour buckets for the daily one. A bucket is replaced with CAS when its slot is reused,
+ * so concurrent writers never block each other. Amounts are in minor units.
+ */
+final class VelocityWindow {
+
+    static final int MINUTES = 60;
+    static final int HOURS = 24;
+
+    private final AtomicReferenceArray<Bucket> minutes = new AtomicReferenceArray<>(MINUTES);
+    private final AtomicReferenceArray<Bucket> hours = new AtomicReferenceArray<>(HOURS);
+
+    private volatile long lastMinute;
+
+    void add(long minute, long amount) {
+        bucket(minutes, MINUTES, minute).addAndGet(amount);
+        bucket(hours, HOURS, minute / MINUTES).addAndGet(amount);
+        if (minute > lastMinute) {
+            lastMinute = minute;
+        }
+    }
+
+    void seed(boolean hourly, long epoch, long amount) {
+        if (hourly) {
+            bucket(hours, HOURS, epoch).addAndGet(amount);
+        } else {
+            bucket(minutes, MINUTES, epoch).addAndGet(amount);
+            if (epoch > lastMinute) {
+                lastMinute = epoch;
+            }
+        }
+    }
+
+    long hourTotal(long minute) {
+        return total(minutes, minute - MINUTES);
+    }
+
+    long dayTotal(long minute) {
+        return total(hours, minute / MINUTES - HOURS);
+    }
+
+    boolean idle(long minute) {
+        return lastMinute <= minute - (long) MINUTES * HOURS;
+    }
+
+    List<Slot> slots(long minute) {
+        List<Slot> slots = new ArrayList<>(MINUTES + HOURS);
+        collect(minutes, minute - MINUTES, false, slots);
+        collect(hours, minute / MINUTES - HOURS, true, slots);
+        return slots;
+    }
+
+    private static AtomicLong bucket(AtomicReferenceArray<Bucket> ring, int size, long epoch) {
+        int index = (int) Math.floorMod(epoch, (long) size);
+        while (true) {
+            Bucket current = ring.get(index);
+            if (current != null && current.epoch == epoch) {
+                return current.amount;
+            }
+            if (current != null && current.epoch > epoch) {
+                // The slot already moved on, the amount belongs to a window that has passed
+                return new AtomicLong();
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (ring.compareAndSet(index, current, fresh)) {
+                return fresh.amount;
+            }
+        }
+    }
+
+    private static long total(AtomicReferenceArray<Bucket> ring, long expiredEpoch) {
+        long total = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch > expiredEpoch) {
+                total += bucket.amount.get();
+            }
+        }
+        return total;
+    }
+
+    private static void collect(AtomicReferenceArray<Bucket> ring, long expiredEpoch, boolean hourly, List<Slot> slots) {
+        for (int i = 0; i < ring.length(); i++) {
+            Bucket bucket = ring.get(i);
+            if (bucket != null && bucket.epoch > expiredEpoch) {
+                slots.add(new Slot(hourly, bucket.epoch, bucket.amount.get()));
+            }
+        }
+    }
+
+    record Slot(boolean hourly, long epoch, long amount) {
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+        private final AtomicLong amount = new AtomicLong();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * AES-GCM with a random 96-bit IV, encoded as Base64 of {@code iv || ciphertext || tag}.
+ * The key is passed per call, so one pool of ciphers serves any number of keys.
+ */
+final class AesGcm {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final int TAG_LENGTH = TAG_LENGTH_BITS / 8;
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
+    private final CipherPool ciphers = new CipherPool(TRANSFORMATION);
+    private final SecureRandom random = new SecureRandom();
+
+    Cipher borrow() {
+        return ciphers.borrow();
+    }
+
+    void release(Cipher cipher) {
+        ciphers.release(cipher);
+    }
+
+    String encrypt(Cipher cipher, SecretKey key, String value, Buffers buffers) throws GeneralSecurityException {
+        ByteBuffer plain = buffers.encode(value);
+
+        // IV, ciphertext and tag go straight into the array that gets Base64-encoded
+        byte[] payload = new byte[IV_LENGTH + plain.remaining() + TAG_LENGTH];
+        byte[] iv = buffers.iv();
+        random.nextBytes(iv);
+        System.arraycopy(iv, 0, payload, 0, IV_LENGTH);
+
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+        cipher.doFinal(plain.array(), 0, plain.remaining(), payload, IV_LENGTH);
+        return Base64.getEncoder().encodeToString(payload);
+    }
+
+    String decrypt(Cipher cipher, SecretKey key, String encoded, Buffers buffers) throws GeneralSecurityException {
+        byte[] payload = Base64.getDecoder().decode(encoded);
+
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, payload, 0, IV_LENGTH));
+        byte[] out = buffers.output(cipher.getOutputSize(payload.length - IV_LENGTH));
+        int length = cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH, out, 0);
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Scratch space reused across the values of one call. Everything is allocated on first use and
+     * grown only when a longer value comes along.
+     */
+    static final class Buffers {
+
+        private CharsetEncoder encoder;
+        private ByteBuffer plain;
+        private byte[] iv;
+        private byte[] out;
+
+        ByteBuffer encode(String value) {
+            if (encoder == null) {
+                encoder = StandardCharsets.UTF_8.newEncoder();
+            }
+            int maxLength = (int) Math.ceil(value.length() * (double) encoder.maxBytesPerChar());
+            if (plain == null || plain.capacity() < maxLength) {
+                plain = ByteBuffer.allocate(Math.max(maxLength, INITIAL_BUFFER_SIZE));
+            }
+            plain.clear();
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(value), plain, true);
+            encoder.flush(plain);
+            return plain.flip();
+        }
+
+        byte[] iv() {
+            if (iv == null) {
+                iv = new byte[IV_LENGTH];
+            }
+            return iv;
+        }
+
+        byte[] output(int size) {
+            if (out == null || out.length < size) {
+                out = new byte[Math.max(size, INITIAL_BUFFER_SIZE)];
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bankcards.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * Keyed HMAC-SHA256 of a card number, stored next to the ciphertext so cards can be found by number
+ * without deterministic encryption. The key is separate from the encryption key: leaking one does not
+ * give away the other.
+ */
+@Service
+public class BlindIndexService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;
+
+    private final SecretKeySpec key;
+
+    public BlindIndexService(@Value("${crypto.hmac.secret-key}") String secretKey) {
+        byte[] bytes = secretKey.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Invalid HMAC key length: " + bytes.length + " bytes. Must be at least " + MIN_KEY_LENGTH + " bytes."
+            );
+        }
+        this.key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    public String index(String cardNumber) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] digest = mac.doFinal(normalize(cardNumber).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("Blind index error", e);
+        }
+    }
+
+    private String normalize(String cardNumber) {
+        return cardNumber.replaceAll("[\\s-]", "");
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bankcards.util;
+
+import javax.crypto.Cipher;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Idle ciphers of one transformation. A borrower that finds the pool empty creates a new cipher;
+ * a returned cipher beyond the capacity is dropped. The pool is not tied to threads, so it holds up on
+ * virtual threads, where a {@code ThreadLocal} cipher would be created for every short-lived thread.
+ */
+final class CipherPool {
+
+    private final String transformation;
+    private final BlockingQueue<Cipher> idle;
+
+    CipherPool(String transformation) {
+        this.transformation = transformation;
+        this.idle = new ArrayBlockingQueue<>(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    Cipher borrow() {
+        Cipher cipher = idle.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cipher " + transformation + " is not available", e);
+        }
+    }
+
+    void release(Cipher cipher) {
+        idle.offer(cipher);
+    }
+}
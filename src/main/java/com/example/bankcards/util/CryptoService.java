@@ -6,45 +6,137 @@ import org.springframework.stereotype.Service;
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
+/**
+ * Encryption under the single static key {@code crypto.aes.secret-key}: AES-GCM values prefixed with
+ * {@code v2:} and the older unprefixed AES/ECB values. New card numbers go through
+ * {@link EnvelopeCryptoService}; this service keeps reading the static-key formats.
+ * <p>
+ * The key is decoded once and {@link Cipher} instances are borrowed from a pool instead of being looked up
+ * per call. {@link #encryptAll} and {@link #decryptAll} hold one cipher and one set of buffers for the whole batch.
+ */
 @Service
 public class CryptoService {
 
-    @Value("${crypto.aes.secret-key}")
-    private String secretKey;
-
     private static final String ALGORITHM = "AES";
+    private static final String GCM_PREFIX = "v2:";
+
+    private final SecretKeySpec key;
+    private final AesGcm gcm = new AesGcm();
+    private final CipherPool legacyCiphers = new CipherPool(ALGORITHM);
 
-    private SecretKeySpec getKey() {
-        byte[] key = secretKey.getBytes(StandardCharsets.UTF_8);
-        if (key.length != 16 && key.length != 24 && key.length != 32) {
+    public CryptoService(@Value("${crypto.aes.secret-key}") String secretKey) {
+        byte[] bytes = secretKey.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
             throw new IllegalArgumentException(
-                    "Invalid AES key length: " + key.length + " bytes. Must be 16, 24, or 32 bytes."
+                    "Invalid AES key length: " + bytes.length + " bytes. Must be 16, 24, or 32 bytes."
             );
         }
-        return new SecretKeySpec(key, ALGORITHM);
+        this.key = new SecretKeySpec(bytes, ALGORITHM);
     }
 
+    /**
+     * Encrypts with AES-GCM under a fresh random IV, so equal values never produce equal ciphertexts.
+     * Use {@link BlindIndexService} when a value has to be found by equality.
+     */
     public String encrypt(String value) {
+        Cipher cipher = gcm.borrow();
+        try {
+            return GCM_PREFIX + gcm.encrypt(cipher, key, value, new AesGcm.Buffers());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption error", e);
+        } finally {
+            gcm.release(cipher);
+        }
+    }
+
+    public List<String> encryptAll(List<String> values) {
+        List<String> result = new ArrayList<>(values.size());
+        AesGcm.Buffers buffers = new AesGcm.Buffers();
+        Cipher cipher = gcm.borrow();
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, getKey());
-            byte[] encrypted = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
-        } catch (Exception e) {
+            for (String value : values) {
+                result.add(GCM_PREFIX + gcm.encrypt(cipher, key, value, buffers));
+            }
+        } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Encryption error", e);
+        } finally {
+            gcm.release(cipher);
         }
+        return result;
     }
 
     public String decrypt(String encrypted) {
+        return decryptAll(List.of(encrypted)).getFirst();
+    }
+
+    /**
+     * Decrypts a batch that may mix GCM and legacy values; results keep the input order.
+     */
+    public List<String> decryptAll(List<String> encrypted) {
+        List<String> result = new ArrayList<>(encrypted.size());
+        AesGcm.Buffers buffers = new AesGcm.Buffers();
+        Cipher gcmCipher = null;
+        Cipher legacyCipher = null;
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, getKey());
-            byte[] decoded = Base64.getDecoder().decode(encrypted);
-            return new String(cipher.doFinal(decoded), StandardCharsets.UTF_8);
-        } catch (Exception e) {
+            for (String value : encrypted) {
+                if (isLegacy(value)) {
+                    if (legacyCipher == null) {
+                        legacyCipher = legacyCiphers.borrow();
+                    }
+                    result.add(decryptLegacy(legacyCipher, value, buffers));
+                } else {
+                    if (gcmCipher == null) {
+                        gcmCipher = gcm.borrow();
+                    }
+                    result.add(gcm.decrypt(gcmCipher, key, value.substring(GCM_PREFIX.length()), buffers));
+                }
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
             throw new IllegalStateException("Decryption error", e);
+        } finally {
+            if (gcmCipher != null) {
+                gcm.release(gcmCipher);
+            }
+            if (legacyCipher != null) {
+                legacyCiphers.release(legacyCipher);
+            }
         }
+        return result;
+    }
+
+    /**
+     * Whether the value was written by the deterministic AES/ECB scheme used before GCM.
+     */
+    public boolean isLegacy(String encrypted) {
+        return !encrypted.startsWith(GCM_PREFIX);
+    }
+
+    /**
+     * Deterministic AES/ECB encryption. Only used to find rows the re-encryption job has not reached yet.
+     */
+    public String encryptLegacy(String value) {
+        Cipher cipher = legacyCiphers.borrow();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key);
+            return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption error", e);
+        } finally {
+            legacyCiphers.release(cipher);
+        }
+    }
+
+    private String decryptLegacy(Cipher cipher, String encrypted, AesGcm.Buffers buffers) throws GeneralSecurityException {
+        byte[] decoded = Base64.getDecoder().decode(encrypted);
+
+        cipher.init(Cipher.DECRYPT_MODE, key);
+        byte[] out = buffers.output(cipher.getOutputSize(decoded.length));
+        int length = cipher.doFinal(decoded, 0, decoded.length, out, 0);
+        return new String(out, 0, length, StandardCharsets.UTF_8);
     }
 }
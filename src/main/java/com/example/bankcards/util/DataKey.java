@@ -0,0 +1,9 @@
+package com.example.bankcards.util;
+
+import javax.crypto.SecretKey;
+
+/**
+ * A freshly generated data-encryption key together with its wrapped form.
+ */
+public record DataKey(SecretKey key, WrappedKey wrapped) {
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.util;
+
+/**
+ * A card number as stored in {@code cards}. {@code dataKey} is {@code null} for values encrypted under the
+ * static key before envelope encryption.
+ */
+public record EncryptedCardNumber(String ciphertext, WrappedKey dataKey) {
+
+    public static EncryptedCardNumber of(String ciphertext, String keyId, String wrappedKey) {
+        return new EncryptedCardNumber(ciphertext, keyId == null ? null : new WrappedKey(keyId, wrappedKey));
+    }
+
+    public String keyId() {
+        return dataKey == null ? null : dataKey.keyId();
+    }
+
+    public String wrappedKey() {
+        return dataKey == null ? null : dataKey.wrappedKey();
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.bankcards.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Envelope encryption of card numbers. Each value is encrypted with AES-GCM under a data key, and the row
+ * stores that data key wrapped by a master key of the {@link KeyService}. Rotating a master key therefore
+ * never requires touching more than the rows that are moved to it.
+ * <p>
+ * One data key is shared by many cards until it reaches {@code crypto.envelope.data-key-max-uses} or
+ * {@code crypto.envelope.data-key-ttl}. Unwrapped data keys stay in a bounded cache for
+ * {@code crypto.envelope.cache-ttl}, so reading a card normally costs one symmetric decryption and no call
+ * to the key service.
+ */
+@Service
+@RequiredArgsConstructor
+public class EnvelopeCryptoService {
+
+    private static final String ENVELOPE_PREFIX = "v3:";
+
+    private final KeyService keyService;
+    private final CryptoService cryptoService;
+
+    private final AesGcm gcm = new AesGcm();
+    private final ReentrantLock rotationLock = new ReentrantLock();
+
+    @Value("${crypto.envelope.data-key-ttl:PT1H}")
+    private Duration dataKeyTtl;
+
+    @Value("${crypto.envelope.data-key-max-uses:100000}")
+    private long dataKeyMaxUses;
+
+    @Value("${crypto.envelope.cache-size:1024}")
+    private int cacheSize;
+
+    @Value("${crypto.envelope.cache-ttl:PT15M}")
+    private Duration cacheTtl;
+
+    private volatile ActiveDataKey active;
+    private LruCache<WrappedKey, SecretKey> dataKeys;
+
+    @PostConstruct
+    void init() {
+        dataKeys = new LruCache<>(cacheSize);
+    }
+
+    public EncryptedCardNumber encrypt(String value) {
+        return encryptAll(List.of(value)).getFirst();
+    }
+
+    public List<EncryptedCardNumber> encryptAll(List<String> values) {
+        List<EncryptedCardNumber> result = new ArrayList<>(values.size());
+        if (values.isEmpty()) {
+            return result;
+        }
+
+        ActiveDataKey dataKey = reserve(values.size());
+        AesGcm.Buffers buffers = new AesGcm.Buffers();
+        Cipher cipher = gcm.borrow();
+        try {
+            for (String value : values) {
+                String ciphertext = ENVELOPE_PREFIX + gcm.encrypt(cipher, dataKey.key, value, buffers);
+                result.add(new EncryptedCardNumber(ciphertext, dataKey.wrapped));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Encryption error", e);
+        } finally {
+            gcm.release(cipher);
+        }
+        return result;
+    }
+
+    public String decrypt(EncryptedCardNumber encrypted) {
+        return decryptAll(List.of(encrypted)).getFirst();
+    }
+
+    /**
+     * Decrypts a batch that may mix envelope and static-key values; results keep the input order.
+     */
+    public List<String> decryptAll(List<EncryptedCardNumber> encrypted) {
+        List<String> result = new ArrayList<>(encrypted.size());
+        AesGcm.Buffers buffers = new AesGcm.Buffers();
+        Cipher cipher = null;
+        try {
+            for (EncryptedCardNumber value : encrypted) {
+                if (value.dataKey() == null) {
+                    result.add(cryptoService.decrypt(value.ciphertext()));
+                    continue;
+                }
+                if (cipher == null) {
+                    cipher = gcm.borrow();
+                }
+                String payload = value.ciphertext().substring(ENVELOPE_PREFIX.length());
+                result.add(gcm.decrypt(cipher, dataKey(value.dataKey()), payload, buffers));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Decryption error", e);
+        } finally {
+            if (cipher != null) {
+                gcm.release(cipher);
+            }
+        }
+        return result;
+    }
+
+    private SecretKey dataKey(WrappedKey wrapped) {
+        SecretKey key = dataKeys.get(wrapped);
+        if (key == null) {
+            key = keyService.unwrap(wrapped);
+            dataKeys.put(wrapped, key, System.currentTimeMillis() + cacheTtl.toMillis());
+        }
+        return key;
+    }
+
+    /**
+     * Takes {@code uses} encryptions from the current data key, or switches to a new one when the current
+     * key is used up, expired, or was wrapped by a master key that is no longer active.
+     */
+    private ActiveDataKey reserve(int uses) {
+        ActiveDataKey current = active;
+        if (current != null && current.reserve(uses, keyService.activeKeyId())) {
+            return current;
+        }
+
+        rotationLock.lock();
+        try {
+            current = active;
+            if (current != null && current.reserve(uses, keyService.activeKeyId())) {
+                return current;
+            }
+            DataKey generated = keyService.generateDataKey();
+            ActiveDataKey next = new ActiveDataKey(generated.key(), generated.wrapped(),
+                    System.currentTimeMillis() + dataKeyTtl.toMillis(), dataKeyMaxUses);
+            next.reserve(uses, generated.wrapped().keyId());
+            dataKeys.put(generated.wrapped(), generated.key(), System.currentTimeMillis() + cacheTtl.toMillis());
+            active = next;
+            return next;
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    private static final class ActiveDataKey {
+
+        private final SecretKey key;
+        private final WrappedKey wrapped;
+        private final long expiresAtMillis;
+        private final long maxUses;
+        private final AtomicLong uses = new AtomicLong();
+
+        private ActiveDataKey(SecretKey key, WrappedKey wrapped, long expiresAtMillis, long maxUses) {
+            this.key = key;
+            this.wrapped = wrapped;
+            this.expiresAtMillis = expiresAtMillis;
+            this.maxUses = maxUses;
+        }
+
+        boolean reserve(int count, String activeKeyId) {
+            if (!wrapped.keyId().equals(activeKeyId) || expiresAtMillis <= System.currentTimeMillis()) {
+                return false;
+            }
+            // a batch larger than the limit still gets a fresh key of its own
+            long used = uses.getAndAdd(count);
+            return used == 0 || used + count <= maxUses;
+        }
+    }
+}
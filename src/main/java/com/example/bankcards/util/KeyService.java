@@ -0,0 +1,22 @@
+package com.example.bankcards.util;
+
+import javax.crypto.SecretKey;
+
+/**
+ * Holder of the master keys used for envelope encryption. Master keys never leave the service: callers get
+ * data keys generated and wrapped under the active master key, and hand wrapped keys back to unwrap them.
+ * An HSM or a cloud KMS fits behind the same calls.
+ */
+public interface KeyService {
+
+    String activeKeyId();
+
+    DataKey generateDataKey();
+
+    SecretKey unwrap(WrappedKey wrappedKey);
+
+    /**
+     * Picks up master keys added or activated since the last call. Called periodically by {@code MasterKeyRefreshJob}.
+     */
+    void refresh();
+}
@@ -0,0 +1,147 @@
+package com.example.bankcards.util;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Master keys read from a properties file, standing in for an HSM:
+ * <pre>
+ * active=2026-10
+ * 2026-10=&lt;Base64 of 32 random bytes&gt;
+ * 2026-04=&lt;older key, still needed to unwrap existing data keys&gt;
+ * </pre>
+ * Data keys are wrapped with AES Key Wrap (RFC 3394). {@link #refresh()} re-reads the file when it changes,
+ * so a new active key is picked up without a restart.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "crypto.key-service", havingValue = "local", matchIfMissing = true)
+public class LocalKeyService implements KeyService {
+
+    private static final String ACTIVE = "active";
+    private static final String ALGORITHM = "AES";
+    private static final String WRAP_TRANSFORMATION = "AESWrap";
+    private static final int DATA_KEY_BITS = 256;
+
+    @Value("${crypto.local-keys.file}")
+    private Path keyFile;
+
+    private volatile MasterKeys keys;
+    private FileTime loadedVersion;
+
+    @PostConstruct
+    void init() {
+        keys = load();
+        log.info("Loaded {} master keys, active key {}", keys.byId().size(), keys.activeKeyId());
+    }
+
+    @Override
+    public synchronized void refresh() {
+        FileTime version = lastModified();
+        if (version.equals(loadedVersion)) {
+            return;
+        }
+        MasterKeys previous = keys;
+        keys = load();
+        if (!keys.activeKeyId().equals(previous.activeKeyId())) {
+            log.info("Active master key changed from {} to {}", previous.activeKeyId(), keys.activeKeyId());
+        }
+    }
+
+    private MasterKeys load() {
+        FileTime version = lastModified();
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(keyFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read master keys from " + keyFile, e);
+        }
+
+        Map<String, SecretKey> keys = new HashMap<>();
+        for (String id : properties.stringPropertyNames()) {
+            if (id.equals(ACTIVE)) {
+                continue;
+            }
+            byte[] bytes = Base64.getDecoder().decode(properties.getProperty(id).strip());
+            if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+                throw new IllegalArgumentException("Invalid master key length for " + id + ": " + bytes.length + " bytes");
+            }
+            keys.put(id, new SecretKeySpec(bytes, ALGORITHM));
+        }
+
+        String active = properties.getProperty(ACTIVE);
+        if (active == null || !keys.containsKey(active.strip())) {
+            throw new IllegalArgumentException("Active master key is not defined in " + keyFile);
+        }
+        loadedVersion = version;
+        return new MasterKeys(active.strip(), Map.copyOf(keys));
+    }
+
+    private FileTime lastModified() {
+        try {
+            return Files.getLastModifiedTime(keyFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read master keys from " + keyFile, e);
+        }
+    }
+
+    @Override
+    public String activeKeyId() {
+        return keys.activeKeyId();
+    }
+
+    @Override
+    public DataKey generateDataKey() {
+        try {
+            MasterKeys current = keys;
+            KeyGenerator generator = KeyGenerator.getInstance(ALGORITHM);
+            generator.init(DATA_KEY_BITS);
+            SecretKey dataKey = generator.generateKey();
+
+            Cipher cipher = Cipher.getInstance(WRAP_TRANSFORMATION);
+            cipher.init(Cipher.WRAP_MODE, current.byId().get(current.activeKeyId()));
+            String wrapped = Base64.getEncoder().encodeToString(cipher.wrap(dataKey));
+            return new DataKey(dataKey, new WrappedKey(current.activeKeyId(), wrapped));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate a data key", e);
+        }
+    }
+
+    @Override
+    public SecretKey unwrap(WrappedKey wrappedKey) {
+        SecretKey masterKey = keys.byId().get(wrappedKey.keyId());
+        if (masterKey == null) {
+            throw new IllegalStateException("Unknown master key: " + wrappedKey.keyId());
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(WRAP_TRANSFORMATION);
+            cipher.init(Cipher.UNWRAP_MODE, masterKey);
+            return (SecretKey) cipher.unwrap(Base64.getDecoder().decode(wrappedKey.wrappedKey()), ALGORITHM, Cipher.SECRET_KEY);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Cannot unwrap data key under " + wrappedKey.keyId(), e);
+        }
+    }
+
+    private record MasterKeys(String activeKeyId, Map<String, SecretKey> byId) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.util;
+
+/**
+ * A data-encryption key encrypted under the master key {@code keyId}, Base64-encoded as stored in {@code cards}.
+ */
+public record WrappedKey(String keyId, String wrappedKey) {
+}
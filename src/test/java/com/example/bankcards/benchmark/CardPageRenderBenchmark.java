@@ -0,0 +1,98 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.config.mapper.CardMapper;
+import com.example.bankcards.dto.card.CardDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.util.CryptoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping one page of cards to {@link CardDto}: decrypting every number to mask it
+ * (the old read path) against masking the stored {@code card_last4}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.CardPageRenderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardPageRenderBenchmark {
+
+    @Param({"20", "50"})
+    private int pageSize;
+
+    private CryptoService cryptoService;
+    private CardMapper cardMapper;
+    private List<Card> page;
+
+    @Setup
+    public void setUp() {
+        cryptoService = new CryptoService("16byteslong12345");
+        cardMapper = new CardMapper();
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String number = String.format("4000%012d", i);
+            page.add(Card.builder()
+                    .id((long) i)
+                    .encryptedCardNumber(cryptoService.encrypt(number))
+                    .cardLast4(number.substring(number.length() - 4))
+                    .owner("JOHN DOE")
+                    .expirationDate(LocalDate.of(2030, 12, 31))
+                    .status(CardStatus.ACTIVE)
+                    .balance(new BigDecimal("100.00"))
+                    .currency("RUB")
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<CardDto> decryptAndMask() {
+        return page.stream()
+                .map(card -> {
+                    String number = cryptoService.decrypt(card.getEncryptedCardNumber());
+                    return cardMapper.toDto(card, mask(number.substring(number.length() - 4)), card.getBalance());
+                })
+                .toList();
+    }
+
+    @Benchmark
+    public List<CardDto> storedLastFour() {
+        return page.stream()
+                .map(card -> cardMapper.toDto(card, mask(card.getCardLast4()), card.getBalance()))
+                .toList();
+    }
+
+    private String mask(String last4) {
+        return "**** **** **** " + last4;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardPageRenderBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
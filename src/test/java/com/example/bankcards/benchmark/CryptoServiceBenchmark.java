@@ -0,0 +1,92 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.CryptoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card numbers per second through {@link CryptoService}: one call per value against
+ * {@code encryptAll}/{@code decryptAll} over the same batch. Runs on four threads so the cipher
+ * pool is contended the way it is under request load.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.example.bankcards.benchmark.CryptoServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CryptoServiceBenchmark {
+
+    @Param({"50", "1000"})
+    private int batchSize;
+
+    private CryptoService cryptoService;
+    private List<String> cardNumbers;
+    private List<String> encrypted;
+
+    @Setup
+    public void setUp() {
+        cryptoService = new CryptoService("16byteslong12345");
+        cardNumbers = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            cardNumbers.add(String.format("4000%012d", i));
+        }
+        encrypted = cryptoService.encryptAll(cardNumbers);
+    }
+
+    @Benchmark
+    public List<String> encryptEach() {
+        List<String> result = new ArrayList<>(batchSize);
+        for (String cardNumber : cardNumbers) {
+            result.add(cryptoService.encrypt(cardNumber));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> encryptAll() {
+        return cryptoService.encryptAll(cardNumbers);
+    }
+
+    @Benchmark
+    public List<String> decryptEach() {
+        List<String> result = new ArrayList<>(batchSize);
+        for (String value : encrypted) {
+            result.add(cryptoService.decrypt(value));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<String> decryptAll() {
+        return cryptoService.decryptAll(encrypted);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CryptoServiceBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.auth.AuthResponse;
 import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.dto.auth.RefreshTokenRequest;
 import com.example.bankcards.security.jwt.JwtAuthenticationFilter;
 import com.example.bankcards.service.auth.AuthService;
 import org.junit.jupiter.api.Test;
@@ -38,7 +39,7 @@ class AuthControllerTest {
     @Test
     void login_shouldReturnAccessToken() throws Exception {
         LoginRequest request = new LoginRequest("testUser", "password123");
-        AuthResponse response = new AuthResponse("jwt-token-value");
+        AuthResponse response = new AuthResponse("jwt-token-value", "refresh-token-value");
 
         when(authService.login(any(LoginRequest.class)))
                 .thenReturn(response);
@@ -48,6 +49,21 @@ class AuthControllerTest {
                         .content(objectMapper.writeValueAsString(request))
                 )
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.accessToken").value("jwt-token-value"));
+                .andExpect(jsonPath("$.accessToken").value("jwt-token-value"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-token-value"));
+    }
+
+    @Test
+    void refresh_shouldReturnRotatedTokens() throws Exception {
+        when(authService.refresh(any(RefreshTokenRequest.class)))
+                .thenReturn(new AuthResponse("new-jwt-token", "next-refresh-token"));
+
+        mockMvc.perform(post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token-value")))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").value("new-jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("next-refresh-token"));
     }
 }
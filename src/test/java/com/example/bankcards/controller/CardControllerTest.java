@@ -2,8 +2,18 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.card.*;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.QueuedTransferStatus;
+import com.example.bankcards.entity.ScheduledTransferStatus;
 import com.example.bankcards.security.jwt.JwtAuthenticationFilter;
+import com.example.bankcards.service.AsyncTransferService;
+import com.example.bankcards.service.BalanceImportService;
+import com.example.bankcards.service.BatchTransferService;
 import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.CardStreamService;
+import com.example.bankcards.service.IdempotentTransferService;
+import com.example.bankcards.service.KeyRotationService;
+import com.example.bankcards.service.ScheduledTransferService;
+import com.example.bankcards.service.TransferHistoryService;
 import com.example.bankcards.service.TransferService;
 import com.example.bankcards.util.SecurityUtil;
 import org.junit.jupiter.api.Test;
@@ -16,15 +26,20 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tools.jackson.databind.ObjectMapper;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CardController.class)
@@ -37,6 +52,30 @@ class CardControllerTest {
     @MockitoBean
     private TransferService transferService;
 
+    @MockitoBean
+    private BatchTransferService batchTransferService;
+
+    @MockitoBean
+    private IdempotentTransferService idempotentTransferService;
+
+    @MockitoBean
+    private AsyncTransferService asyncTransferService;
+
+    @MockitoBean
+    private TransferHistoryService transferHistoryService;
+
+    @MockitoBean
+    private ScheduledTransferService scheduledTransferService;
+
+    @MockitoBean
+    private CardStreamService cardStreamService;
+
+    @MockitoBean
+    private BalanceImportService balanceImportService;
+
+    @MockitoBean
+    private KeyRotationService keyRotationService;
+
     @MockitoBean
     private SecurityUtil securityUtil;
 
@@ -59,7 +98,8 @@ class CardControllerTest {
                 CARD_NUMBER,
                 "JOHN DOE",
                 YearMonth.of(2030, 12).atEndOfMonth(),
-                1L
+                1L,
+                null
         );
 
         CardDto cardDto = CardDto.builder()
@@ -104,6 +144,38 @@ class CardControllerTest {
         verify(cardService).getById(10L);
     }
 
+    @Test
+    void lookup_shouldFindCardByNumber() throws Exception {
+        when(cardService.getByCardNumber(CARD_NUMBER))
+                .thenReturn(CardDto.builder().id(10L).maskedNumber(MASKED).build());
+
+        mockMvc.perform(
+                        post("/api/v1/cards/lookup")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new CardLookupRequest(CARD_NUMBER)))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(10));
+
+        verify(cardService).getByCardNumber(CARD_NUMBER);
+    }
+
+    @Test
+    void setKeyRotationRate_shouldReturnStatus() throws Exception {
+        when(keyRotationService.setRateLimit(200))
+                .thenReturn(KeyRotationStatusDto.builder().targetKeyId("2026-10").rotated(1500L).rowsPerSecond(200).build());
+
+        mockMvc.perform(
+                        put("/api/v1/cards/key-rotation/rate")
+                                .param("rowsPerSecond", "200")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.targetKeyId").value("2026-10"))
+                .andExpect(jsonPath("$.rowsPerSecond").value(200));
+
+        verify(keyRotationService).setRateLimit(200);
+    }
+
     @Test
     void getByUser_shouldReturnPage() throws Exception {
         Page<CardDto> page = new PageImpl<>(List.of(CardDto.builder().id(1L).build()));
@@ -200,6 +272,23 @@ class CardControllerTest {
         verify(cardService).getBalance(10L, 1L);
     }
 
+    @Test
+    void getTotalBalance_shouldReturnBalancePerCurrency() throws Exception {
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+
+        when(cardService.getTotalBalance(1L))
+                .thenReturn(List.of(
+                        CardBalanceDto.builder().balance(BigDecimal.valueOf(40)).currency("EUR").build(),
+                        CardBalanceDto.builder().balance(BigDecimal.valueOf(300)).currency("RUB").build()
+                ));
+
+        mockMvc.perform(get("/api/v1/cards/my/balance"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].currency").value("EUR"))
+                .andExpect(jsonPath("$[1].balance").value(300));
+    }
+
     @Test
     void transfer_shouldCallService() throws Exception {
         TransferRequest request =
@@ -219,6 +308,223 @@ class CardControllerTest {
                 .transfer(eq(1L), any(TransferRequest.class));
     }
 
+    @Test
+    void transfer_shouldUseIdempotentService_whenKeyPresent() throws Exception {
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("10"));
+
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(idempotentTransferService.transfer(eq(1L), eq("key-1"), any(TransferRequest.class)))
+                .thenReturn(true);
+
+        mockMvc.perform(
+                        post("/api/v1/cards/transfer")
+                                .header("Idempotency-Key", "key-1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+
+        verify(idempotentTransferService)
+                .transfer(eq(1L), eq("key-1"), any(TransferRequest.class));
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void transferBatch_shouldReturnPerItemResults() throws Exception {
+        BatchTransferRequest request = new BatchTransferRequest(
+                BatchTransferMode.BEST_EFFORT,
+                List.of(new TransferRequest(10L, 20L, new BigDecimal("10")))
+        );
+
+        BatchTransferResponse response = BatchTransferResponse.builder()
+                .mode(BatchTransferMode.BEST_EFFORT)
+                .applied(1)
+                .rejected(0)
+                .results(List.of(TransferItemResult.builder()
+                        .index(0)
+                        .status(TransferItemStatus.APPLIED)
+                        .build()))
+                .build();
+
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(batchTransferService.transfer(eq(1L), any(BatchTransferRequest.class)))
+                .thenReturn(response);
+
+        mockMvc.perform(
+                        post("/api/v1/cards/transfer/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("APPLIED"));
+
+        verify(batchTransferService)
+                .transfer(eq(1L), any(BatchTransferRequest.class));
+    }
+
+    @Test
+    void transferAsync_shouldReturnAcceptedWithLocation() throws Exception {
+        TransferRequest request = new TransferRequest(10L, 20L, new BigDecimal("10"));
+        QueuedTransferDto queued = QueuedTransferDto.builder()
+                .id(77L)
+                .fromCardId(10L)
+                .toCardId(20L)
+                .amount(new BigDecimal("10"))
+                .status(QueuedTransferStatus.QUEUED)
+                .build();
+
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(asyncTransferService.submit(eq(1L), any(TransferRequest.class)))
+                .thenReturn(queued);
+
+        mockMvc.perform(
+                        post("/api/v1/cards/transfer/async")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/v1/cards/transfers/77"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void getTransfer_shouldReturnStatus() throws Exception {
+        QueuedTransferDto completed = QueuedTransferDto.builder()
+                .id(77L)
+                .status(QueuedTransferStatus.COMPLETED)
+                .build();
+
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(asyncTransferService.get(1L, 77L))
+                .thenReturn(completed);
+
+        mockMvc.perform(get("/api/v1/cards/transfers/77"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(77))
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    void createScheduledTransfer_shouldReturnCreated() throws Exception {
+        ScheduledTransferDto created = ScheduledTransferDto.builder()
+                .id(5L)
+                .fromCardId(10L)
+                .toCardId(20L)
+                .amount(new BigDecimal("100"))
+                .repeatPeriod("P1M")
+                .status(ScheduledTransferStatus.ACTIVE)
+                .build();
+
+        CreateScheduledTransferRequest request = new CreateScheduledTransferRequest(
+                10L,
+                20L,
+                new BigDecimal("100"),
+                LocalDateTime.of(2026, 2, 1, 9, 0),
+                "P1M"
+        );
+
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(scheduledTransferService.create(eq(1L), any(CreateScheduledTransferRequest.class)))
+                .thenReturn(created);
+
+        mockMvc.perform(
+                        post("/api/v1/cards/scheduled-transfers")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(5))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+    }
+
+    @Test
+    void cancelScheduledTransfer_shouldReturnNoContent() throws Exception {
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+
+        mockMvc.perform(delete("/api/v1/cards/scheduled-transfers/5"))
+                .andExpect(status().isNoContent());
+
+        verify(scheduledTransferService).cancel(1L, 5L);
+    }
+
+    @Test
+    void streamMyCards_shouldStartAsyncEventStream() throws Exception {
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(cardStreamService.subscribe(1L))
+                .thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/v1/cards/my/stream").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(cardStreamService).subscribe(1L);
+    }
+
+    @Test
+    void importBalances_shouldPickFormatFromContentType() throws Exception {
+        BalanceImportReport report = BalanceImportReport.builder()
+                .processed(2)
+                .applied(1)
+                .rejected(1)
+                .errors(List.of(new BalanceImportError(2, "Card not found: 99")))
+                .build();
+
+        when(balanceImportService.importBalances(any(InputStream.class), eq(BalanceImportFormat.NDJSON)))
+                .thenReturn(report);
+
+        mockMvc.perform(
+                        post("/api/v1/cards/balances/import")
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .content("{\"cardId\":1,\"amount\":10}\n{\"cardId\":99,\"amount\":5}\n")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+
+        verify(balanceImportService).importBalances(any(InputStream.class), eq(BalanceImportFormat.NDJSON));
+    }
+
+    @Test
+    void getMyTransfers_shouldPassFiltersAndCursor() throws Exception {
+        TransferHistoryPage page = TransferHistoryPage.builder()
+                .items(List.of(TransferHistoryItem.builder()
+                        .id(5L)
+                        .fromCardId(10L)
+                        .toCardId(20L)
+                        .amount(new BigDecimal("15.00"))
+                        .direction(TransferDirection.OUTGOING)
+                        .build()))
+                .nextCursor("next")
+                .build();
+
+        when(securityUtil.getCurrentUserId())
+                .thenReturn(1L);
+        when(transferHistoryService.getForUser(eq(1L), eq(10L), any(TransferHistoryFilter.class), eq("abc"), eq(20)))
+                .thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/cards/my/10/transfers")
+                        .param("cursor", "abc")
+                        .param("limit", "20")
+                        .param("minAmount", "10")
+                        .param("from", "2026-01-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].direction").value("OUTGOING"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(transferHistoryService).getForUser(eq(1L), eq(10L),
+                argThat(filter -> new BigDecimal("10").equals(filter.getMinAmount()) && filter.getFrom() != null),
+                eq("abc"), eq(20));
+    }
+
     @Test
     void updateStatus_shouldReturnUpdatedCard() throws Exception {
         UpdateCardStatusRequest request = new UpdateCardStatusRequest(CardStatus.BLOCKED);
@@ -0,0 +1,76 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserVersionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UserVersionService userVersionService;
+
+    @BeforeEach
+    void setUp() {
+        userVersionService = new UserVersionService(jdbcTemplate);
+        ReflectionTestUtils.setField(userVersionService, "overlap", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(userVersionService, "watermark", new Timestamp(0));
+    }
+
+    @Test
+    void isCurrent_shouldAcceptAnyToken_forUserThatNeverChanged() {
+        assertTrue(userVersionService.isCurrent(1L, 0));
+    }
+
+    @Test
+    void bump_shouldRevokeOlderTokensImmediately() {
+        when(jdbcTemplate.queryForObject(contains("on conflict"), eq(Long.class), eq(1L))).thenReturn(2L);
+
+        userVersionService.bump(1L);
+
+        assertFalse(userVersionService.isCurrent(1L, 1));
+        assertTrue(userVersionService.isCurrent(1L, 2));
+        assertTrue(userVersionService.isCurrent(2L, 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refresh_shouldApplyChangesAndReadAgainWithOverlap() throws Exception {
+        Timestamp changedAt = Timestamp.valueOf("2026-10-17 12:00:00");
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("user_id")).thenReturn(7L);
+        when(rs.getLong("version")).thenReturn(3L);
+        when(rs.getTimestamp("updated_at")).thenReturn(changedAt);
+        when(jdbcTemplate.query(contains("from user_versions"), any(RowMapper.class), any(Timestamp.class)))
+                .thenAnswer(inv -> List.of(inv.<RowMapper<?>>getArgument(1).mapRow(rs, 0)))
+                .thenReturn(List.of());
+
+        userVersionService.refresh();
+        userVersionService.refresh();
+
+        assertFalse(userVersionService.isCurrent(7L, 2));
+        assertTrue(userVersionService.isCurrent(7L, 3));
+
+        ArgumentCaptor<Timestamp> since = ArgumentCaptor.forClass(Timestamp.class);
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowMapper.class), since.capture());
+        assertEquals(new Timestamp(0), since.getAllValues().get(0));
+        assertEquals(new Timestamp(changedAt.getTime() - 5000), since.getAllValues().get(1));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.security.CustomUserPrinciple;
+import com.example.bankcards.security.UserVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    private JwtService jwtService;
+    private JwtAuthenticationFilter filter;
+
+    private final User user = User.builder()
+            .id(5L)
+            .username("john")
+            .passwordHash("hash")
+            .role(UserRole.ADMIN)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", 16);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+
+        filter = new JwtAuthenticationFilter(jwtService, userDetailsService, userVersionService);
+        ReflectionTestUtils.setField(filter, "stateless", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void stateless_shouldBuildPrincipalFromClaimsWithoutLoadingUser() throws Exception {
+        when(userVersionService.isCurrent(5L, 2L)).thenReturn(true);
+
+        filter.doFilter(request(jwtService.generateToken(user, 2L)), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        CustomUserPrinciple principal = (CustomUserPrinciple) authentication.getPrincipal();
+        assertEquals(5L, principal.getUserId());
+        assertEquals("john", principal.getUsername());
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().iterator().next().getAuthority());
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void stateless_shouldRejectToken_whenUserVersionChanged() {
+        when(userVersionService.isCurrent(5L, 2L)).thenReturn(false);
+
+        assertThrows(AuthenticationCredentialsNotFoundException.class, () -> filter.doFilter(
+                request(jwtService.generateToken(user, 2L)), new MockHttpServletResponse(), new MockFilterChain()));
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void stateless_shouldRejectMalformedToken() {
+        assertThrows(AuthenticationCredentialsNotFoundException.class, () -> filter.doFilter(
+                request("not-a-token"), new MockHttpServletResponse(), new MockFilterChain()));
+        verifyNoInteractions(userVersionService);
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cards/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.security.jwt;
+
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY";
+
+    private final User user = User.builder()
+            .id(5L)
+            .username("john")
+            .passwordHash("hash")
+            .role(UserRole.USER)
+            .build();
+
+    @Test
+    void parse_shouldReturnClaims_andReuseThemForTheSameToken() {
+        JwtService jwtService = jwtService(16);
+        String token = jwtService.generateToken(user, 4L);
+
+        TokenClaims claims = jwtService.parse(token);
+
+        assertEquals(new TokenClaims(5L, "john", UserRole.USER, 4L), claims);
+        assertSame(claims, jwtService.parse(token));
+    }
+
+    @Test
+    void parse_shouldRejectTamperedToken_evenWhenOriginalIsCached() {
+        JwtService jwtService = jwtService(16);
+        String token = jwtService.generateToken(user, 0L);
+        jwtService.parse(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtService.parse(tampered));
+        assertFalse(jwtService.isTokenValid(tampered));
+    }
+
+    @Test
+    void parse_shouldVerifyEveryTime_whenCacheDisabled() {
+        JwtService jwtService = jwtService(0);
+        String token = jwtService.generateToken(user, 0L);
+
+        assertNotSame(jwtService.parse(token), jwtService.parse(token));
+        assertEquals("john", jwtService.extractUsername(token));
+    }
+
+    private JwtService jwtService(int cacheSize) {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheSize", cacheSize);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.QueuedTransferDto;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.QueuedTransfer;
+import com.example.bankcards.entity.QueuedTransferStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.QueuedTransferRepository;
+import com.example.bankcards.service.impl.AsyncTransferServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+
+    @Mock
+    private QueuedTransferRepository queuedTransferRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private VelocityLimitService velocityLimitService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AsyncTransferServiceImpl asyncTransferService;
+
+    private Card first;
+    private Card second;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        User user = User.builder()
+                .id(1L)
+                .username("john")
+                .build();
+
+        first = Card.builder()
+                .id(10L)
+                .user(user)
+                .balance(new BigDecimal("100.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+
+        second = Card.builder()
+                .id(20L)
+                .user(user)
+                .balance(new BigDecimal("0.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+    }
+
+    @Test
+    void submit_shouldQueueTransfer() {
+        when(cardRepository.existsByIdAndUserId(10L, 1L)).thenReturn(true);
+        when(cardRepository.existsByIdAndUserId(20L, 1L)).thenReturn(true);
+        when(queuedTransferRepository.save(any(QueuedTransfer.class))).thenAnswer(inv -> {
+            QueuedTransfer saved = inv.getArgument(0);
+            saved.setId(77L);
+            return saved;
+        });
+
+        QueuedTransferDto result = asyncTransferService.submit(1L,
+                new TransferRequest(10L, 20L, new BigDecimal("30.00")));
+
+        assertEquals(77L, result.getId());
+        assertEquals(QueuedTransferStatus.QUEUED, result.getStatus());
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void submit_shouldRejectNonPositiveAmount() {
+        assertThrows(
+                InvalidTransferRequestException.class,
+                () -> asyncTransferService.submit(1L, new TransferRequest(10L, 20L, BigDecimal.ZERO))
+        );
+        verifyNoInteractions(queuedTransferRepository);
+    }
+
+    @Test
+    void submit_shouldRejectForeignCard() {
+        when(cardRepository.existsByIdAndUserId(10L, 1L)).thenReturn(false);
+
+        assertThrows(
+                CardNotFoundException.class,
+                () -> asyncTransferService.submit(1L, new TransferRequest(10L, 20L, BigDecimal.TEN))
+        );
+        verify(queuedTransferRepository, never()).save(any());
+    }
+
+    @Test
+    void processQueued_shouldCompleteValidAndRejectInvalidTransfers() {
+        QueuedTransfer ok = queued(1L, "60.00");
+        QueuedTransfer overdraft = queued(2L, "60.00");
+        when(queuedTransferRepository.claimQueued(100)).thenReturn(List.of(ok, overdraft));
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L))).thenReturn(List.of(first, second));
+
+        assertEquals(2, asyncTransferService.processQueued(100));
+
+        assertEquals(QueuedTransferStatus.COMPLETED, ok.getStatus());
+        assertEquals(QueuedTransferStatus.REJECTED, overdraft.getStatus());
+        assertEquals(new BigDecimal("40.00"), first.getBalance());
+        assertEquals(new BigDecimal("60.00"), second.getBalance());
+        verify(ledgerService).recordTransfers(argThat(applied -> applied.size() == 1));
+    }
+
+    @Test
+    void processQueued_shouldReturnZero_whenQueueIsEmpty() {
+        when(queuedTransferRepository.claimQueued(100)).thenReturn(List.of());
+
+        assertEquals(0, asyncTransferService.processQueued(100));
+        verifyNoInteractions(cardRepository, ledgerService);
+    }
+
+    private QueuedTransfer queued(Long id, String amount) {
+        return QueuedTransfer.builder()
+                .id(id)
+                .userId(1L)
+                .fromCardId(10L)
+                .toCardId(20L)
+                .amount(new BigDecimal(amount))
+                .status(QueuedTransferStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.BalanceAdjustment;
+import com.example.bankcards.dto.card.BalanceImportError;
+import com.example.bankcards.dto.card.BalanceImportFormat;
+import com.example.bankcards.dto.card.BalanceImportReport;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.service.impl.BalanceImportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private BalanceImportServiceImpl balanceImportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceImportService, "batchSize", 1000);
+        ReflectionTestUtils.setField(balanceImportService, "chunkSize", 10000);
+        ReflectionTestUtils.setField(balanceImportService, "maxErrors", 1000);
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(ledgerService.adjustmentEntries(any(), any()))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBalances_shouldApplyCsvAndReportBadLines() {
+        // chunk is applied in card id order: 2, 3, 99
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), eq(1000), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 1, 0}});
+
+        BalanceImportReport report = balanceImportService.importBalances(
+                stream("cardId,amount\n3,10.00\n99,5\n1,abc\n\n2,-1.50\n"), BalanceImportFormat.CSV);
+
+        assertEquals(4, report.getProcessed());
+        assertEquals(2, report.getApplied());
+        assertEquals(2, report.getRejected());
+        assertFalse(report.isErrorsTruncated());
+        assertEquals(List.of(3L, 4L), report.getErrors().stream().map(BalanceImportError::getLine).toList());
+        assertEquals("Card not found: 99", report.getErrors().get(0).getError());
+
+        verify(ledgerService).adjustmentEntries(2L, new BigDecimal("-1.50"));
+        verify(ledgerService).adjustmentEntries(3L, new BigDecimal("10.00"));
+        verify(ledgerService, never()).adjustmentEntries(eq(99L), any());
+
+        ArgumentCaptor<List<BalanceAdjustment>> adjustments = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).recordAdjustments(adjustments.capture());
+        assertEquals(List.of(2L, 3L), adjustments.getValue().stream().map(BalanceAdjustment::getCardId).toList());
+        verify(eventPublisher).publishEvent(new CardChangedEvent(2L));
+        verify(eventPublisher).publishEvent(new CardChangedEvent(3L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBalances_shouldCommitNdjsonInChunks() {
+        ReflectionTestUtils.setField(balanceImportService, "chunkSize", 2);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), eq(1000), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    int[] counts = new int[invocation.<Collection<?>>getArgument(1).size()];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+
+        BalanceImportReport report = balanceImportService.importBalances(stream("""
+                {"cardId":1,"amount":100.00}
+                {"cardId":2,"amount":0.015}
+                {"cardId":2,"amount":-20}
+                {"cardId":3}
+                {"cardId":4,"amount":1}
+                """), BalanceImportFormat.NDJSON);
+
+        assertEquals(5, report.getProcessed());
+        assertEquals(3, report.getApplied());
+        assertEquals(List.of(2L, 4L), report.getErrors().stream().map(BalanceImportError::getLine).toList());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importBalances_shouldRejectWholeChunk_whenItRollsBack() {
+        ReflectionTestUtils.setField(balanceImportService, "chunkSize", 1);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), eq(1000), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("numeric field overflow"))
+                .thenReturn(new int[][]{{1}});
+
+        BalanceImportReport report = balanceImportService.importBalances(
+                stream("1,99999999999999999999.00\n2,5.00\n"), BalanceImportFormat.CSV);
+
+        assertEquals(1, report.getApplied());
+        assertEquals(1, report.getRejected());
+        assertEquals(1L, report.getErrors().get(0).getLine());
+        assertTrue(report.getErrors().get(0).getError().contains("numeric field overflow"));
+    }
+
+    @Test
+    void importBalances_shouldCapErrorReport() {
+        ReflectionTestUtils.setField(balanceImportService, "maxErrors", 1);
+
+        BalanceImportReport report = balanceImportService.importBalances(
+                stream("x;1\n2\n"), BalanceImportFormat.CSV);
+
+        assertEquals(1, report.getProcessed());
+        assertEquals(1, report.getRejected());
+        assertFalse(report.isErrorsTruncated());
+
+        report = balanceImportService.importBalances(
+                stream("1;1\n2\n3,a\n"), BalanceImportFormat.CSV);
+
+        assertEquals(3, report.getRejected());
+        assertEquals(1, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
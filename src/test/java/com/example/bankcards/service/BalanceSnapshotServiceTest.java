@@ -0,0 +1,143 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.impl.BalanceSnapshotServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceSnapshotServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 31);
+    private static final Date SQL_DATE = Date.valueOf(DATE);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private BalanceSnapshotServiceImpl balanceSnapshotService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceSnapshotService, "partitionSize", 100L);
+        ReflectionTestUtils.setField(balanceSnapshotService, "parallelism", 2);
+        ReflectionTestUtils.setField(balanceSnapshotService, "fetchSize", 500);
+        ReflectionTestUtils.setField(balanceSnapshotService, "batchSize", 2);
+        ReflectionTestUtils.setField(balanceSnapshotService, "zone", ZoneId.of("Europe/Moscow"));
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void snapshot_shouldStreamEachRangeInBatchesAndWriteTotals() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(SQL_DATE))).thenReturn(0);
+        when(jdbcTemplate.queryForObject("select min(id) from cards", Long.class)).thenReturn(1L);
+        when(jdbcTemplate.queryForObject("select max(id) from cards", Long.class)).thenReturn(150L);
+        when(jdbcTemplate.queryForList(contains("select range_start"), eq(Long.class), eq(SQL_DATE)))
+                .thenReturn(List.of(1L, 101L));
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq(SQL_DATE), eq(1L)))
+                .thenReturn(List.of(100L));
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq(SQL_DATE), eq(101L)))
+                .thenReturn(List.of(150L));
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getLong("user_id")).thenReturn(1L);
+        when(rs.getString("status")).thenReturn("ACTIVE");
+        when(rs.getString("currency")).thenReturn("RUB");
+        when(rs.getBigDecimal("balance")).thenReturn(new BigDecimal("10.00"));
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < 3; i++) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        assertTrue(balanceSnapshotService.snapshot(DATE));
+
+        verify(jdbcTemplate).batchUpdate(contains("insert into daily_balance_snapshot_partitions"),
+                argThat((List<Object[]> ranges) -> ranges.size() == 2 && ranges.get(1)[2].equals(150L)));
+        // three rows per range with a batch size of two
+        verify(jdbcTemplate, times(4)).batchUpdate(contains("insert into daily_balance_snapshots"), anyList());
+        verify(jdbcTemplate).update(contains("set completed_at"), eq(3L), eq(SQL_DATE), eq(1L));
+        verify(jdbcTemplate).update(contains("set completed_at"), eq(3L), eq(SQL_DATE), eq(101L));
+        verify(jdbcTemplate).update(contains("insert into daily_balance_totals"), eq(SQL_DATE), eq(SQL_DATE));
+        assertEquals(6.0, meterRegistry.counter("balance.snapshot.cards").count());
+    }
+
+    @Test
+    void snapshot_shouldTakeBackLedgerEntriesMadeAfterMidnight() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(SQL_DATE))).thenReturn(1);
+        when(jdbcTemplate.queryForList(contains("select range_start"), eq(Long.class), eq(SQL_DATE)))
+                .thenReturn(List.of(1L));
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq(SQL_DATE), eq(1L)))
+                .thenReturn(List.of(100L));
+
+        Connection connection = mock(Connection.class);
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(connection.prepareStatement(contains("from ledger_entries"), anyInt(), anyInt())).thenReturn(ps);
+        doAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        balanceSnapshotService.snapshot(DATE);
+
+        Timestamp midnight = Timestamp.valueOf(LocalDateTime.ofInstant(
+                DATE.plusDays(1).atStartOfDay(ZoneId.of("Europe/Moscow")).toInstant(), ZoneId.systemDefault()));
+        verify(ps).setTimestamp(3, midnight);
+        verify(ps).setLong(6, 1L);
+        verify(ps).setLong(7, 100L);
+    }
+
+    @Test
+    void snapshot_shouldResumeWithoutReplanning_andWaitForRangesHeldElsewhere() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(SQL_DATE))).thenReturn(1);
+        when(jdbcTemplate.queryForList(contains("select range_start"), eq(Long.class), eq(SQL_DATE)))
+                .thenReturn(List.of(101L));
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq(SQL_DATE), eq(101L)))
+                .thenReturn(List.of());
+
+        assertFalse(balanceSnapshotService.snapshot(DATE));
+
+        verify(jdbcTemplate, never()).queryForObject("select min(id) from cards", Long.class);
+        verify(jdbcTemplate, never()).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        verify(jdbcTemplate, never()).update(contains("insert into daily_balance_totals"), any(), any());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.*;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.card.TransferBatchTooLargeException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.BatchTransferServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private VelocityLimitService velocityLimitService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private BatchTransferServiceImpl batchTransferService;
+
+    private Card first;
+    private Card second;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchTransferService, "maxSize", 10);
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatus));
+
+        User user = User.builder()
+                .id(1L)
+                .username("john")
+                .build();
+
+        first = Card.builder()
+                .id(10L)
+                .user(user)
+                .balance(new BigDecimal("100.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+
+        second = Card.builder()
+                .id(20L)
+                .user(user)
+                .balance(new BigDecimal("50.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+    }
+
+    @Test
+    void transfer_shouldApplyAllMovesInMemory_whenEveryItemIsValid() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L)))
+                .thenReturn(List.of(first, second));
+
+        BatchTransferResponse response = batchTransferService.transfer(1L, new BatchTransferRequest(
+                BatchTransferMode.ALL_OR_NOTHING,
+                List.of(
+                        new TransferRequest(10L, 20L, new BigDecimal("30")),
+                        new TransferRequest(20L, 10L, new BigDecimal("70"))
+                )
+        ));
+
+        assertEquals(2, response.getApplied());
+        assertEquals(new BigDecimal("140.00"), first.getBalance());
+        assertEquals(new BigDecimal("10.00"), second.getBalance());
+        verify(cardRepository, times(1)).findAllByIdInForUpdate(any());
+        verify(transactionStatus, never()).setRollbackOnly();
+    }
+
+    @Test
+    void transfer_shouldRollBackWholeBatch_whenAllOrNothingItemFails() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L, 30L)))
+                .thenReturn(List.of(first, second));
+
+        BatchTransferResponse response = batchTransferService.transfer(1L, new BatchTransferRequest(
+                BatchTransferMode.ALL_OR_NOTHING,
+                List.of(
+                        new TransferRequest(10L, 20L, new BigDecimal("30")),
+                        new TransferRequest(10L, 30L, new BigDecimal("10"))
+                )
+        ));
+
+        verify(transactionStatus).setRollbackOnly();
+        assertEquals(0, response.getApplied());
+        assertEquals(1, response.getRejected());
+        assertEquals(TransferItemStatus.ROLLED_BACK, response.getResults().get(0).getStatus());
+        assertEquals(TransferItemStatus.REJECTED, response.getResults().get(1).getStatus());
+    }
+
+    @Test
+    void transfer_shouldKeepValidItems_whenBestEffort() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L)))
+                .thenReturn(List.of(first, second));
+
+        BatchTransferResponse response = batchTransferService.transfer(1L, new BatchTransferRequest(
+                BatchTransferMode.BEST_EFFORT,
+                List.of(
+                        new TransferRequest(10L, 20L, new BigDecimal("500")),
+                        new TransferRequest(10L, 20L, new BigDecimal("40"))
+                )
+        ));
+
+        verify(transactionStatus, never()).setRollbackOnly();
+        assertEquals(1, response.getApplied());
+        assertEquals(1, response.getRejected());
+        assertEquals(new BigDecimal("60.00"), first.getBalance());
+        assertEquals(new BigDecimal("90.00"), second.getBalance());
+    }
+
+    @Test
+    void transfer_shouldRejectItem_whenAmountNotPositive() {
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L)))
+                .thenReturn(List.of(first, second));
+
+        BatchTransferResponse response = batchTransferService.transfer(1L, new BatchTransferRequest(
+                BatchTransferMode.BEST_EFFORT,
+                List.of(
+                        new TransferRequest(10L, 20L, new BigDecimal("-40")),
+                        new TransferRequest(10L, 20L, BigDecimal.ZERO)
+                )
+        ));
+
+        assertEquals(0, response.getApplied());
+        assertEquals(2, response.getRejected());
+        assertEquals(new BigDecimal("100.00"), first.getBalance());
+        verifyNoInteractions(velocityLimitService);
+    }
+
+    @Test
+    void transfer_shouldThrowException_whenBatchTooLarge() {
+        List<TransferRequest> items = Collections.nCopies(
+                11, new TransferRequest(10L, 20L, BigDecimal.ONE));
+
+        assertThrows(
+                TransferBatchTooLargeException.class,
+                () -> batchTransferService.transfer(1L, new BatchTransferRequest(BatchTransferMode.BEST_EFFORT, items))
+        );
+        verifyNoInteractions(cardRepository);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.impl.CardReencryptionServiceImpl;
+import com.example.bankcards.util.BlindIndexService;
+import com.example.bankcards.util.CryptoService;
+import com.example.bankcards.util.EncryptedCardNumber;
+import com.example.bankcards.util.EnvelopeCryptoService;
+import com.example.bankcards.util.LocalKeyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardReencryptionServiceTest {
+
+    private static final String FIRST = "4000000000001234";
+    private static final String SECOND = "4000000000005678";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private final CryptoService cryptoService = new CryptoService("16byteslong12345");
+    private final BlindIndexService blindIndexService =
+            new BlindIndexService("0123456789abcdef0123456789abcdef");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private EnvelopeCryptoService envelopeCryptoService;
+    private CardReencryptionServiceImpl cardReencryptionService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path keyFile = directory.resolve("master-keys.properties");
+        Files.writeString(keyFile, "active=master-1\nmaster-1=" + Base64.getEncoder().encodeToString(new byte[32]));
+        LocalKeyService keyService = new LocalKeyService();
+        ReflectionTestUtils.setField(keyService, "keyFile", keyFile);
+        ReflectionTestUtils.invokeMethod(keyService, "init");
+
+        envelopeCryptoService = new EnvelopeCryptoService(keyService, cryptoService);
+        ReflectionTestUtils.setField(envelopeCryptoService, "dataKeyTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(envelopeCryptoService, "dataKeyMaxUses", 1000L);
+        ReflectionTestUtils.setField(envelopeCryptoService, "cacheSize", 16);
+        ReflectionTestUtils.setField(envelopeCryptoService, "cacheTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.invokeMethod(envelopeCryptoService, "init");
+
+        cardReencryptionService = new CardReencryptionServiceImpl(
+                jdbcTemplate, transactionTemplate, cryptoService, envelopeCryptoService, blindIndexService, meterRegistry);
+        ReflectionTestUtils.setField(cardReencryptionService, "chunkSize", 100);
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reencryptChunk_shouldMoveLegacyCardsToEnvelopeWithBlindIndex() throws Exception {
+        List<String> legacy = List.of(cryptoService.encryptLegacy(FIRST), cryptoService.encryptLegacy(SECOND));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(1L, 2L);
+        when(rs.getString("card_number_encrypted")).thenReturn(legacy.get(0), legacy.get(1));
+        when(jdbcTemplate.query(contains("for update skip locked"), any(RowMapper.class), eq(100)))
+                .thenAnswer(inv -> {
+                    RowMapper<?> mapper = inv.getArgument(1);
+                    List<Object> rows = new ArrayList<>();
+                    rows.add(mapper.mapRow(rs, 0));
+                    rows.add(mapper.mapRow(rs, 1));
+                    return rows;
+                });
+
+        assertEquals(2, cardReencryptionService.reencryptChunk());
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("update cards"), updates.capture());
+        Object[] first = updates.getValue().get(0);
+        Object[] second = updates.getValue().get(1);
+
+        assertEquals("master-1", first[1]);
+        assertEquals(FIRST, envelopeCryptoService.decrypt(
+                EncryptedCardNumber.of((String) first[0], (String) first[1], (String) first[2])));
+        assertEquals(blindIndexService.index(FIRST), first[3]);
+        assertEquals(1L, first[4]);
+        assertEquals(SECOND, envelopeCryptoService.decrypt(
+                EncryptedCardNumber.of((String) second[0], (String) second[1], (String) second[2])));
+        assertEquals(2L, second[4]);
+        assertEquals(2.0, meterRegistry.counter("card.reencryption.rows").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reencryptChunk_shouldDoNothing_whenNoCardsPending() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(100))).thenReturn(List.of());
+
+        assertEquals(0, cardReencryptionService.reencryptChunk());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void encrypt_shouldBeRandomizedWhileBlindIndexStaysStable() {
+        String first = cryptoService.encrypt(FIRST);
+        String second = cryptoService.encrypt(FIRST);
+
+        assertNotEquals(first, second);
+        assertEquals(cryptoService.decrypt(first), cryptoService.decrypt(second));
+        assertEquals(blindIndexService.index(FIRST), blindIndexService.index("4000 0000 0000 1234"));
+        assertNotEquals(blindIndexService.index(FIRST), blindIndexService.index(SECOND));
+    }
+}
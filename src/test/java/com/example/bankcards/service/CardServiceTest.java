@@ -4,23 +4,31 @@ import com.example.bankcards.config.mapper.CardMapper;
 import com.example.bankcards.dto.card.CardBalanceDto;
 import com.example.bankcards.dto.card.CardDto;
 import com.example.bankcards.dto.card.CreateCardRequest;
+import com.example.bankcards.dto.card.CurrencyBalance;
 import com.example.bankcards.dto.card.UpdateCardStatusRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.event.OutboxEventType;
 import com.example.bankcards.exception.card.CardAlreadyExistsException;
 import com.example.bankcards.exception.card.CardNotFoundException;
 import com.example.bankcards.exception.user.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.service.impl.CardServiceImpl;
+import com.example.bankcards.util.BlindIndexService;
 import com.example.bankcards.util.CryptoService;
+import com.example.bankcards.util.EncryptedCardNumber;
+import com.example.bankcards.util.EnvelopeCryptoService;
+import com.example.bankcards.util.WrappedKey;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -29,12 +37,15 @@ import org.springframework.data.domain.Pageable;
 import java.math.BigDecimal;
 import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -43,6 +54,18 @@ class CardServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private CardValidationService cardValidationService;
+
+    @Mock
+    private OutboxService outboxService;
+
     @Mock
     private UserRepository userRepository;
 
@@ -52,6 +75,15 @@ class CardServiceTest {
     @Mock
     private CryptoService cryptoService;
 
+    @Mock
+    private EnvelopeCryptoService envelopeCryptoService;
+
+    @Mock
+    private BlindIndexService blindIndexService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -59,7 +91,10 @@ class CardServiceTest {
     private Card card;
 
     private static final String CARD_NUMBER = "1234567812345678";
-    private static final String ENCRYPTED = "encrypted";
+    private static final String ENCRYPTED = "v3:encrypted";
+    private static final WrappedKey DATA_KEY = new WrappedKey("master-1", "wrapped");
+    private static final String LEGACY_ENCRYPTED = "legacy";
+    private static final String HASH = "hash";
     private static final String MASKED = "**** **** **** 5678";
 
     @BeforeEach
@@ -72,6 +107,7 @@ class CardServiceTest {
         card = Card.builder()
                 .id(10L)
                 .encryptedCardNumber(ENCRYPTED)
+                .cardLast4("5678")
                 .owner("JOHN DOE")
                 .expirationDate(YearMonth.of(2030, 12).atEndOfMonth())
                 .status(CardStatus.ACTIVE)
@@ -86,12 +122,16 @@ class CardServiceTest {
                 CARD_NUMBER,
                 "JOHN DOE",
                 YearMonth.of(2030, 12).atEndOfMonth(),
-                1L
+                1L,
+                null
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(cryptoService.encrypt(CARD_NUMBER)).thenReturn(ENCRYPTED);
-        when(cardRepository.existsByEncryptedCardNumber(ENCRYPTED)).thenReturn(false);
+        when(blindIndexService.index(CARD_NUMBER)).thenReturn(HASH);
+        when(cardRepository.existsByCardNumberHash(HASH)).thenReturn(false);
+        when(cryptoService.encryptLegacy(CARD_NUMBER)).thenReturn(LEGACY_ENCRYPTED);
+        when(cardRepository.existsByEncryptedCardNumber(LEGACY_ENCRYPTED)).thenReturn(false);
+        when(envelopeCryptoService.encrypt(CARD_NUMBER)).thenReturn(new EncryptedCardNumber(ENCRYPTED, DATA_KEY));
         when(cardRepository.save(any(Card.class))).thenReturn(card);
 
         CardDto dto = CardDto.builder()
@@ -103,13 +143,21 @@ class CardServiceTest {
                 .balance(BigDecimal.ZERO)
                 .build();
 
-        when(cardMapper.toDto(card, MASKED)).thenReturn(dto);
+        when(cardMapper.toDto(card, MASKED, card.getBalance())).thenReturn(dto);
 
         CardDto result = cardService.create(request);
 
         assertEquals(MASKED, result.getMaskedNumber());
         assertEquals(CardStatus.ACTIVE, result.getStatus());
         assertEquals(BigDecimal.ZERO, result.getBalance());
+
+        ArgumentCaptor<Card> saved = ArgumentCaptor.forClass(Card.class);
+        verify(cardRepository).save(saved.capture());
+        assertEquals(ENCRYPTED, saved.getValue().getEncryptedCardNumber());
+        assertEquals("master-1", saved.getValue().getKeyId());
+        assertEquals("wrapped", saved.getValue().getWrappedKey());
+        assertEquals(HASH, saved.getValue().getCardNumberHash());
+        assertEquals("5678", saved.getValue().getCardLast4());
     }
 
     @Test
@@ -118,7 +166,8 @@ class CardServiceTest {
                 CARD_NUMBER,
                 "JOHN DOE",
                 YearMonth.of(2030, 12).atEndOfMonth(),
-                1L
+                1L,
+                null
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
@@ -132,7 +181,6 @@ class CardServiceTest {
     @Test
     void getById_shouldReturnCard_whenSuccess() {
         when(cardRepository.findById(10L)).thenReturn(Optional.of(card));
-        when(cryptoService.decrypt(ENCRYPTED)).thenReturn(CARD_NUMBER);
 
         CardDto dto = CardDto.builder()
                 .id(10L)
@@ -143,7 +191,7 @@ class CardServiceTest {
                 .balance(new BigDecimal("100.00"))
                 .build();
 
-        when(cardMapper.toDto(card, MASKED)).thenReturn(dto);
+        when(cardMapper.toDto(card, MASKED, card.getBalance())).thenReturn(dto);
 
         CardDto result = cardService.getById(10L);
 
@@ -157,12 +205,36 @@ class CardServiceTest {
                 CARD_NUMBER,
                 "JOHN DOE",
                 YearMonth.of(2030, 12).atEndOfMonth(),
-                1L
+                1L,
+                null
+        );
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(blindIndexService.index(CARD_NUMBER)).thenReturn(HASH);
+        when(cardRepository.existsByCardNumberHash(HASH)).thenReturn(true);
+
+        assertThrows(
+                CardAlreadyExistsException.class,
+                () -> cardService.create(request)
+        );
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void create_shouldThrowException_whenCardAwaitsReencryption() {
+        CreateCardRequest request = new CreateCardRequest(
+                CARD_NUMBER,
+                "JOHN DOE",
+                YearMonth.of(2030, 12).atEndOfMonth(),
+                1L,
+                null
         );
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(cryptoService.encrypt(CARD_NUMBER)).thenReturn(ENCRYPTED);
-        when(cardRepository.existsByEncryptedCardNumber(ENCRYPTED)).thenReturn(true);
+        when(blindIndexService.index(CARD_NUMBER)).thenReturn(HASH);
+        when(cardRepository.existsByCardNumberHash(HASH)).thenReturn(false);
+        when(cryptoService.encryptLegacy(CARD_NUMBER)).thenReturn(LEGACY_ENCRYPTED);
+        when(cardRepository.existsByEncryptedCardNumber(LEGACY_ENCRYPTED)).thenReturn(true);
 
         assertThrows(
                 CardAlreadyExistsException.class,
@@ -170,6 +242,43 @@ class CardServiceTest {
         );
     }
 
+    @Test
+    void getByCardNumber_shouldUseBlindIndex() {
+        when(blindIndexService.index(CARD_NUMBER)).thenReturn(HASH);
+        when(cardRepository.findByCardNumberHash(HASH)).thenReturn(Optional.of(card));
+        when(cardMapper.toDto(card, MASKED, card.getBalance())).thenReturn(CardDto.builder().id(10L).maskedNumber(MASKED).build());
+
+        CardDto result = cardService.getByCardNumber(CARD_NUMBER);
+
+        assertEquals(10L, result.getId());
+        verify(cryptoService, never()).encryptLegacy(any());
+    }
+
+    @Test
+    void getByCardNumber_shouldFallBackToLegacyCiphertext() {
+        when(blindIndexService.index(CARD_NUMBER)).thenReturn(HASH);
+        when(cardRepository.findByCardNumberHash(HASH)).thenReturn(Optional.empty());
+        when(cryptoService.encryptLegacy(CARD_NUMBER)).thenReturn(LEGACY_ENCRYPTED);
+        when(cardRepository.findByEncryptedCardNumber(LEGACY_ENCRYPTED)).thenReturn(Optional.of(card));
+        when(cardMapper.toDto(card, MASKED, card.getBalance())).thenReturn(CardDto.builder().id(10L).maskedNumber(MASKED).build());
+
+        assertEquals(10L, cardService.getByCardNumber(CARD_NUMBER).getId());
+    }
+
+    @Test
+    void getByCardNumber_shouldThrowException_whenCardNotFound() {
+        when(blindIndexService.index(CARD_NUMBER)).thenReturn(HASH);
+        when(cardRepository.findByCardNumberHash(HASH)).thenReturn(Optional.empty());
+        when(cryptoService.encryptLegacy(CARD_NUMBER)).thenReturn(LEGACY_ENCRYPTED);
+        when(cardRepository.findByEncryptedCardNumber(LEGACY_ENCRYPTED)).thenReturn(Optional.empty());
+
+        CardNotFoundException exception = assertThrows(
+                CardNotFoundException.class,
+                () -> cardService.getByCardNumber(CARD_NUMBER)
+        );
+        assertEquals("Card not found", exception.getMessage());
+    }
+
 
     @Test
     void getById_shouldThrowException_whenCardNotFound() {
@@ -187,9 +296,8 @@ class CardServiceTest {
         Page<Card> page = new PageImpl<>(List.of(card), pageable, 1);
 
         when(cardRepository.findAllByUserId(1L, pageable)).thenReturn(page);
-        when(cryptoService.decrypt(ENCRYPTED)).thenReturn(CARD_NUMBER);
 
-        when(cardMapper.toDto(card, MASKED))
+        when(cardMapper.toDto(card, MASKED, card.getBalance()))
                 .thenReturn(CardDto.builder()
                         .id(10L)
                         .maskedNumber(MASKED)
@@ -205,14 +313,36 @@ class CardServiceTest {
     }
 
 
+    @Test
+    void getByUser_shouldIncludeStripesOfWholePageInOneQuery() {
+        card.setStripeCount(4);
+        Card plain = Card.builder()
+                .id(11L)
+                .cardLast4("5678")
+                .balance(new BigDecimal("5.00"))
+                .user(user)
+                .build();
+        Pageable pageable = PageRequest.of(0, 2);
+
+        when(cardRepository.findAllByUserId(1L, pageable))
+                .thenReturn(new PageImpl<>(List.of(card, plain), pageable, 2));
+        when(stripedBalanceService.stripedBalances(List.of(10L)))
+                .thenReturn(Map.of(10L, new BigDecimal("40.00")));
+
+        cardService.getByUser(1L, pageable);
+
+        verify(cardMapper).toDto(card, MASKED, new BigDecimal("140.00"));
+        verify(cardMapper).toDto(plain, MASKED, new BigDecimal("5.00"));
+        verify(stripedBalanceService, never()).stripedBalance(any());
+    }
+
     @Test
     void getAll_shouldReturnPage() {
         Pageable pageable = PageRequest.of(0, 1);
         Page<Card> page = new PageImpl<>(List.of(card), pageable, 1);
 
         when(cardRepository.findAll(pageable)).thenReturn(page);
-        when(cryptoService.decrypt(ENCRYPTED)).thenReturn(CARD_NUMBER);
-        when(cardMapper.toDto(card, MASKED)).thenReturn(
+        when(cardMapper.toDto(card, MASKED, card.getBalance())).thenReturn(
                 CardDto.builder()
                         .id(10L)
                         .maskedNumber(MASKED)
@@ -226,6 +356,7 @@ class CardServiceTest {
         Page<CardDto> result = cardService.getAll(pageable);
 
         assertEquals(1, result.getTotalElements());
+        verifyNoInteractions(cryptoService, envelopeCryptoService);
     }
 
 
@@ -235,8 +366,7 @@ class CardServiceTest {
         Page<Card> page = new PageImpl<>(List.of(card), pageable, 1);
 
         when(cardRepository.findAllByStatus(CardStatus.ACTIVE, pageable)).thenReturn(page);
-        when(cryptoService.decrypt(ENCRYPTED)).thenReturn(CARD_NUMBER);
-        when(cardMapper.toDto(card, MASKED)).thenReturn(
+        when(cardMapper.toDto(card, MASKED, card.getBalance())).thenReturn(
                 CardDto.builder()
                         .id(10L)
                         .maskedNumber(MASKED)
@@ -273,13 +403,70 @@ class CardServiceTest {
     }
 
     @Test
-    void getTotalBalance_shouldReturnSum() {
-        when(cardRepository.sumBalanceByUserId(1L))
-                .thenReturn(new BigDecimal("300.00"));
+    void getTotalBalance_shouldReturnSumPerCurrency() {
+        when(cardRepository.sumBalanceByUserIdGroupByCurrency(1L))
+                .thenReturn(List.of(
+                        new CurrencyBalance("EUR", new BigDecimal("40.00")),
+                        new CurrencyBalance("RUB", new BigDecimal("300.00"))
+                ));
+        when(stripedBalanceService.stripedTotals(1L))
+                .thenReturn(Map.of());
+
+        List<CardBalanceDto> result = cardService.getTotalBalance(1L);
+
+        assertEquals(2, result.size());
+        assertEquals("EUR", result.get(0).getCurrency());
+        assertEquals(new BigDecimal("40.00"), result.get(0).getBalance());
+        assertEquals("RUB", result.get(1).getCurrency());
+        assertEquals(new BigDecimal("300.00"), result.get(1).getBalance());
+    }
+
+    @Test
+    void getTotalBalance_shouldIncludeStripesOfSameCurrency() {
+        when(cardRepository.sumBalanceByUserIdGroupByCurrency(1L))
+                .thenReturn(List.of(
+                        new CurrencyBalance("EUR", new BigDecimal("40.00")),
+                        new CurrencyBalance("RUB", new BigDecimal("300.00"))
+                ));
+        when(stripedBalanceService.stripedTotals(1L))
+                .thenReturn(Map.of("RUB", new BigDecimal("25.00")));
+
+        List<CardBalanceDto> result = cardService.getTotalBalance(1L);
+
+        assertEquals(new BigDecimal("40.00"), result.get(0).getBalance());
+        assertEquals(new BigDecimal("325.00"), result.get(1).getBalance());
+    }
+
+    @Test
+    void setBalance_shouldApplyDeltaInDatabase() {
+        when(cardRepository.addBalance(10L, new BigDecimal("50.00"))).thenReturn(1);
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(card));
+
+        CardBalanceDto dto = cardService.setBalance(10L, new BigDecimal("50.00"));
+
+        assertEquals(new BigDecimal("100.00"), dto.getBalance());
+        verify(cardRepository, never()).save(any());
+        verify(ledgerService).recordAdjustment(10L, new BigDecimal("50.00"));
+    }
+
+    @Test
+    void setBalance_shouldThrow_whenCardNotFound() {
+        when(cardRepository.addBalance(10L, new BigDecimal("50.00"))).thenReturn(0);
+
+        assertThrows(CardNotFoundException.class, () -> cardService.setBalance(10L, new BigDecimal("50.00")));
+
+        verifyNoInteractions(ledgerService);
+    }
 
-        BigDecimal result = cardService.getTotalBalance(1L);
+    @Test
+    void getBalance_shouldAggregateStripes_whenCardIsStriped() {
+        card.setStripeCount(4);
+        when(cardRepository.findByIdAndUserId(10L, 1L)).thenReturn(Optional.of(card));
+        when(stripedBalanceService.stripedBalance(10L)).thenReturn(new BigDecimal("40.00"));
+
+        CardBalanceDto dto = cardService.getBalance(10L, 1L);
 
-        assertEquals(new BigDecimal("300.00"), result);
+        assertEquals(new BigDecimal("140.00"), dto.getBalance());
     }
 
     @Test
@@ -289,9 +476,8 @@ class CardServiceTest {
 
         when(cardRepository.findById(10L)).thenReturn(Optional.of(card));
         when(cardRepository.save(card)).thenReturn(card);
-        when(cryptoService.decrypt(ENCRYPTED)).thenReturn(CARD_NUMBER);
 
-        when(cardMapper.toDto(card, MASKED))
+        when(cardMapper.toDto(card, MASKED, card.getBalance()))
                 .thenReturn(CardDto.builder()
                         .id(10L)
                         .maskedNumber(MASKED)
@@ -304,6 +490,8 @@ class CardServiceTest {
         CardDto result = cardService.updateStatus(10L, request);
 
         assertEquals(CardStatus.BLOCKED, result.getStatus());
+        verify(cardValidationService).invalidate(10L);
+        verify(outboxService).record(OutboxEventType.STATUS_CHANGED, 10L, Map.of("status", CardStatus.BLOCKED));
     }
 
     @Test
@@ -336,6 +524,7 @@ class CardServiceTest {
         cardService.delete(10L);
 
         verify(cardRepository).deleteById(10L);
+        verify(cardValidationService).invalidate(10L);
     }
 }
 
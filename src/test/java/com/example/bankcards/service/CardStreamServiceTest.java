@@ -0,0 +1,125 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.event.OutboxEvent;
+import com.example.bankcards.event.OutboxEventType;
+import com.example.bankcards.exception.card.StreamLimitExceededException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.CardStreamServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardStreamServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private CardStreamServiceImpl cardStreamService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardStreamService, "maxConnections", 10);
+        ReflectionTestUtils.setField(cardStreamService, "maxConnectionsPerUser", 1);
+        ReflectionTestUtils.setField(cardStreamService, "heartbeatInterval", Duration.ofSeconds(15));
+        ReflectionTestUtils.setField(cardStreamService, "idleTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(cardStreamService, "maxLifetime", Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(cardStreamService, "start");
+
+        lenient().when(cardRepository.findByIdAndUserId(10L, 1L)).thenReturn(Optional.of(Card.builder()
+                .id(10L)
+                .balance(new BigDecimal("100.00"))
+                .status(CardStatus.ACTIVE)
+                .build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(cardStreamService, "stop");
+    }
+
+    @Test
+    void subscribe_shouldSendCurrentStateOfUserCards() {
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(10L));
+
+        assertNotNull(cardStreamService.subscribe(1L));
+
+        verify(cardRepository, timeout(1000)).findByIdAndUserId(10L, 1L);
+    }
+
+    @Test
+    void subscribe_shouldRejectConnectionsOverPerUserCap() {
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(10L));
+        cardStreamService.subscribe(1L);
+
+        assertThrows(StreamLimitExceededException.class, () -> cardStreamService.subscribe(1L));
+    }
+
+    @Test
+    void subscribe_shouldNotHoldSlot_whenCardLookupFails() {
+        when(cardRepository.findIdsByUserId(1L))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(List.of(10L));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> cardStreamService.subscribe(1L));
+
+        assertNotNull(cardStreamService.subscribe(1L));
+    }
+
+    @Test
+    void onCardChanged_shouldPushWatchedCardAgain() {
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(10L));
+        cardStreamService.subscribe(1L);
+        verify(cardRepository, timeout(1000)).findByIdAndUserId(10L, 1L);
+
+        cardStreamService.onCardChanged(new CardChangedEvent(10L));
+        cardStreamService.onCardChanged(new CardChangedEvent(99L));
+
+        verify(cardRepository, timeout(1000).times(2)).findByIdAndUserId(10L, 1L);
+        verify(cardRepository, never()).findByIdAndUserId(99L, 1L);
+    }
+
+    @Test
+    void onOutboxEvent_shouldPushBothCardsOfTransfer() {
+        when(cardRepository.findIdsByUserId(1L)).thenReturn(List.of(10L));
+        cardStreamService.subscribe(1L);
+        verify(cardRepository, timeout(1000)).findByIdAndUserId(10L, 1L);
+
+        cardStreamService.onOutboxEvent(new OutboxEvent(1L, OutboxEventType.TRANSFER, 20L,
+                "{\"fromCardId\":20,\"toCardId\":10,\"amount\":5.00}", LocalDateTime.now()));
+
+        verify(cardRepository, timeout(1000).times(2)).findByIdAndUserId(10L, 1L);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardOwnership;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CurrencyMismatchException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.CardValidationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardValidationServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private CardValidationServiceImpl cardValidationService;
+
+    private final TransferRequest request = new TransferRequest(10L, 20L, new BigDecimal("30.00"));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardValidationService, "cacheSize", 100);
+        ReflectionTestUtils.setField(cardValidationService, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(cardValidationService, "init");
+    }
+
+    @Test
+    void precheck_shouldLoadEachCardOnce() {
+        when(cardRepository.findOwnershipById(10L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")));
+        when(cardRepository.findOwnershipById(20L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")));
+
+        cardValidationService.precheck(1L, request);
+        cardValidationService.precheck(1L, request);
+
+        verify(cardRepository, times(1)).findOwnershipById(10L);
+        verify(cardRepository, times(1)).findOwnershipById(20L);
+    }
+
+    @Test
+    void precheck_shouldRejectForeignCardFromCache() {
+        when(cardRepository.findOwnershipById(10L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")));
+        when(cardRepository.findOwnershipById(20L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")));
+        cardValidationService.precheck(1L, request);
+
+        assertThrows(AccessDeniedException.class, () -> cardValidationService.precheck(2L, request));
+        verify(cardRepository, times(1)).findOwnershipById(10L);
+    }
+
+    @Test
+    void precheck_shouldReloadStatus_afterInvalidation() {
+        when(cardRepository.findOwnershipById(10L))
+                .thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")))
+                .thenReturn(Optional.of(new CardOwnership(1L, CardStatus.BLOCKED, "RUB")));
+        when(cardRepository.findOwnershipById(20L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")));
+        cardValidationService.precheck(1L, request);
+
+        cardValidationService.invalidate(10L);
+
+        assertThrows(CardNotActiveException.class, () -> cardValidationService.precheck(1L, request));
+    }
+
+    @Test
+    void precheck_shouldRejectMissingCardWithoutCachingIt() {
+        when(cardRepository.findOwnershipById(10L)).thenReturn(Optional.empty());
+
+        assertThrows(CardNotFoundException.class, () -> cardValidationService.precheck(1L, request));
+        assertThrows(CardNotFoundException.class, () -> cardValidationService.precheck(1L, request));
+        verify(cardRepository, times(2)).findOwnershipById(10L);
+    }
+
+    @Test
+    void requireSameCurrency_shouldRejectCardsInDifferentCurrencies() {
+        when(cardRepository.findOwnershipById(10L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "RUB")));
+        when(cardRepository.findOwnershipById(20L)).thenReturn(Optional.of(new CardOwnership(1L, CardStatus.ACTIVE, "USD")));
+
+        assertThrows(
+                CurrencyMismatchException.class,
+                () -> cardValidationService.requireSameCurrency(request)
+        );
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.CurrencyMismatchException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.ConditionalTransferServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalTransferServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private VelocityLimitService velocityLimitService;
+
+    @Mock
+    private CardValidationService cardValidationService;
+
+    @InjectMocks
+    private ConditionalTransferServiceImpl transferService;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("30");
+
+    private Card fromCard;
+
+    @BeforeEach
+    void setUp() {
+        User user = User.builder()
+                .id(1L)
+                .username("john")
+                .build();
+
+        fromCard = Card.builder()
+                .id(10L)
+                .user(user)
+                .balance(new BigDecimal("10.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+    }
+
+    @Test
+    void transfer_shouldDebitThenCredit_whenFromIdIsLower() {
+        when(cardRepository.debitIfActive(10L, 1L, AMOUNT)).thenReturn(1);
+        when(cardRepository.creditIfActive(20L, 1L, AMOUNT)).thenReturn(1);
+
+        transferService.transfer(1L, new TransferRequest(10L, 20L, AMOUNT));
+
+        InOrder order = inOrder(cardRepository);
+        order.verify(cardRepository).debitIfActive(10L, 1L, AMOUNT);
+        order.verify(cardRepository).creditIfActive(20L, 1L, AMOUNT);
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void transfer_shouldCreditThenDebit_whenFromIdIsHigher() {
+        when(cardRepository.creditIfActive(10L, 1L, AMOUNT)).thenReturn(1);
+        when(cardRepository.debitIfActive(20L, 1L, AMOUNT)).thenReturn(1);
+
+        transferService.transfer(1L, new TransferRequest(20L, 10L, AMOUNT));
+
+        InOrder order = inOrder(cardRepository);
+        order.verify(cardRepository).creditIfActive(10L, 1L, AMOUNT);
+        order.verify(cardRepository).debitIfActive(20L, 1L, AMOUNT);
+    }
+
+    @Test
+    void transfer_shouldThrowInsufficientFunds_whenDebitGuardFails() {
+        when(cardRepository.debitIfActive(10L, 1L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
+
+        assertThrows(
+                InsufficientFundsException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 20L, AMOUNT))
+        );
+        verify(cardRepository, never()).creditIfActive(any(), any(), any());
+    }
+
+    @Test
+    void transfer_shouldCompactStripesAndRetryDebit_whenSourceIsStriped() {
+        when(cardRepository.debitIfActive(10L, 1L, AMOUNT)).thenReturn(0).thenReturn(1);
+        when(cardRepository.findStripeCountById(10L)).thenReturn(Optional.of(4));
+        when(stripedBalanceService.compact(10L)).thenReturn(new BigDecimal("50.00"));
+        when(cardRepository.creditIfActive(20L, 1L, AMOUNT)).thenReturn(1);
+
+        transferService.transfer(1L, new TransferRequest(10L, 20L, AMOUNT));
+
+        verify(cardRepository, times(2)).debitIfActive(10L, 1L, AMOUNT);
+        verify(cardRepository, never()).findById(any());
+    }
+
+    @Test
+    void transfer_shouldThrowAccessDenied_whenCardBelongsToAnotherUser() {
+        when(cardRepository.debitIfActive(10L, 2L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
+
+        assertThrows(
+                AccessDeniedException.class,
+                () -> transferService.transfer(2L, new TransferRequest(10L, 20L, AMOUNT))
+        );
+    }
+
+    @Test
+    void transfer_shouldThrowCardNotFound_whenCreditTargetMissing() {
+        when(cardRepository.debitIfActive(10L, 1L, AMOUNT)).thenReturn(1);
+        when(cardRepository.creditIfActive(20L, 1L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findById(20L)).thenReturn(Optional.empty());
+
+        assertThrows(
+                CardNotFoundException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 20L, AMOUNT))
+        );
+    }
+
+    @Test
+    void transfer_shouldRejectInactiveCard() {
+        fromCard.setStatus(CardStatus.BLOCKED);
+        when(cardRepository.debitIfActive(10L, 1L, AMOUNT)).thenReturn(0);
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
+
+        assertThrows(
+                CardNotActiveException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 20L, AMOUNT))
+        );
+    }
+
+    @Test
+    void transfer_shouldRejectBeforeTouchingRows_whenCurrenciesDiffer() {
+        TransferRequest request = new TransferRequest(10L, 20L, new BigDecimal("30.00"));
+        doThrow(new CurrencyMismatchException("RUB", "USD"))
+                .when(cardValidationService).requireSameCurrency(request);
+
+        assertThrows(
+                CurrencyMismatchException.class,
+                () -> transferService.transfer(1L, request)
+        );
+        verifyNoInteractions(cardRepository, ledgerService, velocityLimitService);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.exception.card.FxRateNotFoundException;
+import com.example.bankcards.service.impl.FxRateServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FxRateServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FxRateServiceImpl fxRateService;
+
+    @Test
+    void convert_shouldRoundHalfEvenToCents() {
+        load(new String[][]{{"RUB", "USD", "0.50000000"}});
+
+        // 0.05 * 0.5 = 0.025 and 0.07 * 0.5 = 0.035: both ties go to the even cent
+        assertEquals(new BigDecimal("0.02"), fxRateService.convert("RUB", "USD", new BigDecimal("0.05")).getCreditedAmount());
+        assertEquals(new BigDecimal("0.04"), fxRateService.convert("RUB", "USD", new BigDecimal("0.07")).getCreditedAmount());
+    }
+
+    @Test
+    void convert_shouldUseInverse_whenOnlyOppositePairIsQuoted() {
+        load(new String[][]{{"USD", "RUB", "80.00000000"}});
+
+        FxConversion conversion = fxRateService.convert("RUB", "USD", new BigDecimal("100.00"));
+
+        assertEquals(new BigDecimal("0.01250000"), conversion.getRate());
+        assertEquals(new BigDecimal("1.25"), conversion.getCreditedAmount());
+    }
+
+    @Test
+    void convert_shouldPreferQuotedRateOverInverse() {
+        load(new String[][]{{"USD", "RUB", "80.00000000"}, {"RUB", "USD", "0.01200000"}});
+
+        assertEquals(new BigDecimal("0.01200000"), fxRateService.convert("RUB", "USD", BigDecimal.TEN).getRate());
+    }
+
+    @Test
+    void refresh_shouldSwapSnapshot() {
+        load(new String[][]{{"RUB", "USD", "0.01250000"}});
+        load(new String[][]{});
+
+        assertThrows(
+                FxRateNotFoundException.class,
+                () -> fxRateService.convert("RUB", "USD", BigDecimal.TEN)
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load(String[][] rows) {
+        doAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> mapped = new ArrayList<>();
+            for (String[] row : rows) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("base_currency")).thenReturn(row[0]);
+                when(rs.getString("quote_currency")).thenReturn(row[1]);
+                when(rs.getBigDecimal("rate")).thenReturn(new BigDecimal(row[2]));
+                mapped.add(mapper.mapRow(rs, mapped.size()));
+            }
+            return mapped;
+        }).when(jdbcTemplate).query(anyString(), any(RowMapper.class));
+        fxRateService.refresh();
+    }
+}
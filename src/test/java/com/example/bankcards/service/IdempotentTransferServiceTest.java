@@ -0,0 +1,233 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.IdempotencyKeyReusedException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.card.ReplayedTransferException;
+import com.example.bankcards.exception.card.TransferEngineOverloadedException;
+import com.example.bankcards.exception.card.VelocityLimitExceededException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.example.bankcards.service.impl.IdempotentTransferServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentTransferServiceTest {
+
+    @Mock
+    private TransferService transferService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private IdempotentTransferServiceImpl idempotentTransferService;
+
+    private final TransferRequest request =
+            new TransferRequest(10L, 20L, new BigDecimal("30.00"));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(idempotentTransferService, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(idempotentTransferService, "cacheSize", 100);
+        ReflectionTestUtils.setField(idempotentTransferService, "maxAttempts", 1);
+        ReflectionTestUtils.invokeMethod(idempotentTransferService, "init");
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(transactionStatus));
+    }
+
+    @Test
+    void transfer_shouldExecuteOnce_andAnswerRetryFromMemory() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-1"))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.claim(eq(1L), eq("key-1"), anyString(), eq(200), isNull(), any(), any()))
+                .thenReturn(1);
+
+        assertFalse(idempotentTransferService.transfer(1L, "key-1", request));
+        assertTrue(idempotentTransferService.transfer(1L, "key-1",
+                new TransferRequest(10L, 20L, new BigDecimal("30"))));
+
+        verify(transferService, times(1)).transfer(eq(1L), any(TransferRequest.class));
+        verify(idempotencyKeyRepository, times(1)).findByUserIdAndIdempotencyKey(1L, "key-1");
+    }
+
+    @Test
+    void transfer_shouldReplayFromDatabase_whenNotCached() {
+        IdempotencyKey stored = storedKey("key-2", 200, null);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-2"))
+                .thenReturn(Optional.of(stored));
+
+        assertTrue(idempotentTransferService.transfer(1L, "key-2", request));
+
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void transfer_shouldReplayOriginalRejection() {
+        IdempotencyKey stored = storedKey("key-3", 405, "You don't have that much money in your balance.");
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-3"))
+                .thenReturn(Optional.of(stored));
+
+        ReplayedTransferException ex = assertThrows(
+                ReplayedTransferException.class,
+                () -> idempotentTransferService.transfer(1L, "key-3", request)
+        );
+
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, ex.getStatus());
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void transfer_shouldRecordRejection_whenTransferFails() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-4"))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.claim(eq(1L), eq("key-4"), anyString(), anyInt(), any(), any(), any()))
+                .thenReturn(1);
+        doThrow(new InsufficientFundsException())
+                .when(transferService).transfer(eq(1L), any(TransferRequest.class));
+
+        assertThrows(
+                InsufficientFundsException.class,
+                () -> idempotentTransferService.transfer(1L, "key-4", request)
+        );
+        assertThrows(
+                ReplayedTransferException.class,
+                () -> idempotentTransferService.transfer(1L, "key-4", request)
+        );
+
+        verify(idempotencyKeyRepository).claim(eq(1L), eq("key-4"), anyString(), eq(405), anyString(), any(), any());
+        verify(transferService, times(1)).transfer(eq(1L), any(TransferRequest.class));
+    }
+
+    @Test
+    void transfer_shouldRecordRejection_whenCardNotActive() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-6"))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.claim(eq(1L), eq("key-6"), anyString(), anyInt(), any(), any(), any()))
+                .thenReturn(1);
+        doThrow(new CardNotActiveException())
+                .when(transferService).transfer(eq(1L), any(TransferRequest.class));
+
+        assertThrows(
+                CardNotActiveException.class,
+                () -> idempotentTransferService.transfer(1L, "key-6", request)
+        );
+
+        verify(idempotencyKeyRepository).claim(eq(1L), eq("key-6"), anyString(), eq(400), anyString(), any(), any());
+    }
+
+    @Test
+    void transfer_shouldExecuteRetry_whenEngineWasOverloaded() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-7"))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.claim(eq(1L), eq("key-7"), anyString(), anyInt(), any(), any(), any()))
+                .thenReturn(1);
+        doThrow(new TransferEngineOverloadedException())
+                .doNothing()
+                .when(transferService).transfer(eq(1L), any(TransferRequest.class));
+
+        assertThrows(
+                TransferEngineOverloadedException.class,
+                () -> idempotentTransferService.transfer(1L, "key-7", request)
+        );
+        assertFalse(idempotentTransferService.transfer(1L, "key-7", request));
+
+        verify(transferService, times(2)).transfer(eq(1L), any(TransferRequest.class));
+        verify(idempotencyKeyRepository, never())
+                .claim(eq(1L), eq("key-7"), anyString(), eq(503), any(), any(), any());
+    }
+
+    @Test
+    void transfer_shouldExecuteRetry_whenVelocityLimitWasHit() {
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-8"))
+                .thenReturn(Optional.empty());
+        when(idempotencyKeyRepository.claim(eq(1L), eq("key-8"), anyString(), anyInt(), any(), any(), any()))
+                .thenReturn(1);
+        doThrow(new VelocityLimitExceededException(10L, "daily"))
+                .doNothing()
+                .when(transferService).transfer(eq(1L), any(TransferRequest.class));
+
+        assertThrows(
+                VelocityLimitExceededException.class,
+                () -> idempotentTransferService.transfer(1L, "key-8", request)
+        );
+        assertFalse(idempotentTransferService.transfer(1L, "key-8", request));
+
+        verify(transferService, times(2)).transfer(eq(1L), any(TransferRequest.class));
+        verify(idempotencyKeyRepository, never())
+                .claim(eq(1L), eq("key-8"), anyString(), eq(429), any(), any(), any());
+    }
+
+    @Test
+    void transfer_shouldReplayWinner_whenConcurrentRequestClaimedKeyFirst() {
+        IdempotencyKey winner = storedKey("key-5", 200, null);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-5"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(winner));
+        when(idempotencyKeyRepository.claim(eq(1L), eq("key-5"), anyString(), eq(200), isNull(), any(), any()))
+                .thenReturn(0);
+
+        assertTrue(idempotentTransferService.transfer(1L, "key-5", request));
+
+        verify(transactionStatus).setRollbackOnly();
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void transfer_shouldRejectKeyReuseWithDifferentPayload() {
+        IdempotencyKey stored = storedKey("key-6", 200, null);
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(1L, "key-6"))
+                .thenReturn(Optional.of(stored));
+
+        assertThrows(
+                IdempotencyKeyReusedException.class,
+                () -> idempotentTransferService.transfer(1L, "key-6",
+                        new TransferRequest(10L, 20L, new BigDecimal("31.00")))
+        );
+    }
+
+    private IdempotencyKey storedKey(String key, int status, String message) {
+        String requestHash = ReflectionTestUtils.invokeMethod(idempotentTransferService, "fingerprint", request);
+        return IdempotencyKey.builder()
+                .userId(1L)
+                .idempotencyKey(key)
+                .requestHash(requestHash)
+                .responseStatus(status)
+                .responseMessage(message)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.card.InvalidRotationRateException;
+import com.example.bankcards.service.impl.KeyRotationServiceImpl;
+import com.example.bankcards.util.CryptoService;
+import com.example.bankcards.util.EncryptedCardNumber;
+import com.example.bankcards.util.EnvelopeCryptoService;
+import com.example.bankcards.util.LocalKeyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeyRotationServiceTest {
+
+    private static final String FIRST = "4000000000001234";
+    private static final String SECOND = "4000000000005678";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private final CryptoService cryptoService = new CryptoService("16byteslong12345");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private Path keyFile;
+    private LocalKeyService keyService;
+    private EnvelopeCryptoService envelopeCryptoService;
+    private KeyRotationServiceImpl keyRotationService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        keyFile = directory.resolve("master-keys.properties");
+        writeKeys("master-1");
+        keyService = new LocalKeyService();
+        ReflectionTestUtils.setField(keyService, "keyFile", keyFile);
+        ReflectionTestUtils.invokeMethod(keyService, "init");
+
+        envelopeCryptoService = new EnvelopeCryptoService(keyService, cryptoService);
+        ReflectionTestUtils.setField(envelopeCryptoService, "dataKeyTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(envelopeCryptoService, "dataKeyMaxUses", 1000L);
+        ReflectionTestUtils.setField(envelopeCryptoService, "cacheSize", 16);
+        ReflectionTestUtils.setField(envelopeCryptoService, "cacheTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.invokeMethod(envelopeCryptoService, "init");
+
+        keyRotationService = new KeyRotationServiceImpl(
+                jdbcTemplate, transactionTemplate, keyService, envelopeCryptoService, meterRegistry);
+        ReflectionTestUtils.setField(keyRotationService, "parallelism", 2);
+        ReflectionTestUtils.setField(keyRotationService, "initialRowsPerSecond", 1000);
+        ReflectionTestUtils.setField(keyRotationService, "maxRowsPerSecond", 5000);
+        ReflectionTestUtils.invokeMethod(keyRotationService, "init");
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(keyRotationService, "shutdown");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotateChunk_shouldMoveCardsToActiveMasterKeyAndCheckpoint() throws Exception {
+        EncryptedCardNumber first = envelopeCryptoService.encrypt(FIRST);
+        String second = cryptoService.encrypt(SECOND);
+        activate("master-2");
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L, 9L);
+        when(rs.getString("card_number_encrypted")).thenReturn(first.ciphertext(), second);
+        when(rs.getString("key_id")).thenReturn(first.keyId(), (String) null);
+        when(rs.getString("wrapped_key")).thenReturn(first.wrappedKey(), (String) null);
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq("master-2")))
+                .thenReturn(List.of(0L));
+        when(jdbcTemplate.query(contains("from cards"), any(RowMapper.class), eq(0L), eq("master-2"), eq(100)))
+                .thenAnswer(inv -> {
+                    RowMapper<?> mapper = inv.getArgument(1);
+                    List<Object> rows = new ArrayList<>();
+                    rows.add(mapper.mapRow(rs, 0));
+                    rows.add(mapper.mapRow(rs, 1));
+                    return rows;
+                });
+        when(jdbcTemplate.batchUpdate(contains("update cards"), anyList())).thenReturn(new int[]{1, 0});
+
+        assertEquals(2, keyRotationService.rotateChunk(100));
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("and card_number_encrypted = ?"), updates.capture());
+        Object[] firstUpdate = updates.getValue().get(0);
+        Object[] secondUpdate = updates.getValue().get(1);
+
+        assertEquals("master-2", firstUpdate[1]);
+        assertEquals(FIRST, envelopeCryptoService.decrypt(
+                EncryptedCardNumber.of((String) firstUpdate[0], (String) firstUpdate[1], (String) firstUpdate[2])));
+        assertEquals(7L, firstUpdate[3]);
+        assertEquals(first.ciphertext(), firstUpdate[4]);
+        assertEquals(SECOND, envelopeCryptoService.decrypt(
+                EncryptedCardNumber.of((String) secondUpdate[0], (String) secondUpdate[1], (String) secondUpdate[2])));
+        assertEquals(second, secondUpdate[4]);
+
+        verify(jdbcTemplate).update(contains("set last_card_id"), eq(9L), eq(1), eq(1), eq("master-2"));
+        assertEquals(1.0, meterRegistry.counter("card.key-rotation.rows", "result", "rotated").count());
+        assertEquals(1.0, meterRegistry.counter("card.key-rotation.rows", "result", "conflict").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotateChunk_shouldCompleteRotation_whenNoCardsLeftAfterCheckpoint() {
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq("master-1")))
+                .thenReturn(List.of(42L));
+        when(jdbcTemplate.query(contains("from cards"), any(RowMapper.class), eq(42L), eq("master-1"), eq(100)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.query(contains("from cards"), any(RowMapper.class), eq(0L), eq("master-1"), eq(100)))
+                .thenReturn(List.of());
+
+        assertEquals(0, keyRotationService.rotateChunk(100));
+
+        verify(jdbcTemplate).update(contains("set completed_at"), eq("master-1"));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotateChunk_shouldRestartFromFirstCard_whenOldKeyRemainsBehindCheckpoint() throws Exception {
+        String skipped = cryptoService.encrypt(FIRST);
+
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(3L);
+        when(rs.getString("card_number_encrypted")).thenReturn(skipped);
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq("master-1")))
+                .thenReturn(List.of(42L));
+        when(jdbcTemplate.query(contains("from cards"), any(RowMapper.class), eq(42L), eq("master-1"), eq(100)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.query(contains("from cards"), any(RowMapper.class), eq(0L), eq("master-1"), eq(100)))
+                .thenAnswer(inv -> List.of(inv.<RowMapper<?>>getArgument(1).mapRow(rs, 0)));
+        when(jdbcTemplate.batchUpdate(contains("update cards"), anyList())).thenReturn(new int[]{1});
+
+        assertEquals(1, keyRotationService.rotateChunk(100));
+
+        verify(jdbcTemplate).update(contains("set last_card_id"), eq(3L), eq(1), eq(0), eq("master-1"));
+        verify(jdbcTemplate, never()).update(contains("set completed_at"), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotateChunk_shouldSkip_whenCheckpointHeldElsewhere() {
+        when(jdbcTemplate.queryForList(contains("for update skip locked"), eq(Long.class), eq("master-1")))
+                .thenReturn(List.of());
+
+        assertEquals(0, keyRotationService.rotateChunk(100));
+
+        verify(jdbcTemplate, never()).query(contains("from cards"), any(RowMapper.class), any(), any(), any());
+    }
+
+    @Test
+    void setRateLimit_shouldApplyImmediately() {
+        keyRotationService.setRateLimit(0);
+
+        assertEquals(0, keyRotationService.rateLimit());
+    }
+
+    @Test
+    void setRateLimit_shouldRejectOutOfRange() {
+        assertThrows(InvalidRotationRateException.class, () -> keyRotationService.setRateLimit(-1));
+        assertThrows(InvalidRotationRateException.class, () -> keyRotationService.setRateLimit(5001));
+        assertEquals(1000, keyRotationService.rateLimit());
+    }
+
+    private void writeKeys(String active) throws Exception {
+        Files.writeString(keyFile, "active=" + active + "\n"
+                + "master-1=" + Base64.getEncoder().encodeToString(new byte[32]) + "\n"
+                + "master-2=" + Base64.getEncoder().encodeToString(new byte[]{
+                1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}));
+    }
+
+    private void activate(String active) throws Exception {
+        writeKeys(active);
+        Files.setLastModifiedTime(keyFile, FileTime.from(Instant.now().plusSeconds(60)));
+        keyService.refresh();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.FxConversion;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.entity.LedgerEntry;
+import com.example.bankcards.entity.LedgerEntryType;
+import com.example.bankcards.entity.LedgerReason;
+import com.example.bankcards.service.impl.LedgerServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransferHistoryService transferHistoryService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @InjectMocks
+    private LedgerServiceImpl ledgerService;
+
+    @Test
+    void transferEntries_shouldPairDebitAndCredit() {
+        List<LedgerEntry> entries = ledgerService.transferEntries(
+                new TransferRequest(10L, 20L, new BigDecimal("30.00")));
+
+        assertEquals(2, entries.size());
+        assertEquals(entries.get(0).getTxId(), entries.get(1).getTxId());
+        assertEquals(10L, entries.get(0).getCardId());
+        assertEquals(LedgerEntryType.DEBIT, entries.get(0).getEntryType());
+        assertEquals(20L, entries.get(1).getCardId());
+        assertEquals(LedgerEntryType.CREDIT, entries.get(1).getEntryType());
+        assertEquals(LedgerReason.TRANSFER, entries.get(0).getReason());
+    }
+
+    @Test
+    void transferEntries_shouldSwapSides_whenAmountIsNegative() {
+        List<LedgerEntry> entries = ledgerService.transferEntries(
+                new TransferRequest(10L, 20L, new BigDecimal("-5.00")));
+
+        assertEquals(20L, entries.get(0).getCardId());
+        assertEquals(10L, entries.get(1).getCardId());
+        assertEquals(new BigDecimal("5.00"), entries.get(0).getAmount());
+    }
+
+    @Test
+    void recordAdjustment_shouldBalanceAgainstExternalAccount() {
+        ledgerService.recordAdjustment(10L, new BigDecimal("100.00"));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<LedgerEntry> entries) ->
+                entries.size() == 2
+                        && entries.get(0).getCardId() == null
+                        && entries.get(1).getCardId() == 10L
+                        && entries.get(1).getReason() == LedgerReason.ADJUSTMENT), anyInt(), any());
+    }
+
+    @Test
+    void recordTransfers_shouldWriteOneBatchForAllTransfers() {
+        ledgerService.recordTransfers(List.of(
+                new TransferRequest(10L, 20L, new BigDecimal("1.00")),
+                new TransferRequest(20L, 30L, new BigDecimal("2.00"))
+        ));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(),
+                argThat((List<LedgerEntry> entries) -> entries.size() == 4), anyInt(), any());
+        verify(transferHistoryService).record(argThat(transfers -> transfers.size() == 2));
+    }
+
+    @Test
+    void record_shouldSkipEmptyBatch() {
+        ledgerService.recordAdjustment(10L, BigDecimal.ZERO);
+
+        verifyNoInteractions(jdbcTemplate);
+        assertTrue(ledgerService.transferEntries(new TransferRequest(1L, 2L, BigDecimal.ZERO)).isEmpty());
+    }
+
+    @Test
+    void recordTransfer_shouldEnterEachSideInItsOwnCurrency_whenConverted() {
+        TransferRequest transfer = new TransferRequest(10L, 20L, new BigDecimal("30.00"));
+        FxConversion conversion = new FxConversion("RUB", "USD", new BigDecimal("0.01100000"), new BigDecimal("0.33"));
+
+        ledgerService.recordTransfer(transfer, conversion);
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<LedgerEntry> entries) ->
+                entries.size() == 2
+                        && entries.get(0).getAmount().equals(new BigDecimal("30.00"))
+                        && entries.get(1).getAmount().equals(new BigDecimal("0.33"))), anyInt(), any());
+        verify(transferHistoryService).record(transfer, conversion);
+        verify(outboxService).recordTransfer(transfer, conversion);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.event.OutboxEventType;
+import com.example.bankcards.service.impl.OutboxServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private OutboxServiceImpl outboxService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxService, "enabled", true);
+        ReflectionTestUtils.setField(outboxService, "batchSize", 500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordTransfers_shouldWriteOneEventPerTransfer() throws Exception {
+        outboxService.recordTransfers(List.of(
+                new TransferRequest(10L, 20L, new BigDecimal("30.00")),
+                new TransferRequest(20L, 10L, new BigDecimal("5.00"))
+        ));
+
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), eq(500), setter.capture());
+        assertEquals(2, rows.getValue().size());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps, rows.getValue().iterator().next());
+        verify(ps).setString(1, "TRANSFER");
+        verify(ps).setString(3, "{\"fromCardId\":10,\"toCardId\":20,\"amount\":30.00}");
+    }
+
+    @Test
+    void record_shouldDoNothing_whenDisabled() {
+        ReflectionTestUtils.setField(outboxService, "enabled", false);
+
+        outboxService.record(OutboxEventType.CARD_DELETED, 10L, Map.of());
+        outboxService.recordTransfers(List.of(new TransferRequest(10L, 20L, BigDecimal.ONE)));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
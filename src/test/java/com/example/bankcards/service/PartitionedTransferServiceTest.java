@@ -0,0 +1,213 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.event.CardChangedEvent;
+import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.PartitionedTransferServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedTransferServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private VelocityLimitService velocityLimitService;
+
+    @Mock
+    private CardValidationService cardValidationService;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private PartitionedTransferServiceImpl transferService;
+
+    private final List<Object[]> writes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferService, "partitionCount", 2);
+        ReflectionTestUtils.setField(transferService, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(transferService, "commitIntervalMs", 1L);
+        ReflectionTestUtils.setField(transferService, "queueCapacity", 100);
+        ReflectionTestUtils.setField(transferService, "maxCards", 100);
+        ReflectionTestUtils.setField(transferService, "shutdownTimeoutMs", 1000L);
+        ReflectionTestUtils.invokeMethod(transferService, "start");
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> args = inv.getArgument(1);
+            synchronized (writes) {
+                writes.addAll(args);
+            }
+            int[] updated = new int[args.size()];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(transferService, "stop");
+    }
+
+    @Test
+    void transfer_shouldCommitBothSides_whenCardsShareAPartition() throws Exception {
+        stubCard(10L, 1L, "ACTIVE", "100.00");
+        stubCard(12L, 1L, "ACTIVE", "0.00");
+        TransferRequest request = new TransferRequest(10L, 12L, new BigDecimal("30.00"));
+
+        transferService.transfer(1L, request);
+
+        assertEquals(new BigDecimal("-30.00"), delta(10L));
+        assertEquals(new BigDecimal("30.00"), delta(12L));
+        verify(ledgerService).recordTransfers(List.of(request));
+    }
+
+    @Test
+    void transfer_shouldUseConditionalUpdates_whenCallerHasTransaction() {
+        TransferRequest request = new TransferRequest(10L, 12L, new BigDecimal("30.00"));
+        when(cardRepository.debitIfActive(10L, 1L, new BigDecimal("30.00"))).thenReturn(1);
+        when(cardRepository.creditIfActive(12L, 1L, new BigDecimal("30.00"))).thenReturn(1);
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            transferService.transfer(1L, request);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        verify(ledgerService).recordTransfer(request);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(eventPublisher).publishEvent(new CardChangedEvent(10L));
+        verify(eventPublisher).publishEvent(new CardChangedEvent(12L));
+    }
+
+    @Test
+    void transfer_shouldReserveAndApply_whenCardsAreInDifferentPartitions() throws Exception {
+        stubCard(10L, 1L, "ACTIVE", "100.00");
+        stubCard(11L, 1L, "ACTIVE", "0.00");
+
+        transferService.transfer(1L, new TransferRequest(10L, 11L, new BigDecimal("60.00")));
+
+        assertEquals(new BigDecimal("-60.00"), delta(10L));
+        assertEquals(new BigDecimal("60.00"), delta(11L));
+        assertThrows(
+                InsufficientFundsException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 11L, new BigDecimal("60.00")))
+        );
+    }
+
+    @Test
+    void transfer_shouldReleaseHold_whenTargetIsRejected() throws Exception {
+        stubCard(10L, 1L, "ACTIVE", "100.00");
+        stubCard(11L, 1L, "ACTIVE", "0.00");
+        stubMissingCard(13L);
+
+        assertThrows(
+                CardNotFoundException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 13L, new BigDecimal("100.00")))
+        );
+
+        transferService.transfer(1L, new TransferRequest(10L, 11L, new BigDecimal("100.00")));
+        assertEquals(new BigDecimal("-100.00"), delta(10L));
+    }
+
+    @Test
+    void transfer_shouldRejectForeignCard_withoutWriting() throws Exception {
+        stubCard(10L, 2L, "ACTIVE", "100.00");
+        stubCard(12L, 1L, "ACTIVE", "0.00");
+
+        assertThrows(
+                AccessDeniedException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 12L, new BigDecimal("10.00")))
+        );
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void onCardChanged_shouldReloadCardFromDatabase() throws Exception {
+        stubCard(10L, 1L, "ACTIVE", "100.00");
+        stubCard(12L, 1L, "ACTIVE", "0.00");
+        transferService.transfer(1L, new TransferRequest(10L, 12L, new BigDecimal("10.00")));
+
+        stubCard(10L, 1L, "BLOCKED", "90.00");
+        transferService.onCardChanged(new CardChangedEvent(10L));
+
+        assertThrows(
+                CardNotActiveException.class,
+                () -> transferService.transfer(1L, new TransferRequest(10L, 12L, new BigDecimal("10.00")))
+        );
+    }
+
+    private void stubCard(Long cardId, Long userId, String status, String balance) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("user_id")).thenReturn(userId);
+        when(rs.getString("status")).thenReturn(status);
+        when(rs.getBigDecimal("balance")).thenReturn(new BigDecimal(balance));
+
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(cardId)))
+                .thenAnswer(inv -> List.of(inv.<RowMapper<?>>getArgument(1).mapRow(rs, 0)));
+    }
+
+    private void stubMissingCard(Long cardId) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(cardId))).thenReturn(List.of());
+    }
+
+    private BigDecimal delta(Long cardId) {
+        synchronized (writes) {
+            return writes.stream()
+                    .filter(args -> args[1].equals(cardId))
+                    .map(args -> (BigDecimal) args[0])
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+}
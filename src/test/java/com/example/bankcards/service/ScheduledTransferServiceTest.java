@@ -0,0 +1,190 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CreateScheduledTransferRequest;
+import com.example.bankcards.dto.card.ScheduledTransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.ScheduledTransfer;
+import com.example.bankcards.entity.ScheduledTransferStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ScheduledTransferRepository;
+import com.example.bankcards.service.impl.ScheduledTransferServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTransferServiceTest {
+
+    @Mock
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private VelocityLimitService velocityLimitService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ScheduledTransferServiceImpl scheduledTransferService;
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 31, 9, 0);
+
+    private Card first;
+    private Card second;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        User user = User.builder()
+                .id(1L)
+                .username("john")
+                .build();
+
+        first = Card.builder()
+                .id(10L)
+                .user(user)
+                .balance(new BigDecimal("100.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+
+        second = Card.builder()
+                .id(20L)
+                .user(user)
+                .balance(new BigDecimal("0.00"))
+                .status(CardStatus.ACTIVE)
+                .build();
+    }
+
+    @Test
+    void create_shouldScheduleFirstRun() {
+        when(cardRepository.existsByIdAndUserId(10L, 1L)).thenReturn(true);
+        when(cardRepository.existsByIdAndUserId(20L, 1L)).thenReturn(true);
+        when(scheduledTransferRepository.save(any(ScheduledTransfer.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        ScheduledTransferDto result = scheduledTransferService.create(1L, new CreateScheduledTransferRequest(
+                10L, 20L, new BigDecimal("30.00"), NOW, "P1M"));
+
+        assertEquals(NOW, result.getNextRunAt());
+        assertEquals(ScheduledTransferStatus.ACTIVE, result.getStatus());
+    }
+
+    @Test
+    void create_shouldRejectInvalidPeriod() {
+        assertThrows(
+                InvalidTransferRequestException.class,
+                () -> scheduledTransferService.create(1L, new CreateScheduledTransferRequest(
+                        10L, 20L, BigDecimal.TEN, NOW, "monthly"))
+        );
+        assertThrows(
+                InvalidTransferRequestException.class,
+                () -> scheduledTransferService.create(1L, new CreateScheduledTransferRequest(
+                        10L, 20L, BigDecimal.TEN, NOW, "P0D"))
+        );
+        verifyNoInteractions(scheduledTransferRepository);
+    }
+
+    @Test
+    void runDue_shouldExecuteAndAdvanceFromFirstRun() {
+        ScheduledTransfer monthly = scheduled(1L, "60.00", "P1M", LocalDateTime.of(2026, 1, 31, 9, 0), 2);
+        when(scheduledTransferRepository.claimDue(NOW, 100)).thenReturn(List.of(monthly));
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L))).thenReturn(List.of(first, second));
+
+        assertEquals(1, scheduledTransferService.runDue(NOW, 100));
+
+        assertEquals(new BigDecimal("40.00"), first.getBalance());
+        assertEquals(new BigDecimal("60.00"), second.getBalance());
+        assertEquals(LocalDateTime.of(2026, 4, 30, 9, 0), monthly.getNextRunAt());
+        assertEquals(3, monthly.getOccurrence());
+        assertEquals(NOW, monthly.getLastRunAt());
+        assertNull(monthly.getLastError());
+        verify(ledgerService).recordTransfers(argThat(applied -> applied.size() == 1));
+    }
+
+    @Test
+    void runDue_shouldRecordRejectionAndStillAdvance() {
+        ScheduledTransfer overdraft = scheduled(1L, "500.00", "P1D", NOW.minusDays(3), 0);
+        when(scheduledTransferRepository.claimDue(NOW, 100)).thenReturn(List.of(overdraft));
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L))).thenReturn(List.of(first, second));
+
+        assertEquals(1, scheduledTransferService.runDue(NOW, 100));
+
+        assertNotNull(overdraft.getLastError());
+        assertEquals(NOW.plusDays(1), overdraft.getNextRunAt());
+        assertEquals(new BigDecimal("100.00"), first.getBalance());
+        verify(ledgerService).recordTransfers(List.of());
+    }
+
+    @Test
+    void runDue_shouldCompleteOneOffTransfer() {
+        ScheduledTransfer once = scheduled(1L, "10.00", null, NOW, 0);
+        when(scheduledTransferRepository.claimDue(NOW, 100)).thenReturn(List.of(once));
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L))).thenReturn(List.of(first, second));
+
+        scheduledTransferService.runDue(NOW, 100);
+
+        assertEquals(ScheduledTransferStatus.COMPLETED, once.getStatus());
+    }
+
+    @Test
+    void runDue_shouldReturnZero_whenNothingIsDue() {
+        when(scheduledTransferRepository.claimDue(NOW, 100)).thenReturn(List.of());
+
+        assertEquals(0, scheduledTransferService.runDue(NOW, 100));
+        verifyNoInteractions(cardRepository, ledgerService);
+    }
+
+    private ScheduledTransfer scheduled(Long id, String amount, String period,
+                                        LocalDateTime firstRunAt, int occurrence) {
+        return ScheduledTransfer.builder()
+                .id(id)
+                .userId(1L)
+                .fromCardId(10L)
+                .toCardId(20L)
+                .amount(new BigDecimal(amount))
+                .repeatPeriod(period)
+                .firstRunAt(firstRunAt)
+                .nextRunAt(period == null ? firstRunAt : firstRunAt.plus(Period.parse(period).multipliedBy(occurrence)))
+                .occurrence(occurrence)
+                .status(ScheduledTransferStatus.ACTIVE)
+                .createdAt(firstRunAt)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.service.impl.StripedBalanceServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripedBalanceServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private StripedBalanceServiceImpl stripedBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        stripedBalanceService = new StripedBalanceServiceImpl(jdbcTemplate);
+    }
+
+    @Test
+    void credit_shouldReadStripeCountUnderShareLock() {
+        when(jdbcTemplate.queryForList(contains("for share"), eq(Integer.class), eq(20L))).thenReturn(List.of(4));
+        when(jdbcTemplate.update(contains("card_balance_stripes"), eq(new BigDecimal("30")), eq(20L), anyInt()))
+                .thenReturn(1);
+
+        stripedBalanceService.credit(20L, new BigDecimal("30"));
+
+        verify(jdbcTemplate).update(contains("card_balance_stripes"), eq(new BigDecimal("30")), eq(20L),
+                intThat(stripe -> stripe >= 0 && stripe < 4));
+    }
+
+    @Test
+    void credit_shouldCreditCardRow_whenStripingWasSwitchedOff() {
+        when(jdbcTemplate.queryForList(contains("for share"), eq(Integer.class), eq(20L))).thenReturn(List.of(0));
+
+        stripedBalanceService.credit(20L, new BigDecimal("30"));
+
+        verify(jdbcTemplate).update(contains("update cards set balance"), eq(new BigDecimal("30")), eq(20L));
+        verify(jdbcTemplate, never()).update(contains("card_balance_stripes"), any(Object[].class));
+    }
+
+    @Test
+    void credit_shouldThrow_whenCardDoesNotExist() {
+        when(jdbcTemplate.queryForList(contains("for share"), eq(Integer.class), eq(20L))).thenReturn(List.of());
+
+        assertThrows(CardNotFoundException.class, () -> stripedBalanceService.credit(20L, BigDecimal.ONE));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.TransferDirection;
+import com.example.bankcards.dto.card.TransferHistoryFilter;
+import com.example.bankcards.dto.card.TransferHistoryItem;
+import com.example.bankcards.dto.card.TransferHistoryPage;
+import com.example.bankcards.dto.card.TransferRequest;
+import com.example.bankcards.exception.card.CardNotFoundException;
+import com.example.bankcards.exception.card.InvalidCursorException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.impl.TransferHistoryServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferHistoryServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private TransferHistoryServiceImpl transferHistoryService;
+
+    private final TransferHistoryFilter noFilter = new TransferHistoryFilter(null, null, null, null);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferHistoryService, "maxLimit", 200);
+    }
+
+    @Test
+    void getForUser_shouldRejectForeignCard() {
+        when(cardRepository.existsByIdAndUserId(10L, 1L)).thenReturn(false);
+
+        assertThrows(
+                CardNotFoundException.class,
+                () -> transferHistoryService.getForUser(1L, 10L, noFilter, null, 20)
+        );
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void getForCard_shouldReturnNextCursor_whenMoreRowsExist() {
+        when(cardRepository.existsById(10L)).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(item(3L), item(2L), item(1L)));
+
+        TransferHistoryPage page = transferHistoryService.getForCard(10L, noFilter, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+        verify(jdbcTemplate).query(anyString(),
+                argThat((SqlParameterSource params) -> Integer.valueOf(3).equals(params.getValue("limit"))),
+                any(RowMapper.class));
+    }
+
+    @Test
+    void getForCard_shouldSeekPastCursor() {
+        when(cardRepository.existsById(10L)).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of(item(2L), item(1L)));
+
+        String cursor = transferHistoryService.getForCard(10L, noFilter, null, 1).getNextCursor();
+        transferHistoryService.getForCard(10L, noFilter, cursor, 1);
+
+        verify(jdbcTemplate).query(contains("(created_at, id) < (:cursorAt, :cursorId)"),
+                argThat((SqlParameterSource params) -> params.hasValue("cursorId")
+                        && Long.valueOf(2L).equals(params.getValue("cursorId"))),
+                any(RowMapper.class));
+    }
+
+    @Test
+    void getForCard_shouldAddOnlyRequestedFilters() {
+        when(cardRepository.existsById(10L)).thenReturn(true);
+        when(jdbcTemplate.query(anyString(), any(SqlParameterSource.class), any(RowMapper.class)))
+                .thenReturn(List.of());
+
+        transferHistoryService.getForCard(10L,
+                new TransferHistoryFilter(null, null, new BigDecimal("100"), null), null, 20);
+
+        verify(jdbcTemplate).query(
+                argThat((String sql) -> sql.contains("amount >= :minAmount") && !sql.contains(":maxAmount")),
+                any(SqlParameterSource.class),
+                any(RowMapper.class));
+    }
+
+    @Test
+    void getForCard_shouldRejectMalformedCursor() {
+        when(cardRepository.existsById(10L)).thenReturn(true);
+
+        assertThrows(
+                InvalidCursorException.class,
+                () -> transferHistoryService.getForCard(10L, noFilter, "not-a-cursor", 20)
+        );
+    }
+
+    @Test
+    void record_shouldBatchInsertTransfers() {
+        transferHistoryService.record(List.of(
+                new TransferRequest(10L, 20L, BigDecimal.ONE),
+                new TransferRequest(20L, 10L, BigDecimal.TEN)
+        ));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((MapSqlParameterSource[] rows) -> rows.length == 2));
+    }
+
+    private TransferHistoryItem item(Long id) {
+        return TransferHistoryItem.builder()
+                .id(id)
+                .fromCardId(10L)
+                .toCardId(20L)
+                .amount(BigDecimal.ONE)
+                .direction(TransferDirection.OUTGOING)
+                .createdAt(LocalDateTime.of(2026, 1, 1, 12, 0))
+                .build();
+    }
+}
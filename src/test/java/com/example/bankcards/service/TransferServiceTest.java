@@ -1,27 +1,48 @@
 package com.example.bankcards.service;
 
 
+import com.example.bankcards.dto.card.FxConversion;
 import com.example.bankcards.dto.card.TransferRequest;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.card.AccessDeniedException;
+import com.example.bankcards.exception.card.CardNotActiveException;
 import com.example.bankcards.exception.card.CardNotFoundException;
 import com.example.bankcards.exception.card.InsufficientFundsException;
+import com.example.bankcards.exception.card.InvalidTransferRequestException;
+import com.example.bankcards.exception.card.VelocityLimitExceededException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.service.impl.TransferServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +51,30 @@ class TransferServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private VelocityLimitService velocityLimitService;
+
+    @Mock
+    private CardValidationService cardValidationService;
+
+    @Mock
+    private FxRateService fxRateService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private TransferServiceImpl transferService;
 
@@ -39,6 +84,9 @@ class TransferServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         user = User.builder()
                 .id(1L)
                 .username("john")
@@ -133,6 +181,7 @@ class TransferServiceTest {
 
         assertEquals(new BigDecimal("70.00"), fromCard.getBalance());
         assertEquals(new BigDecimal("80.00"), toCard.getBalance());
+        verify(ledgerService).recordTransfer(request);
     }
 
     @Test
@@ -145,8 +194,8 @@ class TransferServiceTest {
         when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
         when(cardRepository.findById(20L)).thenReturn(Optional.of(toCard));
 
-        IllegalArgumentException exception = assertThrows(
-                IllegalArgumentException.class,
+        CardNotActiveException exception = assertThrows(
+                CardNotActiveException.class,
                 () -> transferService.transfer(1L, request)
         );
 
@@ -156,5 +205,165 @@ class TransferServiceTest {
         );
     }
 
-}
+    @Test
+    void transfer_shouldRejectNonPositiveAmount_beforeVelocityLimit() {
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("-30.00"));
+
+        assertThrows(
+                InvalidTransferRequestException.class,
+                () -> transferService.transfer(1L, request)
+        );
+
+        verifyNoInteractions(velocityLimitService, cardRepository);
+    }
+
+    @Test
+    void transfer_shouldLockCardsInIdOrder_whenLockEnabled() {
+        ReflectionTestUtils.setField(transferService, "lockEnabled", true);
+        ReflectionTestUtils.setField(transferService, "maxAttempts", 3);
+
+        TransferRequest request =
+                new TransferRequest(20L, 10L, new BigDecimal("20"));
+
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L)))
+                .thenReturn(List.of(fromCard, toCard));
+
+        transferService.transfer(1L, request);
+
+        assertEquals(new BigDecimal("120.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("30.00"), toCard.getBalance());
+        assertEquals(1, meterRegistry.timer("transfer.lock.wait").count());
+    }
+
+    @Test
+    void transfer_shouldCreditStripeWithoutLockingTarget_whenTargetIsStriped() {
+        ReflectionTestUtils.setField(transferService, "lockEnabled", true);
+        ReflectionTestUtils.setField(transferService, "maxAttempts", 3);
+        toCard.setStripeCount(8);
+
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+
+        when(cardRepository.findStripeCountById(20L)).thenReturn(Optional.of(8));
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L))).thenReturn(List.of(fromCard));
+        when(cardRepository.findById(20L)).thenReturn(Optional.of(toCard));
+
+        transferService.transfer(1L, request);
+
+        assertEquals(new BigDecimal("70.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("50.00"), toCard.getBalance());
+        verify(stripedBalanceService).credit(20L, new BigDecimal("30"));
+        verify(ledgerService).recordTransfer(request);
+    }
+
+    @Test
+    void transfer_shouldAbsorbStripes_whenStripedSourceLacksBaseBalance() {
+        fromCard.setStripeCount(4);
+        fromCard.setBalance(new BigDecimal("10.00"));
+
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findById(20L)).thenReturn(Optional.of(toCard));
+        doAnswer(inv -> {
+            fromCard.setBalance(fromCard.getBalance().add(new BigDecimal("40.00")));
+            return null;
+        }).when(stripedBalanceService).absorb(fromCard);
+
+        transferService.transfer(1L, request);
+
+        assertEquals(new BigDecimal("20.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("80.00"), toCard.getBalance());
+    }
+
+    @Test
+    void transfer_shouldRetry_whenLockFails() {
+        ReflectionTestUtils.setField(transferService, "lockEnabled", true);
+        ReflectionTestUtils.setField(transferService, "maxAttempts", 3);
+
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L)))
+                .thenThrow(new PessimisticLockingFailureException("lock timeout"))
+                .thenReturn(List.of(fromCard, toCard));
+
+        transferService.transfer(1L, request);
+
+        verify(cardRepository, times(2)).findAllByIdInForUpdate(Set.of(10L, 20L));
+        assertEquals(new BigDecimal("70.00"), fromCard.getBalance());
+        assertEquals(1.0, meterRegistry.counter("transfer.lock.retries").count());
+    }
+
+    @Test
+    void transfer_shouldGiveUp_whenLockFailsOnEveryAttempt() {
+        ReflectionTestUtils.setField(transferService, "lockEnabled", true);
+        ReflectionTestUtils.setField(transferService, "maxAttempts", 2);
+
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+
+        when(cardRepository.findAllByIdInForUpdate(Set.of(10L, 20L)))
+                .thenThrow(new PessimisticLockingFailureException("lock timeout"));
+
+        assertThrows(
+                PessimisticLockingFailureException.class,
+                () -> transferService.transfer(1L, request)
+        );
+        verify(cardRepository, times(2)).findAllByIdInForUpdate(Set.of(10L, 20L));
+    }
+
+    @Test
+    void transfer_shouldRejectBeforeTransaction_whenVelocityLimitExceeded() {
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+
+        doThrow(new VelocityLimitExceededException(10L, "daily"))
+                .when(velocityLimitService).check(10L, new BigDecimal("30"));
 
+        assertThrows(
+                VelocityLimitExceededException.class,
+                () -> transferService.transfer(1L, request)
+        );
+        verifyNoInteractions(transactionTemplate, cardRepository);
+    }
+
+    @Test
+    void transfer_shouldRejectBeforeTransaction_whenPrecheckFails() {
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+
+        doThrow(new AccessDeniedException(2L))
+                .when(cardValidationService).precheck(2L, request);
+
+        assertThrows(
+                AccessDeniedException.class,
+                () -> transferService.transfer(2L, request)
+        );
+        verifyNoInteractions(transactionTemplate, cardRepository, velocityLimitService);
+    }
+
+    @Test
+    void transfer_shouldConvertAndRecordRate_whenCurrenciesDiffer() {
+        fromCard.setCurrency("RUB");
+        toCard.setCurrency("USD");
+
+        TransferRequest request =
+                new TransferRequest(10L, 20L, new BigDecimal("30"));
+        FxConversion conversion =
+                new FxConversion("RUB", "USD", new BigDecimal("0.01100000"), new BigDecimal("0.33"));
+
+        when(cardRepository.findById(10L)).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findById(20L)).thenReturn(Optional.of(toCard));
+        when(fxRateService.convert("RUB", "USD", new BigDecimal("30"))).thenReturn(conversion);
+
+        transferService.transfer(1L, request);
+
+        assertEquals(new BigDecimal("70.00"), fromCard.getBalance());
+        assertEquals(new BigDecimal("50.33"), toCard.getBalance());
+        verify(ledgerService).recordTransfer(request, conversion);
+        verify(ledgerService, never()).recordTransfer(request);
+    }
+}
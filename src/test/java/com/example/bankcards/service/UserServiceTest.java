@@ -9,6 +9,7 @@ import com.example.bankcards.exception.user.UserNotFoundException;
 import com.example.bankcards.exception.user.UserWithThisUsernameAlreadyExist;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.PasswordConfig;
+import com.example.bankcards.security.UserVersionService;
 import com.example.bankcards.service.impl.UserServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,6 +44,9 @@ class UserServiceTest {
     @Mock
     private PasswordConfig passwordConfig;
 
+    @Mock
+    private UserVersionService userVersionService;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -237,6 +241,7 @@ class UserServiceTest {
 
         assertEquals("John", dto.getUsername());
         assertEquals(UserRole.ADMIN, dto.getRole());
+        verify(userVersionService).bump(1L);
     }
 
     @Test
@@ -292,6 +297,7 @@ class UserServiceTest {
         );
 
         verify(userRepository, never()).save(any(User.class));
+        verifyNoInteractions(userVersionService);
     }
 
 
@@ -340,5 +346,6 @@ class UserServiceTest {
         userService.delete(1L);
 
         verify(userRepository).deleteById(1L);
+        verify(userVersionService).bump(1L);
     }
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.card.VelocityLimitExceededException;
+import com.example.bankcards.service.impl.VelocityLimitServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VelocityLimitServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private VelocityLimitServiceImpl velocityLimitService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(velocityLimitService, "enabled", true);
+        ReflectionTestUtils.setField(velocityLimitService, "hourlyLimit", new BigDecimal("100.00"));
+        ReflectionTestUtils.setField(velocityLimitService, "dailyLimit", new BigDecimal("150.00"));
+        ReflectionTestUtils.setField(velocityLimitService, "batchSize", 500);
+        ReflectionTestUtils.invokeMethod(velocityLimitService, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserve_shouldRejectAmountOverHourlyLimit() {
+        velocityLimitService.reserve(10L, new BigDecimal("60.00"));
+
+        assertThrows(
+                VelocityLimitExceededException.class,
+                () -> velocityLimitService.reserve(10L, new BigDecimal("50.00"))
+        );
+        velocityLimitService.reserve(10L, new BigDecimal("40.00"));
+        velocityLimitService.reserve(20L, new BigDecimal("100.00"));
+    }
+
+    @Test
+    void check_shouldNotCountAmount() {
+        velocityLimitService.check(10L, new BigDecimal("100.00"));
+        velocityLimitService.check(10L, new BigDecimal("100.00"));
+
+        assertThrows(
+                VelocityLimitExceededException.class,
+                () -> velocityLimitService.check(10L, new BigDecimal("100.01"))
+        );
+    }
+
+    @Test
+    void reserve_shouldGiveAmountBack_whenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        velocityLimitService.reserve(10L, new BigDecimal("100.00"));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        velocityLimitService.reserve(10L, new BigDecimal("100.00"));
+    }
+
+    @Test
+    void reserve_shouldNeverOvershootLimit_underConcurrency() throws InterruptedException {
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            executor.submit(() -> {
+                try {
+                    velocityLimitService.reserve(10L, new BigDecimal("1.00"));
+                    accepted.incrementAndGet();
+                } catch (VelocityLimitExceededException ignored) {
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(accepted.get() <= 100);
+        assertTrue(accepted.get() > 0);
+    }
+
+    @Test
+    void checkpoint_shouldWriteOnlyChangedCards() {
+        velocityLimitService.reserve(10L, new BigDecimal("25.00"));
+
+        velocityLimitService.checkpoint();
+        velocityLimitService.checkpoint();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((List<Object[]> rows) ->
+                rows.size() == 2 && rows.stream().allMatch(row -> row[0].equals(10L)
+                        && new BigDecimal("25.00").equals(row[3]))));
+    }
+}
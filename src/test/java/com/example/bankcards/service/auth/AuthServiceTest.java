@@ -2,13 +2,16 @@ package com.example.bankcards.service.auth;
 
 import com.example.bankcards.dto.auth.AuthResponse;
 import com.example.bankcards.dto.auth.LoginRequest;
+import com.example.bankcards.dto.auth.RefreshTokenRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.user.UserNotFoundByUsernameException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserVersionService;
 import com.example.bankcards.security.jwt.JwtService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -34,6 +37,12 @@ class AuthServiceTest {
     @Mock
     private JwtService jwtService;
 
+    @Mock
+    private UserVersionService userVersionService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
     @InjectMocks
     private AuthService authService;
 
@@ -41,14 +50,21 @@ class AuthServiceTest {
     void login_shouldReturnToken_whenCredentialsAreValid() {
         LoginRequest request = new LoginRequest("user", "password");
         User user = new User();
+        user.setId(1L);
         user.setUsername("user");
 
         when(userRepository.findByUsername("user"))
                 .thenReturn(Optional.of(user));
 
-        when(jwtService.generateToken(user))
+        when(userVersionService.currentVersion("user"))
+                .thenReturn(3L);
+
+        when(jwtService.generateToken(user, 3L))
                 .thenReturn("jwt-token");
 
+        when(refreshTokenService.issue(user, 3L))
+                .thenReturn("refresh-token");
+
         Authentication authentication = mock(Authentication.class);
         when(authenticationManager.authenticate(
                 any(UsernamePasswordAuthenticationToken.class)
@@ -57,13 +73,18 @@ class AuthServiceTest {
 
         AuthResponse response = authService.login(request);
 
+        InOrder order = inOrder(userVersionService, userRepository);
+        order.verify(userVersionService).currentVersion("user");
+        order.verify(userRepository).findByUsername("user");
+
         Assertions.assertNotNull(response);
         Assertions.assertEquals("jwt-token", response.getAccessToken());
+        Assertions.assertEquals("refresh-token", response.getRefreshToken());
 
         verify(userRepository).findByUsername("user");
         verify(authenticationManager)
                 .authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtService).generateToken(user);
+        verify(jwtService).generateToken(user, 3L);
     }
 
     @Test
@@ -104,7 +125,18 @@ class AuthServiceTest {
         verify(authenticationManager)
                 .authenticate(any(UsernamePasswordAuthenticationToken.class));
         verifyNoInteractions(jwtService);
+        verifyNoInteractions(refreshTokenService);
     }
 
+    @Test
+    void refresh_shouldDelegateToRotation_withoutPasswordCheck() {
+        when(refreshTokenService.rotate("refresh-token"))
+                .thenReturn(new AuthResponse("jwt-token", "next-refresh-token"));
+
+        AuthResponse response = authService.refresh(new RefreshTokenRequest("refresh-token"));
 
+        Assertions.assertEquals("next-refresh-token", response.getRefreshToken());
+        verifyNoInteractions(authenticationManager);
+        verifyNoInteractions(userRepository);
+    }
 }
@@ -0,0 +1,158 @@
+package com.example.bankcards.service.auth;
+
+import com.example.bankcards.dto.auth.AuthResponse;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.entity.UserRole;
+import com.example.bankcards.exception.user.InvalidRefreshTokenException;
+import com.example.bankcards.security.UserVersionService;
+import com.example.bankcards.security.jwt.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final String FAMILY = "6f1c2d9e-0000-4000-8000-000000000001";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserVersionService userVersionService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(
+                jdbcTemplate, transactionTemplate, jwtService, userVersionService, meterRegistry);
+        ReflectionTestUtils.setField(refreshTokenService, "ttl", Duration.ofDays(14));
+        ReflectionTestUtils.setField(refreshTokenService, "cacheSize", 16);
+        ReflectionTestUtils.invokeMethod(refreshTokenService, "init");
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void issue_shouldStoreOnlyTheHash() {
+        User user = User.builder().id(5L).username("john").role(UserRole.USER).build();
+
+        String token = refreshTokenService.issue(user, 2L);
+
+        ArgumentCaptor<Object> hash = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(contains("insert into refresh_tokens"),
+                hash.capture(), anyString(), eq(5L), eq("john"), eq("USER"), eq(2L), any());
+        assertEquals(64, ((String) hash.getValue()).length());
+        assertNotEquals(token, hash.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotate_shouldIssueNextTokenInSameFamily_withoutLoadingUser() throws Exception {
+        stubConsume();
+        when(userVersionService.isCurrent(5L, 2L)).thenReturn(true);
+        when(jwtService.generateToken(any(User.class), eq(2L))).thenReturn("access");
+
+        AuthResponse response = refreshTokenService.rotate("refresh-1");
+
+        assertEquals("access", response.getAccessToken());
+        assertNotEquals("refresh-1", response.getRefreshToken());
+        verify(jdbcTemplate).update(contains("insert into refresh_tokens"),
+                anyString(), eq(FAMILY), eq(5L), eq("john"), eq("ADMIN"), eq(2L), any());
+        ArgumentCaptor<User> user = ArgumentCaptor.forClass(User.class);
+        verify(jwtService).generateToken(user.capture(), eq(2L));
+        assertEquals("john", user.getValue().getUsername());
+        assertEquals(UserRole.ADMIN, user.getValue().getRole());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotate_shouldRevokeFamily_whenRotatedTokenIsReplayed() throws Exception {
+        stubConsume();
+        when(userVersionService.isCurrent(5L, 2L)).thenReturn(true);
+        refreshTokenService.rotate("refresh-1");
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("refresh-1"));
+
+        verify(jdbcTemplate, times(1)).query(contains("returning"), any(RowMapper.class), anyString());
+        verify(jdbcTemplate).update(contains("set revoked_at"), eq(FAMILY));
+        assertEquals(1.0, meterRegistry.counter("auth.refresh.tokens", "result", "reused").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotate_shouldRevokeFamily_whenTokenWasUsedOnAnotherInstance() {
+        when(jdbcTemplate.query(contains("returning"), any(RowMapper.class), anyString())).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("used_at is not null"), eq(String.class), anyString()))
+                .thenReturn(List.of(FAMILY));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("refresh-1"));
+
+        verify(jdbcTemplate).update(contains("set revoked_at"), eq(FAMILY));
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotate_shouldReject_whenUserChangedSinceLogin() throws Exception {
+        stubConsume();
+        when(userVersionService.isCurrent(5L, 2L)).thenReturn(false);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("refresh-1"));
+
+        verify(jdbcTemplate).update(contains("set revoked_at"), eq(FAMILY));
+        verify(jdbcTemplate, never()).update(contains("insert into refresh_tokens"), any(Object[].class));
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotate_shouldReject_unknownToken() {
+        when(jdbcTemplate.query(contains("returning"), any(RowMapper.class), anyString())).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("used_at is not null"), eq(String.class), anyString()))
+                .thenReturn(List.of());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+
+        verify(jdbcTemplate, never()).update(contains("set revoked_at"), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubConsume() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("family_id")).thenReturn(FAMILY);
+        when(rs.getLong("user_id")).thenReturn(5L);
+        when(rs.getString("username")).thenReturn("john");
+        when(rs.getString("role")).thenReturn("ADMIN");
+        when(rs.getLong("user_version")).thenReturn(2L);
+        when(jdbcTemplate.query(contains("returning"), any(RowMapper.class), anyString()))
+                .thenAnswer(inv -> List.of(inv.<RowMapper<?>>getArgument(1).mapRow(rs, 0)));
+    }
+}
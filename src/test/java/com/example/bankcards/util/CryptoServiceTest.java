@@ -0,0 +1,73 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoServiceTest {
+
+    private final CryptoService cryptoService = new CryptoService("16byteslong12345");
+
+    @Test
+    void constructor_shouldRejectInvalidKeyLength() {
+        assertThrows(IllegalArgumentException.class, () -> new CryptoService("short"));
+    }
+
+    @Test
+    void encryptAll_shouldRoundTripThroughDecryptAndDecryptAll() {
+        List<String> values = List.of("4000000000001234", "", "4000000000005678", "номер с юникодом");
+
+        List<String> encrypted = cryptoService.encryptAll(values);
+
+        assertEquals(values.size(), encrypted.size());
+        assertEquals(values, cryptoService.decryptAll(encrypted));
+        assertEquals(values.get(3), cryptoService.decrypt(encrypted.get(3)));
+        assertEquals(values.get(0), cryptoService.decryptAll(List.of(cryptoService.encrypt(values.get(0)))).get(0));
+    }
+
+    @Test
+    void decryptAll_shouldHandleLegacyAndGcmValuesInOneBatch() {
+        List<String> encrypted = List.of(
+                cryptoService.encryptLegacy("4000000000001234"),
+                cryptoService.encrypt("4000000000005678"),
+                cryptoService.encryptLegacy("4000000000009999")
+        );
+
+        assertEquals(List.of("4000000000001234", "4000000000005678", "4000000000009999"),
+                cryptoService.decryptAll(encrypted));
+    }
+
+    @Test
+    void decrypt_shouldRejectTamperedCiphertext() {
+        String encrypted = cryptoService.encrypt("4000000000001234");
+        char last = encrypted.charAt(encrypted.length() - 3);
+        String tampered = encrypted.substring(0, encrypted.length() - 3)
+                + (last == 'A' ? 'B' : 'A')
+                + encrypted.substring(encrypted.length() - 2);
+
+        assertThrows(IllegalStateException.class, () -> cryptoService.decrypt(tampered));
+        assertEquals("4000000000001234", cryptoService.decrypt(encrypted));
+    }
+
+    @Test
+    void encrypt_shouldBeSafeToShareAcrossVirtualThreads() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = IntStream.range(0, 500)
+                    .mapToObj(i -> executor.submit(() -> {
+                        String value = String.format("4000%012d", i);
+                        return value.equals(cryptoService.decrypt(cryptoService.encrypt(value)));
+                    }))
+                    .toList();
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        }
+    }
+}
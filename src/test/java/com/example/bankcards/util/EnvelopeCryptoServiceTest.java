@@ -0,0 +1,112 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EnvelopeCryptoServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    private final CryptoService cryptoService = new CryptoService("16byteslong12345");
+
+    private LocalKeyService keyService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        keyService = localKeyService(directory, "master-2");
+    }
+
+    @Test
+    void encryptAll_shouldShareOneWrappedDataKeyAndRoundTrip() {
+        EnvelopeCryptoService envelope = envelope(spy(keyService), 100);
+
+        List<EncryptedCardNumber> encrypted = envelope.encryptAll(List.of("4000000000001234", "4000000000005678"));
+
+        assertEquals("master-2", encrypted.get(0).keyId());
+        assertEquals(encrypted.get(0).dataKey(), encrypted.get(1).dataKey());
+        assertNotEquals(encrypted.get(0).ciphertext(), encrypted.get(1).ciphertext());
+        assertEquals(List.of("4000000000001234", "4000000000005678"), envelope.decryptAll(encrypted));
+    }
+
+    @Test
+    void decryptAll_shouldUnwrapEachDataKeyOnceAndReadStaticKeyValues() {
+        List<EncryptedCardNumber> encrypted = List.of(
+                envelope(keyService, 100).encrypt("4000000000001234"),
+                new EncryptedCardNumber(cryptoService.encrypt("4000000000005678"), null),
+                new EncryptedCardNumber(cryptoService.encryptLegacy("4000000000009999"), null)
+        );
+        KeyService spied = spy(keyService);
+        EnvelopeCryptoService reader = envelope(spied, 100);
+
+        assertEquals(List.of("4000000000001234", "4000000000005678", "4000000000009999"), reader.decryptAll(encrypted));
+        assertEquals("4000000000001234", reader.decrypt(encrypted.get(0)));
+        verify(spied, times(1)).unwrap(encrypted.get(0).dataKey());
+    }
+
+    @Test
+    void encrypt_shouldSwitchDataKey_whenMaxUsesReached() {
+        KeyService spied = spy(keyService);
+        EnvelopeCryptoService envelope = envelope(spied, 2);
+
+        EncryptedCardNumber first = envelope.encrypt("4000000000000001");
+        EncryptedCardNumber second = envelope.encrypt("4000000000000002");
+        EncryptedCardNumber third = envelope.encrypt("4000000000000003");
+
+        assertEquals(first.dataKey(), second.dataKey());
+        assertNotEquals(second.dataKey(), third.dataKey());
+        verify(spied, times(2)).generateDataKey();
+        assertEquals("4000000000000003", envelope.decrypt(third));
+    }
+
+    @Test
+    void decrypt_shouldFail_whenMasterKeyIsUnknown() {
+        EncryptedCardNumber encrypted = envelope(keyService, 100).encrypt("4000000000001234");
+        EncryptedCardNumber foreign = new EncryptedCardNumber(
+                encrypted.ciphertext(), new WrappedKey("retired", encrypted.wrappedKey()));
+
+        assertThrows(IllegalStateException.class, () -> envelope(keyService, 100).decrypt(foreign));
+    }
+
+    private EnvelopeCryptoService envelope(KeyService keys, long maxUses) {
+        EnvelopeCryptoService envelope = new EnvelopeCryptoService(keys, cryptoService);
+        ReflectionTestUtils.setField(envelope, "dataKeyTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(envelope, "dataKeyMaxUses", maxUses);
+        ReflectionTestUtils.setField(envelope, "cacheSize", 16);
+        ReflectionTestUtils.setField(envelope, "cacheTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.invokeMethod(envelope, "init");
+        return envelope;
+    }
+
+    static LocalKeyService localKeyService(Path directory, String activeKeyId) throws IOException {
+        SecureRandom random = new SecureRandom();
+        byte[] older = new byte[32];
+        byte[] active = new byte[32];
+        random.nextBytes(older);
+        random.nextBytes(active);
+
+        Path file = directory.resolve("master-keys.properties");
+        Files.writeString(file, String.join("\n",
+                "active=" + activeKeyId,
+                "master-1=" + Base64.getEncoder().encodeToString(older),
+                activeKeyId + "=" + Base64.getEncoder().encodeToString(active)));
+
+        LocalKeyService keyService = new LocalKeyService();
+        ReflectionTestUtils.setField(keyService, "keyFile", file);
+        ReflectionTestUtils.invokeMethod(keyService, "init");
+        return keyService;
+    }
+}